@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2013 - 2014 Stefan Muller Arisona, Simon Schubiger, Samuel von Stachelski
+ * Copyright (c) 2013 - 2014 FHNW & ETH Zurich
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *  Neither the name of FHNW / ETH Zurich nor the names of its contributors may
+ *   be used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.fhnw.util.math.jmh;
+
+import java.nio.FloatBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Setup;
+
+import ch.fhnw.util.math.Mat3;
+import ch.fhnw.util.math.Mat4;
+import ch.fhnw.util.math.Vec3;
+
+/**
+ * Public operations of {@link Mat3}. Bulk transforms are reported per vertex.
+ */
+public class Mat3Benchmark extends MathBenchmarkBase {
+	Mat3 a, b, c, d;
+	Mat4 m4;
+	Vec3 v3, axis;
+	float[] array, xyz, result, x, y, z, rx, ry, rz;
+	FloatBuffer buffer;
+	float angle, s;
+
+	@Setup
+	public void setup() {
+		a = Mat3.multiply(Mat3.rotate(30, 1, 1, 0), Mat3.scale(2, 3, 4));
+		b = Mat3.rotate(-20, 0, 1, 1);
+		c = Mat3.rotate(45, 0, 0, 1);
+		d = Mat3.scale(0.5f, 0.5f, 0.5f);
+		m4 = Mat4.multiply(Mat4.translate(1, 2, 3), Mat4.rotate(30, 1, 1, 0));
+		v3 = new Vec3(0.3f, -0.7f, 1.1f);
+		axis = new Vec3(1, 1, 0);
+		angle = 30;
+		s = 2;
+		array = a.toArray();
+		xyz = points(N, 2);
+		result = new float[3 * N];
+		x = new float[N];
+		y = new float[N];
+		z = new float[N];
+		for (int i = 0; i < N; i++) {
+			x[i] = xyz[3 * i];
+			y[i] = xyz[3 * i + 1];
+			z[i] = xyz[3 * i + 2];
+		}
+		rx = new float[N];
+		ry = new float[N];
+		rz = new float[N];
+		buffer = FloatBuffer.allocate(3 * N);
+	}
+
+	// construction
+
+	@Benchmark
+	public Mat3 fromArray() {
+		return new Mat3(array);
+	}
+
+	@Benchmark
+	public Mat3 fromMat4() {
+		return new Mat3(m4);
+	}
+
+	@Benchmark
+	public Mat3 rotate() {
+		return Mat3.rotate(angle, axis.x, axis.y, axis.z);
+	}
+
+	@Benchmark
+	public Mat3 rotateVec3() {
+		return Mat3.rotate(angle, axis);
+	}
+
+	@Benchmark
+	public Mat3 scale() {
+		return Mat3.scale(s, s, s);
+	}
+
+	@Benchmark
+	public Mat3 scaleVec3() {
+		return Mat3.scale(v3);
+	}
+
+	// products
+
+	@Benchmark
+	public Mat3 multiply() {
+		return Mat3.multiply(a, b);
+	}
+
+	@Benchmark
+	public Mat3 multiply3() {
+		return Mat3.multiply(a, b, c);
+	}
+
+	@Benchmark
+	public Mat3 multiply4() {
+		return Mat3.multiply(a, b, c, d);
+	}
+
+	@Benchmark
+	public Mat3 multiplyVarargs() {
+		return Mat3.multiply(a, b, c, d, a);
+	}
+
+	@Benchmark
+	public Mat3 postMultiply() {
+		return a.postMultiply(b);
+	}
+
+	@Benchmark
+	public Mat3 preMultiply() {
+		return a.preMultiply(b);
+	}
+
+	// properties
+
+	@Benchmark
+	public Mat3 transpose() {
+		return a.transpose();
+	}
+
+	@Benchmark
+	public float determinant() {
+		return a.determinant();
+	}
+
+	@Benchmark
+	public Mat3 inverse() {
+		return a.inverse();
+	}
+
+	@Benchmark
+	public float[] toArray() {
+		return a.toArray();
+	}
+
+	@Benchmark
+	public String toStringMat() {
+		return a.toString();
+	}
+
+	// vectors
+
+	@Benchmark
+	public Vec3 transformVec3() {
+		return a.transform(v3);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(N)
+	public float[] transformArray() {
+		return a.transform(xyz, result);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(N)
+	public float[] transformArrayAllocating() {
+		return a.transform(xyz);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(N)
+	public float[] transformOffset() {
+		a.transform(xyz, 0, result, 0, N);
+		return result;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(N)
+	public float[] transformSoA() {
+		a.transform(x, y, z, rx, ry, rz, 0, N);
+		return rx;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(N)
+	public FloatBuffer transformBuffer() {
+		a.transform(xyz, 0, buffer, 3, N);
+		return buffer;
+	}
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2013 - 2014 Stefan Muller Arisona, Simon Schubiger, Samuel von Stachelski
+ * Copyright (c) 2013 - 2014 FHNW & ETH Zurich
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *  Neither the name of FHNW / ETH Zurich nor the names of its contributors may
+ *   be used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.fhnw.util.math.jmh;
+
+import java.nio.FloatBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Setup;
+
+import ch.fhnw.util.math.Mat3;
+import ch.fhnw.util.math.Mat4;
+import ch.fhnw.util.math.Quaternion;
+import ch.fhnw.util.math.Vec3;
+import ch.fhnw.util.math.Vec4;
+
+/**
+ * Public operations of {@link Mat4}. Bulk transforms are reported per vertex,
+ * once with an affine matrix and once with a projection (division by w).
+ */
+public class Mat4Benchmark extends MathBenchmarkBase {
+	Mat4 a, b, c, d, p;
+	Mat3 m3;
+	Quaternion q;
+	Vec3 v3, eye, target, up, axis;
+	Vec4 v4;
+	float[] array, xyz, result, x, y, z, rx, ry, rz;
+	FloatBuffer buffer;
+	float angle, s;
+
+	@Setup
+	public void setup() {
+		a = Mat4.multiply(Mat4.translate(1, 2, 3), Mat4.rotate(30, 1, 1, 0), Mat4.scale(2, 3, 4));
+		b = Mat4.multiply(Mat4.rotate(-20, 0, 1, 1), Mat4.translate(-3, 0, 5));
+		c = Mat4.rotate(45, 0, 0, 1);
+		d = Mat4.scale(0.5f, 0.5f, 0.5f);
+		p = Mat4.perspective(45, 4f / 3, 0.1f, 100);
+		m3 = new Mat3(a);
+		q = Quaternion.fromAxis(new Vec3(1, 2, 3).normalize(), 40);
+		v3 = new Vec3(0.3f, -0.7f, 1.1f);
+		v4 = new Vec4(0.3f, -0.7f, 1.1f, 1);
+		eye = new Vec3(3, 4, 10);
+		target = new Vec3(0, 0, 0);
+		up = new Vec3(0, 1, 0);
+		axis = new Vec3(1, 1, 0);
+		angle = 30;
+		s = 2;
+		array = a.toArray();
+		xyz = points(N, 1);
+		result = new float[3 * N];
+		x = new float[N];
+		y = new float[N];
+		z = new float[N];
+		for (int i = 0; i < N; i++) {
+			x[i] = xyz[3 * i];
+			y[i] = xyz[3 * i + 1];
+			z[i] = xyz[3 * i + 2];
+		}
+		rx = new float[N];
+		ry = new float[N];
+		rz = new float[N];
+		buffer = FloatBuffer.allocate(3 * N);
+	}
+
+	// construction
+
+	@Benchmark
+	public Mat4 fromArray() {
+		return new Mat4(array);
+	}
+
+	@Benchmark
+	public Mat4 fromMat3() {
+		return new Mat4(m3);
+	}
+
+	@Benchmark
+	public Mat4 fromQuaternion() {
+		return new Mat4(q);
+	}
+
+	@Benchmark
+	public Mat4 translate() {
+		return Mat4.translate(v3.x, v3.y, v3.z);
+	}
+
+	@Benchmark
+	public Mat4 translateVec3() {
+		return Mat4.translate(v3);
+	}
+
+	@Benchmark
+	public Mat4 rotate() {
+		return Mat4.rotate(angle, axis.x, axis.y, axis.z);
+	}
+
+	@Benchmark
+	public Mat4 rotateVec3() {
+		return Mat4.rotate(angle, axis);
+	}
+
+	@Benchmark
+	public Mat4 scale() {
+		return Mat4.scale(s, s, s);
+	}
+
+	@Benchmark
+	public Mat4 scaleVec3() {
+		return Mat4.scale(v3);
+	}
+
+	@Benchmark
+	public Mat4 lookAt() {
+		return Mat4.lookAt(eye, target, up);
+	}
+
+	@Benchmark
+	public Mat4 perspectiveFrustum() {
+		return Mat4.perspective(-s, s, -s, s, 0.1f, 100);
+	}
+
+	@Benchmark
+	public Mat4 perspectiveFov() {
+		return Mat4.perspective(angle, 4f / 3, 0.1f, 100);
+	}
+
+	@Benchmark
+	public Mat4 ortho() {
+		return Mat4.ortho(-s, s, -s, s, -100, 100);
+	}
+
+	// products
+
+	@Benchmark
+	public Mat4 multiply() {
+		return Mat4.multiply(a, b);
+	}
+
+	@Benchmark
+	public Mat4 multiply3() {
+		return Mat4.multiply(a, b, c);
+	}
+
+	@Benchmark
+	public Mat4 multiply4() {
+		return Mat4.multiply(a, b, c, d);
+	}
+
+	@Benchmark
+	public Mat4 multiplyVarargs() {
+		return Mat4.multiply(a, b, c, d, a);
+	}
+
+	@Benchmark
+	public Mat4 postMultiply() {
+		return a.postMultiply(b);
+	}
+
+	@Benchmark
+	public Mat4 preMultiply() {
+		return a.preMultiply(b);
+	}
+
+	// properties
+
+	@Benchmark
+	public Mat4 transpose() {
+		return a.transpose();
+	}
+
+	@Benchmark
+	public float determinant() {
+		return a.determinant();
+	}
+
+	@Benchmark
+	public Mat4 inverse() {
+		return a.inverse();
+	}
+
+	@Benchmark
+	public boolean isAffine() {
+		return p.isAffine();
+	}
+
+	@Benchmark
+	public float[] toArray() {
+		return a.toArray();
+	}
+
+	@Benchmark
+	public String toStringMat() {
+		return a.toString();
+	}
+
+	// single vectors
+
+	@Benchmark
+	public Vec4 transformVec4() {
+		return a.transform(v4);
+	}
+
+	@Benchmark
+	public Vec3 transformVec3() {
+		return a.transform(v3);
+	}
+
+	// bulk transforms, time per vertex
+
+	@Benchmark
+	@OperationsPerInvocation(N)
+	public float[] transformArray() {
+		return a.transform(xyz, result);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(N)
+	public float[] transformArrayProjective() {
+		return p.transform(xyz, result);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(N)
+	public float[] transformArrayAllocating() {
+		return a.transform(xyz);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(N)
+	public float[] transformOffset() {
+		a.transform(xyz, 0, result, 0, N);
+		return result;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(N)
+	public float[] transformSoA() {
+		a.transform(x, y, z, rx, ry, rz, 0, N);
+		return rx;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(N)
+	public FloatBuffer transformBuffer() {
+		a.transform(xyz, 0, buffer, 3, N);
+		return buffer;
+	}
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2013 - 2014 Stefan Muller Arisona, Simon Schubiger, Samuel von Stachelski
+ * Copyright (c) 2013 - 2014 FHNW & ETH Zurich
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *  Neither the name of FHNW / ETH Zurich nor the names of its contributors may
+ *   be used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.fhnw.util.math.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import ch.fhnw.util.Pair;
+import ch.fhnw.util.math.Mat4;
+import ch.fhnw.util.math.Quaternion;
+import ch.fhnw.util.math.Vec3;
+import ch.fhnw.util.math.Vec4;
+
+/**
+ * Public operations of {@link Quaternion}. Both slerp branches are measured:
+ * the spherical one (large angle) and the linear fallback (nearly equal
+ * quaternions).
+ */
+public class QuaternionBenchmark extends MathBenchmarkBase {
+	Quaternion a, b, near;
+	Object other;
+	Quaternion[] qs;
+	float[] weights;
+	Mat4 rotation;
+	Vec3 axis, vx, vy, vz, v;
+	double dx, dy, dz, dw;
+	float angle, alpha, ex, ey, ez;
+
+	@Setup
+	public void setup() {
+		axis = new Vec3(1, 2, 3).normalize();
+		a = Quaternion.fromAxis(axis, 40);
+		b = Quaternion.fromAxis(new Vec3(-1, 0, 2).normalize(), 120);
+		near = Quaternion.fromAxis(axis, 41);
+		other = Quaternion.fromAxis(axis, 40);
+		qs = new Quaternion[] { a, b, near, Quaternion.fromEulerAngles(0.1f, 0.2f, 0.3f) };
+		weights = new float[] { 0.4f, 0.3f, 0.2f, 0.1f };
+		rotation = Mat4.rotate(75, 1, -1, 2);
+		vx = new Vec3(0, 0, -1);
+		vy = new Vec3(0, 1, 0);
+		vz = new Vec3(1, 0, 0);
+		v = new Vec3(0.3f, -0.7f, 1.1f);
+		dx = 0.1;
+		dy = 0.2;
+		dz = 0.3;
+		dw = 0.9;
+		angle = 40;
+		alpha = 0.3f;
+		ex = 0.1f;
+		ey = 0.2f;
+		ez = 0.3f;
+	}
+
+	// construction
+
+	@Benchmark
+	public Quaternion fromDoubles() {
+		return new Quaternion(dx, dy, dz, dw);
+	}
+
+	@Benchmark
+	public Quaternion fromEulerAngles() {
+		return Quaternion.fromEulerAngles(ex, ey, ez);
+	}
+
+	@Benchmark
+	public Quaternion fromAxis() {
+		return Quaternion.fromAxis(axis, angle);
+	}
+
+	@Benchmark
+	public Quaternion fromAxes() {
+		return Quaternion.fromAxes(vx, vy, vz);
+	}
+
+	@Benchmark
+	public Quaternion fromAxesNormalize() {
+		return Quaternion.fromAxes(vx, vy, vz, true);
+	}
+
+	@Benchmark
+	public Quaternion fromCross() {
+		return Quaternion.fromCross(vx, v);
+	}
+
+	@Benchmark
+	public Quaternion fromMatrix() {
+		return Quaternion.fromMatrix(rotation);
+	}
+
+	@Benchmark
+	public Quaternion fromMatrixNormalize() {
+		return Quaternion.fromMatrix(rotation, true);
+	}
+
+	// algebra
+
+	@Benchmark
+	public Quaternion normalize() {
+		return a.normalize();
+	}
+
+	@Benchmark
+	public float length() {
+		return a.length();
+	}
+
+	@Benchmark
+	public float dot() {
+		return a.dot(b);
+	}
+
+	@Benchmark
+	public Quaternion conjugate() {
+		return a.conjugate();
+	}
+
+	@Benchmark
+	public Quaternion add() {
+		return a.add(b);
+	}
+
+	@Benchmark
+	public Quaternion postMultiply() {
+		return a.postMultiply(b);
+	}
+
+	@Benchmark
+	public Quaternion preMultiply() {
+		return a.preMultiply(b);
+	}
+
+	@Benchmark
+	public Quaternion exp() {
+		return a.exp(alpha);
+	}
+
+	@Benchmark
+	public Vec3 transform() {
+		return a.transform(v);
+	}
+
+	// interpolation
+
+	@Benchmark
+	public Quaternion slerp() {
+		return a.slerp(b, alpha);
+	}
+
+	@Benchmark
+	public Quaternion slerpNear() {
+		return a.slerp(near, alpha);
+	}
+
+	@Benchmark
+	public Quaternion slerpArray() {
+		return a.slerp(qs);
+	}
+
+	@Benchmark
+	public Quaternion slerpWeighted() {
+		return a.slerp(qs, weights);
+	}
+
+	// queries
+
+	@Benchmark
+	public boolean isIdentity() {
+		return a.isIdentity();
+	}
+
+	@Benchmark
+	public boolean isIdentityTolerance() {
+		return a.isIdentity(1e-3f);
+	}
+
+	@Benchmark
+	public float getXRotation() {
+		return a.getXRotation();
+	}
+
+	@Benchmark
+	public float getYRotation() {
+		return a.getYRotation();
+	}
+
+	@Benchmark
+	public float getZRotation() {
+		return a.getZRotation();
+	}
+
+	@Benchmark
+	public int getGimbalPole() {
+		return a.getGimbalPole();
+	}
+
+	@Benchmark
+	public float getAngle() {
+		return a.getAngle();
+	}
+
+	@Benchmark
+	public Vec4 getAxisAngle() {
+		return a.getAxisAngle();
+	}
+
+	@Benchmark
+	public float getAngleAround() {
+		return a.getAngleAround(axis);
+	}
+
+	@Benchmark
+	public Pair<Quaternion, Quaternion> getSwingTwist() {
+		return a.getSwingTwist(axis);
+	}
+
+	@Benchmark
+	public boolean equalsQuaternion() {
+		return a.equals(other);
+	}
+
+	@Benchmark
+	public String toStringQuaternion() {
+		return a.toString();
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2013 - 2014 Stefan Muller Arisona, Simon Schubiger, Samuel von Stachelski
+ * Copyright (c) 2013 - 2014 FHNW & ETH Zurich
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *  Neither the name of FHNW / ETH Zurich nor the names of its contributors may
+ *   be used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.fhnw.util.math.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Setup;
+
+import ch.fhnw.util.math.Vec2;
+
+/**
+ * Public operations of {@link Vec2}. Field accessors are not measured.
+ */
+public class Vec2Benchmark extends MathBenchmarkBase {
+	Vec2 a, b;
+	Object other;
+	List<Vec2> list;
+	double dx, dy, dz, dw;
+	float s;
+
+	@Setup
+	public void setup() {
+		a = new Vec2(0.3f, -0.7f);
+		b = new Vec2(-1.2f, 0.4f);
+		other = new Vec2(0.3f, -0.7f);
+		list = new ArrayList<>();
+		float[] p = points(N, 3);
+		for (int i = 0; i < N; i++)
+			list.add(new Vec2(p[3 * i + 0], p[3 * i + 1]));
+		dx = 0.3;
+		dy = -0.7;
+		dz = 1.1;
+		dw = 0.5;
+		s = 2;
+	}
+
+	@Benchmark
+	public Vec2 fromDoubles() {
+		return new Vec2(dx, dy);
+	}
+
+	@Benchmark
+	public float length() {
+		return a.length();
+	}
+
+	@Benchmark
+	public float distance() {
+		return a.distance(b);
+	}
+
+	@Benchmark
+	public Vec2 add() {
+		return a.add(b);
+	}
+
+	@Benchmark
+	public Vec2 subtract() {
+		return a.subtract(b);
+	}
+
+	@Benchmark
+	public Vec2 scale() {
+		return a.scale(s);
+	}
+
+	@Benchmark
+	public Vec2 negate() {
+		return a.negate();
+	}
+
+	@Benchmark
+	public Vec2 normalize() {
+		return a.normalize();
+	}
+
+	@Benchmark
+	public float dot() {
+		return a.dot(b);
+	}
+
+	@Benchmark
+	public boolean equalsVec() {
+		return a.equals(other);
+	}
+
+	@Benchmark
+	public float[] toArray() {
+		return a.toArray();
+	}
+
+	@Benchmark
+	public String toStringVec() {
+		return a.toString();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(N)
+	public float[] toArrayList() {
+		return Vec2.toArray(list);
+	}
+}
@@ -29,6 +29,8 @@
 
 package ch.fhnw.util.math;
 
+import java.nio.FloatBuffer;
+
 import ch.fhnw.util.IFloatArrayCopyProvider;
 
 /**
@@ -134,17 +136,76 @@ public final class Mat3 implements IFloatArrayCopyProvider {
 			return null;
 		if (result == null)
 			result = new float[xyz.length];
-		for (int i = 0; i < xyz.length; i += 3) {
-			float x = m00 * xyz[i] + m01 * xyz[i + 1] + m02 * xyz[i + 2];
-			float y = m10 * xyz[i] + m11 * xyz[i + 1] + m12 * xyz[i + 2];
-			float z = m20 * xyz[i] + m21 * xyz[i + 1] + m22 * xyz[i + 2];
-			result[i] = x;
-			result[i + 1] = y;
-			result[i + 2] = z;
-		}
+		transform(xyz, 0, result, 0, xyz.length / 3);
 		return result;
 	}
 
+	/**
+	 * Transform count packed xyz vectors. Source and destination may be the same array.
+	 *
+	 * @param xyz
+	 *            the input array of vectors to be transformed
+	 * @param srcOffset
+	 *            index of the first x in xyz
+	 * @param result
+	 *            the array where to store the transformed vectors
+	 * @param dstOffset
+	 *            index of the first x in result
+	 * @param count
+	 *            number of vectors
+	 */
+	public void transform(float[] xyz, int srcOffset, float[] result, int dstOffset, int count) {
+		final float a00 = m00, a01 = m01, a02 = m02;
+		final float a10 = m10, a11 = m11, a12 = m12;
+		final float a20 = m20, a21 = m21, a22 = m22;
+		final int end = srcOffset + 3 * count;
+		for (int i = srcOffset, j = dstOffset; i < end; i += 3, j += 3) {
+			float x = xyz[i], y = xyz[i + 1], z = xyz[i + 2];
+			result[j] = a00 * x + a01 * y + a02 * z;
+			result[j + 1] = a10 * x + a11 * y + a12 * z;
+			result[j + 2] = a20 * x + a21 * y + a22 * z;
+		}
+	}
+
+	/**
+	 * Transform count vectors stored as separate x, y, z arrays (structure of arrays). The loop has unit stride and no
+	 * dependencies between iterations, so the JIT can vectorize it. Source and destination arrays may be the same.
+	 *
+	 * @param offset
+	 *            index of the first vector in all six arrays
+	 * @param count
+	 *            number of vectors
+	 */
+	public void transform(float[] x, float[] y, float[] z, float[] rx, float[] ry, float[] rz, int offset, int count) {
+		final float a00 = m00, a01 = m01, a02 = m02;
+		final float a10 = m10, a11 = m11, a12 = m12;
+		final float a20 = m20, a21 = m21, a22 = m22;
+		final int end = offset + count;
+		for (int i = offset; i < end; i++) {
+			float xi = x[i], yi = y[i], zi = z[i];
+			rx[i] = a00 * xi + a01 * yi + a02 * zi;
+			ry[i] = a10 * xi + a11 * yi + a12 * zi;
+			rz[i] = a20 * xi + a21 * yi + a22 * zi;
+		}
+	}
+
+	/**
+	 * Transform count packed xyz vectors and write them into a float buffer, starting at its current position, without
+	 * changing the position. Consecutive results are stride floats apart (3 for packed).
+	 */
+	public void transform(float[] xyz, int srcOffset, FloatBuffer dst, int stride, int count) {
+		final float a00 = m00, a01 = m01, a02 = m02;
+		final float a10 = m10, a11 = m11, a12 = m12;
+		final float a20 = m20, a21 = m21, a22 = m22;
+		final int end = srcOffset + 3 * count;
+		for (int i = srcOffset, j = dst.position(); i < end; i += 3, j += stride) {
+			float x = xyz[i], y = xyz[i + 1], z = xyz[i + 2];
+			dst.put(j, a00 * x + a01 * y + a02 * z);
+			dst.put(j + 1, a10 * x + a11 * y + a12 * z);
+			dst.put(j + 2, a20 * x + a21 * y + a22 * z);
+		}
+	}
+
 	/**
 	 * Transform a float array of xyz vectors.
 	 *
@@ -29,6 +29,8 @@
 
 package ch.fhnw.util.math;
 
+import java.nio.FloatBuffer;
+
 import ch.fhnw.util.IFloatArrayCopyProvider;
 
 /**
@@ -197,18 +199,122 @@ public final class Mat4 implements IFloatArrayCopyProvider {
 			return null;
 		if (result == null)
 			result = new float[xyz.length];
-		for (int i = 0; i < xyz.length; i += 3) {
-			float x = m00 * xyz[i] + m01 * xyz[i + 1] + m02 * xyz[i + 2] + m03;
-			float y = m10 * xyz[i] + m11 * xyz[i + 1] + m12 * xyz[i + 2] + m13;
-			float z = m20 * xyz[i] + m21 * xyz[i + 1] + m22 * xyz[i + 2] + m23;
-			float w = m30 * xyz[i] + m31 * xyz[i + 1] + m32 * xyz[i + 2] + m33;
-			result[i] = x / w;
-			result[i + 1] = y / w;
-			result[i + 2] = z / w;
-		}
+		transform(xyz, 0, result, 0, xyz.length / 3);
 		return result;
 	}
 
+	/**
+	 * Transform count packed xyz vectors and divide by w. Source and destination may be the same array. Affine matrices
+	 * (last row 0, 0, 0, 1) skip the fourth row and the division.
+	 *
+	 * @param xyz
+	 *            the input array of vectors to be transformed
+	 * @param srcOffset
+	 *            index of the first x in xyz
+	 * @param result
+	 *            the array where to store the transformed vectors
+	 * @param dstOffset
+	 *            index of the first x in result
+	 * @param count
+	 *            number of vectors
+	 */
+	public void transform(float[] xyz, int srcOffset, float[] result, int dstOffset, int count) {
+		final float a00 = m00, a01 = m01, a02 = m02, a03 = m03;
+		final float a10 = m10, a11 = m11, a12 = m12, a13 = m13;
+		final float a20 = m20, a21 = m21, a22 = m22, a23 = m23;
+		final int end = srcOffset + 3 * count;
+		if (isAffine()) {
+			for (int i = srcOffset, j = dstOffset; i < end; i += 3, j += 3) {
+				float x = xyz[i], y = xyz[i + 1], z = xyz[i + 2];
+				result[j] = a00 * x + a01 * y + a02 * z + a03;
+				result[j + 1] = a10 * x + a11 * y + a12 * z + a13;
+				result[j + 2] = a20 * x + a21 * y + a22 * z + a23;
+			}
+		} else {
+			final float a30 = m30, a31 = m31, a32 = m32, a33 = m33;
+			for (int i = srcOffset, j = dstOffset; i < end; i += 3, j += 3) {
+				float x = xyz[i], y = xyz[i + 1], z = xyz[i + 2];
+				float w = a30 * x + a31 * y + a32 * z + a33;
+				result[j] = (a00 * x + a01 * y + a02 * z + a03) / w;
+				result[j + 1] = (a10 * x + a11 * y + a12 * z + a13) / w;
+				result[j + 2] = (a20 * x + a21 * y + a22 * z + a23) / w;
+			}
+		}
+	}
+
+	/**
+	 * Transform count vectors stored as separate x, y, z arrays (structure of arrays) and divide by w. For affine
+	 * matrices each result component is computed in its own unit stride loop, which the JIT vectorizes; the result
+	 * arrays must therefore not be any of the input arrays.
+	 *
+	 * @param offset
+	 *            index of the first vector in all six arrays
+	 * @param count
+	 *            number of vectors
+	 */
+	public void transform(float[] x, float[] y, float[] z, float[] rx, float[] ry, float[] rz, int offset, int count) {
+		final float a00 = m00, a01 = m01, a02 = m02, a03 = m03;
+		final float a10 = m10, a11 = m11, a12 = m12, a13 = m13;
+		final float a20 = m20, a21 = m21, a22 = m22, a23 = m23;
+		final int end = offset + count;
+		if (isAffine()) {
+			for (int i = offset; i < end; i++)
+				rx[i] = a00 * x[i] + a01 * y[i] + a02 * z[i] + a03;
+			for (int i = offset; i < end; i++)
+				ry[i] = a10 * x[i] + a11 * y[i] + a12 * z[i] + a13;
+			for (int i = offset; i < end; i++)
+				rz[i] = a20 * x[i] + a21 * y[i] + a22 * z[i] + a23;
+		} else {
+			final float a30 = m30, a31 = m31, a32 = m32, a33 = m33;
+			for (int i = offset; i < end; i++) {
+				float xi = x[i], yi = y[i], zi = z[i];
+				float w = a30 * xi + a31 * yi + a32 * zi + a33;
+				rx[i] = (a00 * xi + a01 * yi + a02 * zi + a03) / w;
+				ry[i] = (a10 * xi + a11 * yi + a12 * zi + a13) / w;
+				rz[i] = (a20 * xi + a21 * yi + a22 * zi + a23) / w;
+			}
+		}
+	}
+
+	/**
+	 * Transform count packed xyz vectors and write them into a float buffer, starting at its current position, without
+	 * changing the position. Consecutive results are stride floats apart, so they can go directly into an interleaved
+	 * vertex buffer.
+	 *
+	 * @param xyz
+	 *            the input array of vectors to be transformed
+	 * @param srcOffset
+	 *            index of the first x in xyz
+	 * @param dst
+	 *            the target buffer (e.g. a direct buffer for OpenGL)
+	 * @param stride
+	 *            distance in floats between two vectors in dst (3 for packed)
+	 * @param count
+	 *            number of vectors
+	 */
+	public void transform(float[] xyz, int srcOffset, FloatBuffer dst, int stride, int count) {
+		final float a00 = m00, a01 = m01, a02 = m02, a03 = m03;
+		final float a10 = m10, a11 = m11, a12 = m12, a13 = m13;
+		final float a20 = m20, a21 = m21, a22 = m22, a23 = m23;
+		final float a30 = m30, a31 = m31, a32 = m32, a33 = m33;
+		final boolean affine = isAffine();
+		final int end = srcOffset + 3 * count;
+		for (int i = srcOffset, j = dst.position(); i < end; i += 3, j += stride) {
+			float x = xyz[i], y = xyz[i + 1], z = xyz[i + 2];
+			float w = affine ? 1 : a30 * x + a31 * y + a32 * z + a33;
+			dst.put(j, (a00 * x + a01 * y + a02 * z + a03) / w);
+			dst.put(j + 1, (a10 * x + a11 * y + a12 * z + a13) / w);
+			dst.put(j + 2, (a20 * x + a21 * y + a22 * z + a23) / w);
+		}
+	}
+
+	/**
+	 * Returns true if the last row is (0, 0, 0, 1), i.e. transformed points need no division by w.
+	 */
+	public boolean isAffine() {
+		return m30 == 0 && m31 == 0 && m32 == 0 && m33 == 1;
+	}
+
 	/**
 	 * Transform a float array of xyz vectors and divide by w.
 	 *
@@ -31,6 +31,7 @@ package ch.fhnw.util.math;
 
 public final class MathUtil {
 	static public final float FLOAT_ROUNDING_ERROR = 0.000001f; // 32 bits
+	static public final double DOUBLE_ROUNDING_ERROR = 0.000000000001; // 64 bits
 	static public final float PI = (float) Math.PI;
 	static public final float RADIANS_TO_DEGREES = 180f / PI;
 	static public final float DEGREES_TO_RADIANS = PI / 180;
@@ -154,6 +155,48 @@ public final class MathUtil {
 		return ax * bx + ay * by + az * bz + aw * bw;
 	}
 
+	/** Returns true if the value is zero (using the default double tolerance as upper bound) */
+	static public boolean isZero(double value) {
+		return Math.abs(value) <= DOUBLE_ROUNDING_ERROR;
+	}
+
+	static public boolean isZero(double value, double tolerance) {
+		return Math.abs(value) <= tolerance;
+	}
+
+	/** Returns true if a is nearly equal to b (using the default double tolerance). */
+	static public boolean isEqual(double a, double b) {
+		return Math.abs(a - b) <= DOUBLE_ROUNDING_ERROR;
+	}
+
+	static public boolean isEqual(double a, double b, double tolerance) {
+		return Math.abs(a - b) <= tolerance;
+	}
+
+	public static double length(double x, double y) {
+		return Math.sqrt(x * x + y * y);
+	}
+
+	public static double length(double x, double y, double z) {
+		return Math.sqrt(x * x + y * y + z * z);
+	}
+
+	public static double length(double x, double y, double z, double w) {
+		return Math.sqrt(x * x + y * y + z * z + w * w);
+	}
+
+	public static double dot(double ax, double ay, double bx, double by) {
+		return ax * bx + ay * by;
+	}
+
+	public static double dot(double ax, double ay, double az, double bx, double by, double bz) {
+		return ax * bx + ay * by + az * bz;
+	}
+
+	public static double dot(double ax, double ay, double az, double aw, double bx, double by, double bz, double bw) {
+		return ax * bx + ay * by + az * bz + aw * bw;
+	}
+
 	/**
 	 * Checks if a number is a power of two.
 	 * @param n the number to be evaluated
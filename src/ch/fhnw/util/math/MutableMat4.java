@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2013 - 2014 Stefan Muller Arisona, Simon Schubiger, Samuel von Stachelski
+ * Copyright (c) 2013 - 2014 FHNW & ETH Zurich
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *  Neither the name of FHNW / ETH Zurich nor the names of its contributors may
+ *   be used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.fhnw.util.math;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Mutable 4x4 matrix (column major) for allocation-free inner loops. All
+ * operations modify this instance in place. Use {@link Mat4} for values that
+ * are shared or stored.
+ *
+ * @see Mat4
+ */
+public final class MutableMat4 {
+	public float m00, m10, m20, m30;
+	public float m01, m11, m21, m31;
+	public float m02, m12, m22, m32;
+	public float m03, m13, m23, m33;
+
+	/**
+	 * Create identity matrix.
+	 */
+	public MutableMat4() {
+		setIdentity();
+	}
+
+	public MutableMat4(Mat4 m) {
+		set(m);
+	}
+
+	public MutableMat4 set(float m00, float m10, float m20, float m30, float m01, float m11, float m21, float m31, float m02, float m12, float m22,
+			float m32, float m03, float m13, float m23, float m33) {
+		this.m00 = m00;
+		this.m10 = m10;
+		this.m20 = m20;
+		this.m30 = m30;
+		this.m01 = m01;
+		this.m11 = m11;
+		this.m21 = m21;
+		this.m31 = m31;
+		this.m02 = m02;
+		this.m12 = m12;
+		this.m22 = m22;
+		this.m32 = m32;
+		this.m03 = m03;
+		this.m13 = m13;
+		this.m23 = m23;
+		this.m33 = m33;
+		return this;
+	}
+
+	public MutableMat4 set(Mat4 m) {
+		return set(m.m00, m.m10, m.m20, m.m30, m.m01, m.m11, m.m21, m.m31, m.m02, m.m12, m.m22, m.m32, m.m03, m.m13, m.m23, m.m33);
+	}
+
+	public MutableMat4 set(MutableMat4 m) {
+		return set(m.m00, m.m10, m.m20, m.m30, m.m01, m.m11, m.m21, m.m31, m.m02, m.m12, m.m22, m.m32, m.m03, m.m13, m.m23, m.m33);
+	}
+
+	public MutableMat4 setIdentity() {
+		return set(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Set to translation matrix.
+	 */
+	public MutableMat4 setTranslate(float tx, float ty, float tz) {
+		return set(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, tx, ty, tz, 1);
+	}
+
+	/**
+	 * Set to scale matrix.
+	 */
+	public MutableMat4 setScale(float sx, float sy, float sz) {
+		return set(sx, 0, 0, 0, 0, sy, 0, 0, 0, 0, sz, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Set to rotation matrix, same as {@link Mat4#rotate(float, float, float, float)}.
+	 *
+	 * @param angle
+	 *            rotation angle in degrees
+	 */
+	public MutableMat4 setRotate(float angle, float x, float y, float z) {
+		float l = (float) Math.sqrt(x * x + y * y + z * z);
+		if (l != 0 && l != 1) {
+			l = 1.0f / l;
+			x *= l;
+			y *= l;
+			z *= l;
+		}
+
+		float radians = angle * MathUtil.DEGREES_TO_RADIANS;
+		float c = (float) Math.cos(radians);
+		float ic = 1.0f - c;
+		float s = (float) Math.sin(radians);
+
+		float xy = x * y;
+		float xz = x * z;
+		float xs = x * s;
+		float ys = y * s;
+		float yz = y * z;
+		float zs = z * s;
+
+		return set(x * x * ic + c, xy * ic + zs, xz * ic - ys, 0, xy * ic - zs, y * y * ic + c, yz * ic + xs, 0, xz * ic + ys, yz * ic - xs,
+				z * z * ic + c, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Set to rotation matrix of unit quaternion q (x, y, z, w).
+	 */
+	public MutableMat4 setRotate(MutableQuaternion q) {
+		float x = q.x, y = q.y, z = q.z, w = q.w;
+		return set(1 - 2 * (y * y + z * z), 2 * (x * y + z * w), 2 * (x * z - y * w), 0, 2 * (x * y - z * w), 1 - 2 * (x * x + z * z),
+				2 * (y * z + x * w), 0, 2 * (x * z + y * w), 2 * (y * z - x * w), 1 - 2 * (x * x + y * y), 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * this = a * b. this may be a or b.
+	 */
+	public MutableMat4 mul(MutableMat4 a, MutableMat4 b) {
+		float m00 = a.m00 * b.m00 + a.m01 * b.m10 + a.m02 * b.m20 + a.m03 * b.m30;
+		float m10 = a.m10 * b.m00 + a.m11 * b.m10 + a.m12 * b.m20 + a.m13 * b.m30;
+		float m20 = a.m20 * b.m00 + a.m21 * b.m10 + a.m22 * b.m20 + a.m23 * b.m30;
+		float m30 = a.m30 * b.m00 + a.m31 * b.m10 + a.m32 * b.m20 + a.m33 * b.m30;
+
+		float m01 = a.m00 * b.m01 + a.m01 * b.m11 + a.m02 * b.m21 + a.m03 * b.m31;
+		float m11 = a.m10 * b.m01 + a.m11 * b.m11 + a.m12 * b.m21 + a.m13 * b.m31;
+		float m21 = a.m20 * b.m01 + a.m21 * b.m11 + a.m22 * b.m21 + a.m23 * b.m31;
+		float m31 = a.m30 * b.m01 + a.m31 * b.m11 + a.m32 * b.m21 + a.m33 * b.m31;
+
+		float m02 = a.m00 * b.m02 + a.m01 * b.m12 + a.m02 * b.m22 + a.m03 * b.m32;
+		float m12 = a.m10 * b.m02 + a.m11 * b.m12 + a.m12 * b.m22 + a.m13 * b.m32;
+		float m22 = a.m20 * b.m02 + a.m21 * b.m12 + a.m22 * b.m22 + a.m23 * b.m32;
+		float m32 = a.m30 * b.m02 + a.m31 * b.m12 + a.m32 * b.m22 + a.m33 * b.m32;
+
+		float m03 = a.m00 * b.m03 + a.m01 * b.m13 + a.m02 * b.m23 + a.m03 * b.m33;
+		float m13 = a.m10 * b.m03 + a.m11 * b.m13 + a.m12 * b.m23 + a.m13 * b.m33;
+		float m23 = a.m20 * b.m03 + a.m21 * b.m13 + a.m22 * b.m23 + a.m23 * b.m33;
+		float m33 = a.m30 * b.m03 + a.m31 * b.m13 + a.m32 * b.m23 + a.m33 * b.m33;
+
+		return set(m00, m10, m20, m30, m01, m11, m21, m31, m02, m12, m22, m32, m03, m13, m23, m33);
+	}
+
+	/**
+	 * Post-multiply in place (this = this * b).
+	 */
+	public MutableMat4 mul(MutableMat4 b) {
+		return mul(this, b);
+	}
+
+	/**
+	 * Pre-multiply in place (this = a * this).
+	 */
+	public MutableMat4 preMul(MutableMat4 a) {
+		return mul(a, this);
+	}
+
+	/**
+	 * Post-multiply with a translation (this = this * T(tx, ty, tz)).
+	 */
+	public MutableMat4 translate(float tx, float ty, float tz) {
+		m03 += m00 * tx + m01 * ty + m02 * tz;
+		m13 += m10 * tx + m11 * ty + m12 * tz;
+		m23 += m20 * tx + m21 * ty + m22 * tz;
+		m33 += m30 * tx + m31 * ty + m32 * tz;
+		return this;
+	}
+
+	/**
+	 * Post-multiply with a scale (this = this * S(sx, sy, sz)).
+	 */
+	public MutableMat4 scale(float sx, float sy, float sz) {
+		m00 *= sx;
+		m10 *= sx;
+		m20 *= sx;
+		m30 *= sx;
+		m01 *= sy;
+		m11 *= sy;
+		m21 *= sy;
+		m31 *= sy;
+		m02 *= sz;
+		m12 *= sz;
+		m22 *= sz;
+		m32 *= sz;
+		return this;
+	}
+
+	/**
+	 * Transform v in place and divide by w (v = this * v).
+	 */
+	public MutableVec3 transformInPlace(MutableVec3 v) {
+		float x = m00 * v.x + m01 * v.y + m02 * v.z + m03;
+		float y = m10 * v.x + m11 * v.y + m12 * v.z + m13;
+		float z = m20 * v.x + m21 * v.y + m22 * v.z + m23;
+		float w = m30 * v.x + m31 * v.y + m32 * v.z + m33;
+		return v.set(x / w, y / w, z / w);
+	}
+
+	/**
+	 * Transform direction v in place (upper 3x3 part only, no translation).
+	 */
+	public MutableVec3 transformDirection(MutableVec3 v) {
+		float x = m00 * v.x + m01 * v.y + m02 * v.z;
+		float y = m10 * v.x + m11 * v.y + m12 * v.z;
+		float z = m20 * v.x + m21 * v.y + m22 * v.z;
+		return v.set(x, y, z);
+	}
+
+	/**
+	 * Transform a float array of xyz vectors and divide by w. result may be xyz.
+	 */
+	public float[] transform(float[] xyz, float[] result) {
+		if (result == null)
+			result = new float[xyz.length];
+		for (int i = 0; i < xyz.length; i += 3) {
+			float x = m00 * xyz[i] + m01 * xyz[i + 1] + m02 * xyz[i + 2] + m03;
+			float y = m10 * xyz[i] + m11 * xyz[i + 1] + m12 * xyz[i + 2] + m13;
+			float z = m20 * xyz[i] + m21 * xyz[i + 1] + m22 * xyz[i + 2] + m23;
+			float w = m30 * xyz[i] + m31 * xyz[i + 1] + m32 * xyz[i + 2] + m33;
+			result[i] = x / w;
+			result[i + 1] = y / w;
+			result[i + 2] = z / w;
+		}
+		return result;
+	}
+
+	public Mat4 toMat4() {
+		return new Mat4(m00, m10, m20, m30, m01, m11, m21, m31, m02, m12, m22, m32, m03, m13, m23, m33);
+	}
+
+	/**
+	 * Copy the 16 values in column-major order into dst starting at offset (e.g. for glUniformMatrix4fv).
+	 */
+	public float[] toArray(float[] dst, int offset) {
+		if (dst == null)
+			dst = new float[offset + 16];
+		dst[offset] = m00;
+		dst[offset + 1] = m10;
+		dst[offset + 2] = m20;
+		dst[offset + 3] = m30;
+		dst[offset + 4] = m01;
+		dst[offset + 5] = m11;
+		dst[offset + 6] = m21;
+		dst[offset + 7] = m31;
+		dst[offset + 8] = m02;
+		dst[offset + 9] = m12;
+		dst[offset + 10] = m22;
+		dst[offset + 11] = m32;
+		dst[offset + 12] = m03;
+		dst[offset + 13] = m13;
+		dst[offset + 14] = m23;
+		dst[offset + 15] = m33;
+		return dst;
+	}
+
+	/**
+	 * Put the 16 values in column-major order at the current buffer position.
+	 */
+	public void toBuffer(FloatBuffer dst) {
+		dst.put(m00).put(m10).put(m20).put(m30);
+		dst.put(m01).put(m11).put(m21).put(m31);
+		dst.put(m02).put(m12).put(m22).put(m32);
+		dst.put(m03).put(m13).put(m23).put(m33);
+	}
+
+	@Override
+	public String toString() {
+		return toMat4().toString();
+	}
+}
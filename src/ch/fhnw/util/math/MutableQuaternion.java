@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2013 - 2014 Stefan Muller Arisona, Simon Schubiger, Samuel von Stachelski
+ * Copyright (c) 2013 - 2014 FHNW & ETH Zurich
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *  Neither the name of FHNW / ETH Zurich nor the names of its contributors may
+ *   be used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.fhnw.util.math;
+
+/**
+ * Mutable quaternion (x, y, z, w) for allocation-free inner loops. All
+ * operations modify this instance in place. Use {@link Quaternion} for values
+ * that are shared or stored.
+ *
+ * @see Quaternion
+ */
+public final class MutableQuaternion {
+	public float x;
+	public float y;
+	public float z;
+	public float w = 1;
+
+	/**
+	 * Create identity quaternion.
+	 */
+	public MutableQuaternion() {
+	}
+
+	public MutableQuaternion(float x, float y, float z, float w) {
+		set(x, y, z, w);
+	}
+
+	public MutableQuaternion(Quaternion q) {
+		set(q);
+	}
+
+	public MutableQuaternion set(float x, float y, float z, float w) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.w = w;
+		return this;
+	}
+
+	public MutableQuaternion set(Quaternion q) {
+		return set(q.x, q.y, q.z, q.w);
+	}
+
+	public MutableQuaternion set(MutableQuaternion q) {
+		return set(q.x, q.y, q.z, q.w);
+	}
+
+	public MutableQuaternion setIdentity() {
+		return set(0, 0, 0, 1);
+	}
+
+	/**
+	 * Set to rotation around axis, same as {@link Quaternion#fromAxis(Vec3, float)}.
+	 *
+	 * @param angle
+	 *            the angle in degrees
+	 */
+	public MutableQuaternion setAxis(float ax, float ay, float az, float angle) {
+		float d = MathUtil.length(ax, ay, az);
+		if (d == 0f)
+			return setIdentity();
+		d = 1f / d;
+		float half = 0.5f * angle * MathUtil.DEGREES_TO_RADIANS;
+		float sin = (float) Math.sin(half);
+		return set(d * ax * sin, d * ay * sin, d * az * sin, (float) Math.cos(half)).normalize();
+	}
+
+	public float length() {
+		return MathUtil.length(x, y, z, w);
+	}
+
+	public MutableQuaternion normalize() {
+		float l = length();
+		if (MathUtil.isZero(l) || l == 1)
+			return this;
+		return set(x / l, y / l, z / l, w / l);
+	}
+
+	public MutableQuaternion conjugate() {
+		return set(-x, -y, -z, w);
+	}
+
+	/**
+	 * this = a * b. this may be a or b.
+	 */
+	public MutableQuaternion mul(MutableQuaternion a, MutableQuaternion b) {
+		return set(a.w * b.x + a.x * b.w + a.y * b.z - a.z * b.y,
+				a.w * b.y + a.y * b.w + a.z * b.x - a.x * b.z,
+				a.w * b.z + a.z * b.w + a.x * b.y - a.y * b.x,
+				a.w * b.w - a.x * b.x - a.y * b.y - a.z * b.z);
+	}
+
+	/**
+	 * Post-multiply in place (this = this * q).
+	 */
+	public MutableQuaternion mul(MutableQuaternion q) {
+		return mul(this, q);
+	}
+
+	/**
+	 * Pre-multiply in place (this = q * this).
+	 */
+	public MutableQuaternion preMul(MutableQuaternion q) {
+		return mul(q, this);
+	}
+
+	/**
+	 * Rotate v in place (v = this * v * conjugate(this)), this must be a unit quaternion.
+	 */
+	public MutableVec3 transformInPlace(MutableVec3 v) {
+		// t = 2 * (q.xyz x v), v' = v + w * t + q.xyz x t
+		float tx = 2 * (y * v.z - z * v.y);
+		float ty = 2 * (z * v.x - x * v.z);
+		float tz = 2 * (x * v.y - y * v.x);
+		return v.set(v.x + w * tx + y * tz - z * ty, v.y + w * ty + z * tx - x * tz, v.z + w * tz + x * ty - y * tx);
+	}
+
+	public Quaternion toQuaternion() {
+		return new Quaternion(x, y, z, w);
+	}
+
+	@Override
+	public String toString() {
+		return "Q" + "[" + x + ", " + y + ", " + z + ", " + w + "]";
+	}
+}
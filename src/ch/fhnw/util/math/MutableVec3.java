@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2013 - 2014 Stefan Muller Arisona, Simon Schubiger, Samuel von Stachelski
+ * Copyright (c) 2013 - 2014 FHNW & ETH Zurich
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *  Neither the name of FHNW / ETH Zurich nor the names of its contributors may
+ *   be used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.fhnw.util.math;
+
+/**
+ * Mutable 3D vector for allocation-free inner loops. All operations modify and
+ * return this instance, so calls can be chained without creating garbage. Use
+ * {@link Vec3} for values that are shared or stored.
+ *
+ * @see Vec3
+ */
+public final class MutableVec3 implements IVec3 {
+	public float x;
+	public float y;
+	public float z;
+
+	public MutableVec3() {
+	}
+
+	public MutableVec3(float x, float y, float z) {
+		set(x, y, z);
+	}
+
+	public MutableVec3(Vec3 v) {
+		set(v);
+	}
+
+	@Override
+	public float x() {
+		return x;
+	}
+
+	@Override
+	public float y() {
+		return y;
+	}
+
+	@Override
+	public float z() {
+		return z;
+	}
+
+	public MutableVec3 set(float x, float y, float z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+
+	public MutableVec3 set(double x, double y, double z) {
+		return set((float) x, (float) y, (float) z);
+	}
+
+	public MutableVec3 set(Vec3 v) {
+		return set(v.x, v.y, v.z);
+	}
+
+	public MutableVec3 set(MutableVec3 v) {
+		return set(v.x, v.y, v.z);
+	}
+
+	public float length() {
+		return MathUtil.length(x, y, z);
+	}
+
+	public float distance(MutableVec3 v) {
+		return MathUtil.length(v.x - x, v.y - y, v.z - z);
+	}
+
+	public MutableVec3 add(MutableVec3 v) {
+		return set(x + v.x, y + v.y, z + v.z);
+	}
+
+	public MutableVec3 subtract(MutableVec3 v) {
+		return set(x - v.x, y - v.y, z - v.z);
+	}
+
+	public MutableVec3 scale(float s) {
+		return set(x * s, y * s, z * s);
+	}
+
+	/**
+	 * this = this + v * s
+	 */
+	public MutableVec3 addScaled(MutableVec3 v, float s) {
+		return set(x + v.x * s, y + v.y * s, z + v.z * s);
+	}
+
+	public MutableVec3 negate() {
+		return set(-x, -y, -z);
+	}
+
+	public MutableVec3 normalize() {
+		float l = length();
+		if (MathUtil.isZero(l) || l == 1)
+			return this;
+		return set(x / l, y / l, z / l);
+	}
+
+	public float dot(MutableVec3 a) {
+		return MathUtil.dot(x, y, z, a.x, a.y, a.z);
+	}
+
+	/**
+	 * this = this x a
+	 */
+	public MutableVec3 cross(MutableVec3 a) {
+		return set(y * a.z - z * a.y, z * a.x - x * a.z, x * a.y - y * a.x);
+	}
+
+	/**
+	 * this = a x b (this may be a or b)
+	 */
+	public MutableVec3 cross(MutableVec3 a, MutableVec3 b) {
+		return set(a.y * b.z - a.z * b.y, a.z * b.x - a.x * b.z, a.x * b.y - a.y * b.x);
+	}
+
+	@Override
+	public Vec3 toVec3() {
+		return new Vec3(x, y, z);
+	}
+
+	@Override
+	public float[] toArray() {
+		return new float[] { x, y, z };
+	}
+
+	/**
+	 * Copy x, y, z into dst starting at offset.
+	 */
+	public void toArray(float[] dst, int offset) {
+		dst[offset] = x;
+		dst[offset + 1] = y;
+		dst[offset + 2] = z;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[% .2f,% .2f,% .2f]", x, y, z);
+	}
+}
@@ -0,0 +1,535 @@
+/*
+ * Copyright (c) 2013 - 2014 Stefan Muller Arisona, Simon Schubiger, Samuel von Stachelski
+ * Copyright (c) 2013 - 2014 FHNW & ETH Zurich
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *  Neither the name of FHNW / ETH Zurich nor the names of its contributors may
+ *   be used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Largely taken from libgdx with some adaptations.
+ * http://libgdx.badlogicgames.com
+ */
+package ch.fhnw.util.math;
+
+import ch.fhnw.util.Pair;
+
+/**
+ * Double precision quaternion with the same API as {@link Quaternion}.
+ * Instances are immutable.
+ *
+ * @see Quaternion
+ */
+public final class Quaterniond {
+  public static final Quaterniond ID = new Quaterniond(0, 0, 0, 1);
+
+  public final double x;
+  public final double y;
+  public final double z;
+  public final double w;
+
+  public Quaterniond(double x, double y, double z, double w) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    this.w = w;
+  }
+
+  /**
+   * Creates quaternion from given euler angles in degrees.
+   *
+   * @param xRotation
+   *            the rotation around the x axis in degrees ("pitch")
+   * @param yRotation
+   *            the rotation around the y axis in degrees ("yaw")
+   * @param zRotation
+   *            the rotation around the z axis in degrees ("roll")
+   */
+  public static Quaterniond fromEulerAngles(double xRotation, double yRotation, double zRotation) {
+    double hx = xRotation * 0.5 * (Math.PI / 180);
+    double shx = Math.sin(hx);
+    double chx = Math.cos(hx);
+
+    double hy = yRotation * 0.5 * (Math.PI / 180);
+    double shy = Math.sin(hy);
+    double chy = Math.cos(hy);
+
+    double hz = zRotation * 0.5 * (Math.PI / 180);
+    double shz = Math.sin(hz);
+    double chz = Math.cos(hz);
+
+    return new Quaterniond(chy * shx * chz + shy * chx * shz,
+                shy * chx * chz - chy * shx * shz,
+                chy * chx * shz - shy * shx * chz,
+                chy * chx * chz + shy * shx * shz);
+  }
+
+  /**
+   * Creates quaternion components from the given axis and angle around that axis.
+   *
+   * @param axis
+   *            the axis
+   * @param angle
+   *            the angle in degrees
+   */
+  public static Quaterniond fromAxis(Vec3d axis, double angle) {
+    double rad = angle * (Math.PI / 180);
+    double d = axis.length();
+    if (d == 0)
+      return ID;
+    d = 1 / d;
+    double alpha = rad;
+    double sin = Math.sin(alpha / 2);
+    double cos = Math.cos(alpha / 2);
+    return new Quaterniond(d * axis.x * sin, d * axis.y * sin, d * axis.z * sin, cos).normalize();
+  }
+
+  /**
+   * Creates quaternion from the given x-, y- and z-axis which have to be orthonormal.
+   */
+  public static Quaterniond fromAxes(Vec3d vx, Vec3d vy, Vec3d vz) {
+    return fromAxes(vx, vy, vz, false);
+  }
+
+  /**
+   * Creates quaternion from the given x-, y- and z-axis.
+   */
+  public static Quaterniond fromAxes(Vec3d vx, Vec3d vy, Vec3d vz, boolean normalize) {
+    if (normalize) {
+      vx = vx.normalize();
+      vy = vy.normalize();
+      vz = vz.normalize();
+    }
+    // the trace is the sum of the diagonal elements; see
+    // http://mathworld.wolfram.com/MatrixTrace.html
+    double t = vx.x + vy.y + vz.z;
+
+    double x;
+    double y;
+    double z;
+    double w;
+
+    // we protect the division by s by ensuring that s>=1
+    if (t >= 0) { // |w| >= .5
+      double s = Math.sqrt(t + 1); // |s|>=1 ...
+      w = 0.5 * s;
+      s = 0.5 / s; // so this division isn't bad
+      x = (vz.y - vy.z) * s;
+      y = (vx.z - vz.x) * s;
+      z = (vy.x - vx.y) * s;
+    } else if ((vx.x > vy.y) && (vx.x > vz.z)) {
+      double s = Math.sqrt(1.0 + vx.x - vy.y - vz.z); // |s|>=1
+      x = s * 0.5; // |x| >= .5
+      s = 0.5 / s;
+      y = (vy.x + vx.y) * s;
+      z = (vx.z + vz.x) * s;
+      w = (vz.y - vy.z) * s;
+    } else if (vy.y > vz.z) {
+      double s = Math.sqrt(1.0 + vy.y - vx.x - vz.z); // |s|>=1
+      y = s * 0.5; // |y| >= .5
+      s = 0.5 / s;
+      x = (vy.x + vx.y) * s;
+      z = (vz.y + vy.z) * s;
+      w = (vx.z - vz.x) * s;
+    } else {
+      double s = Math.sqrt(1.0 + vz.z - vx.x - vy.y); // |s|>=1
+      z = s * 0.5; // |z| >= .5
+      s = 0.5 / s;
+      x = (vx.z + vz.x) * s;
+      y = (vz.y + vy.z) * s;
+      w = (vy.x - vx.y) * s;
+    }
+
+    return new Quaterniond(x, y, z, w);
+  }
+
+  /**
+   * Creates quaternion from the rotation between two vectors.
+   *
+   * @param v1
+   *            the base vector, which should be normalized.
+   * @param v2
+   *            the target vector, which should be normalized.
+   */
+  public static Quaterniond fromCross(Vec3d v1, Vec3d v2) {
+    double dot = MathUtil.clamp(v1.dot(v2), -1, 1);
+    double angle = Math.acos(dot) * (180 / Math.PI);
+    return fromAxis(v1.cross(v2), angle);
+  }
+
+  /**
+   * Creates quaternion from the given rotation matrix, which must not contain scaling.
+   */
+  public static Quaterniond fromMatrix(Mat4d matrix) {
+    return fromMatrix(matrix, false);
+  }
+
+  /**
+   * Creates quaternion from the given matrix, optionally removing any scaling.
+   */
+  public static Quaterniond fromMatrix(Mat4d matrix, boolean normalize) {
+    Vec3d v1 = new Vec3d(matrix.m00, matrix.m01, matrix.m02);
+    Vec3d v2 = new Vec3d(matrix.m10, matrix.m11, matrix.m12);
+    Vec3d v3 = new Vec3d(matrix.m20, matrix.m21, matrix.m22);
+    return fromAxes(v1, v2, v3, normalize);
+  }
+
+  /**
+   * Check this quaternion for identity.
+   *
+   * @return true if quaternion is an identity quaternion
+   */
+  public boolean isIdentity() {
+    return MathUtil.isZero(x) && MathUtil.isZero(y) && MathUtil.isZero(z) && MathUtil.isEqual(w, 1);
+  }
+
+  /**
+   * Check this quaternion for identity with given tolerance.
+   *
+   * @return true if quaternion is an identity quaternion
+   */
+  public boolean isIdentity(double tolerance) {
+    return MathUtil.isZero(x, tolerance) && MathUtil.isZero(y, tolerance) && MathUtil.isZero(z, tolerance) && MathUtil.isEqual(w, 1, tolerance);
+  }
+
+  /**
+   * Normalizes this quaternion to unit length.
+   *
+   * @return the normalized quaternion
+   */
+  public Quaterniond normalize() {
+    double l = length();
+    if (MathUtil.isZero(l) || l == 1)
+      return this;
+    return new Quaterniond(x / l, y / l, z / l, w / l);
+  }
+
+  /**
+   * Calculates the length of this quaternion.
+   *
+   * @return the length of this quaternion
+   */
+  public double length() {
+    return MathUtil.length(x, y, z, w);
+  }
+
+  /**
+   * Calculates the dot product this*q.
+   *
+   * @return the dot product this*q
+   */
+  public double dot(Quaterniond q) {
+    return MathUtil.dot(x, y, z, w, q.x, q.y, q.z, q.w);
+  }
+
+  /**
+   * Conjugate the quaternion.
+   *
+   * @return the conjugate quaternion
+   */
+  public Quaterniond conjugate() {
+    return new Quaterniond(-x, -y, -z, w);
+  }
+
+  /**
+   * Add quaternion q to this.
+   *
+   * @param q
+   *            quaternion to be added
+   * @return the quaternion this + q
+   */
+  public Quaterniond add(Quaterniond q) {
+    return new Quaterniond(x + q.x, y + q.y, z + q.z, w + q.w);
+  }
+
+  /**
+   * Post-multiply this quaternion with result = this * q.
+   *
+   * @param q
+   *            quaternion to multiply with
+   *
+   * @return the quaternion this * q
+   */
+  public Quaterniond postMultiply(Quaterniond q) {
+    return new Quaterniond(w * q.x + x * q.w + y * q.z - z * q.y,
+                w * q.y + y * q.w + z * q.x - x * q.z,
+                w * q.z + z * q.w + x * q.y - y * q.x,
+                w * q.w - x * q.x - y * q.y - z * q.z);
+  }
+
+  /**
+   * Pre-multiply this quaternion with result = q * this.
+   *
+   * @param q
+   *            quaternion to multiply with
+   *
+   * @return the quaternion q * this
+   */
+  public Quaterniond preMultiply(Quaterniond q) {
+    return new Quaterniond(q.w * x + q.x * w + q.y * z - q.z * y,
+                q.w * y + q.y * w + q.z * x - q.x * z,
+                q.w * z + q.z * w + q.x * y - q.y * x,
+                q.w * w - q.x * x - q.y * y - q.z * z);
+  }
+
+  /**
+   * Spherical linear interpolation between this quaternion and the other quaternion, based on the alpha value in the
+   * range [0,1]. Taken from. Taken from Bones framework for JPCT, see http://www.aptalkarga.com/bones/
+   *
+   * @param end
+   *            the end quaternion
+   * @param alpha
+   *            alpha in the range [0,1]
+   *
+   * @return the resulting quaternion
+   */
+  public Quaterniond slerp(Quaterniond end, double alpha) {
+    double dot = dot(end);
+    double scale0 = 1 - alpha;
+    double scale1 = alpha;
+
+    if ((1 - dot) > 0.1) {
+      double angle = Math.acos(dot);
+      double invSinTheta = 1 / Math.sin(angle);
+
+      scale0 = (Math.sin((1 - alpha) * angle) * invSinTheta);
+      scale1 = (Math.sin((alpha * angle)) * invSinTheta);
+    }
+
+    return new Quaterniond(scale0 * x + scale1 * end.x, scale0 * y + scale1 * end.y, scale0 * z + scale1 * end.z, scale0 * w + scale1 * end.w);
+  }
+
+  /**
+   * Spherical linearly interpolates multiple quaternions and will return the result. Will not destroy the data
+   * previously inside the elements of q. result = (q_1^w_1)*(q_2^w_2)* ... *(q_n^w_n) where w_i=1/n.
+   *
+   * @param q
+   *            list of quaternions
+   *
+   * @return the resulting quaternion
+   */
+  public Quaterniond slerp(Quaterniond[] q) {
+    double w = 1.0 / q.length;
+    Quaterniond result = q[0].exp(w);
+    for (int i = 1; i < q.length; i++)
+      result = result.postMultiply(q[i]).exp(w);
+    return result.normalize();
+  }
+
+  /**
+   * Spherical linearly interpolates multiple quaternions by the given weights and will return the result. Will not
+   * destroy the data previously inside the elements of q or w. result = (q_1^w_1)*(q_2^w_2)* ... *(q_n^w_n) where the
+   * sum of w_i is 1. Lists must be equal in length.
+   *
+   * @param q
+   *            list of quaternions
+   * @param w
+   *            list of weights
+   *
+   * @return the resulting quaternion
+   */
+  public Quaterniond slerp(Quaterniond[] q, double[] w) {
+    Quaterniond result = q[0].exp(w[0]);
+    for (int i = 1; i < q.length; i++)
+      result = result.postMultiply(q[i]).exp(w[i]);
+    return result.normalize();
+  }
+
+  /**
+   * Calculates this^alpha where alpha is a real number.
+   *
+   * @param alpha
+   *            exponent
+   *
+   * @return the quaternion this^alpha
+   */
+  public Quaterniond exp(double alpha) {
+    double norm = length();
+    double normExp = Math.pow(norm, alpha);
+
+    double theta = Math.acos(w / norm);
+
+    double coeff = 0;
+    if (Math.abs(theta) < 0.001)
+      coeff = normExp * alpha / norm;
+    else
+      coeff = (normExp * Math.sin(alpha * theta) / (norm * Math.sin(theta)));
+
+    return new Quaterniond(x * coeff, y * coeff, z * coeff, (normExp * Math.cos(alpha * theta))).normalize();
+  }
+
+  /**
+   * Get the x-rotation Euler angle ("pitch") in degrees. Requires that this quaternion is normalized.
+   *
+   * @return the rotation around the x axis in degrees (between -90 and +90)
+   */
+  // XXX do we really want this to be between -90 and +90?
+  public double getXRotation() {
+    int pole = getGimbalPole();
+    double rad = pole == 0 ? Math.asin(MathUtil.clamp(2 * (w * x - z * y), -1, 1)) : pole * Math.PI * 0.5;
+    return rad * (180 / Math.PI);
+  }
+
+  /**
+   * Get the y-rotation Euler angle ("yaw") in degrees. Requires that this quaternion is normalized.
+   *
+   * @return the rotation around the y axis in degrees (between -180 and +180)
+   */
+  public double getYRotation() {
+    double rad = (getGimbalPole() == 0 ? Math.atan2(2 * (y * w + x * z), 1 - 2 * (y * y + x * x)) : 0);
+    return rad * (180 / Math.PI);
+  }
+
+  /**
+   * Get the z-rotation Euler angle ("roll") in degrees. Requires that this quaternion is normalized.
+   *
+   * @return the rotation around the z axis in degrees (between -180 and +180)
+   */
+  public double getZRotation() {
+    int pole = getGimbalPole();
+    double rad = (pole == 0 ? Math.atan2(2 * (w * z + y * x), 1 - 2 * (x * x + z * z)) : pole * 2 * Math.atan2(y, w));
+    return rad * (180 / Math.PI);
+  }
+
+  /**
+   * Get the pole of the gimbal lock, if any.
+   *
+   * @return +1 for north pole, -1 for south pole, 0 when no gimbal lock
+   */
+  public int getGimbalPole() {
+    double t = y * x + z * w;
+    return t > 0.499 ? 1 : (t < -0.499 ? -1 : 0);
+  }
+
+  /**
+   * Get the angle in degrees of the rotation this quaternion represents. Does not normalize the quaternion.
+   *
+   * @return the angle in degrees of the rotation
+   */
+  public double getAngle() {
+    double rad = (2.0 * Math.acos((this.w > 1) ? (this.w / length()) : this.w));
+    return rad * (180 / Math.PI);
+  }
+
+  /**
+   * Get the axis-angle representation of the rotation in degrees. The x, y and z values will be the axis of the
+   * rotation and the w component returned is the angle in degrees around that axis. The result axis is a unit vector.
+   * However, if this is an identity quaternion (no rotation), then the length of the axis may be zero.
+   *
+   * @return the axis vector (xyz) and the angle in radians (w).
+   */
+  public double[] getAxisAngle() {
+    Quaterniond q = this.w > 1 ? this : this.normalize();
+    double angle = (2.0 * Math.acos(this.w)) * (180 / Math.PI);
+    double s = Math.sqrt(1 - q.w * q.w);
+    if (s < MathUtil.DOUBLE_ROUNDING_ERROR) {
+      return new double[] { q.x, q.y, q.z, angle };
+    }
+    return new double[] { (q.x / s), (q.y / s), (q.z / s), angle };
+  }
+
+  /**
+   * Get the angle in degrees of the rotation around the specified axis. The axis must be normalized.
+   *
+   * @param axis
+   *            the normalized axis for which to get the angle
+   * @return the angle in degrees of the rotation around the specified axis
+   */
+  public double getAngleAround(Vec3d axis) {
+    double d = MathUtil.dot(this.x, this.y, this.z, axis.x, axis.y, axis.z);
+    double l = MathUtil.length(axis.x * d, axis.y * d, axis.z * d, this.w);
+    double rad = MathUtil.isZero(l) ? 0 : (2.0 * Math.acos(this.w / l));
+    return rad * (180 / Math.PI);
+  }
+
+  /**
+   * Get the swing rotation and twist rotation for the specified axis. The twist rotation represents the rotation
+   * around the specified axis. The swing rotation represents the rotation of the specified axis itself, which is the
+   * rotation around an axis perpendicular to the specified axis. The swing and twist rotation can be used to
+   * reconstruct the original quaternion: this = swing * twist.
+   *
+   * @param axis
+   *            the normalized axis for which to get the swing and twist rotation
+   * @param swing
+   *            will receive the swing rotation: the rotation around an axis perpendicular to the specified axis
+   * @param twist
+   *            will receive the twist rotation: the rotation around the specified axis
+   *
+   * @return a pair containing the quaternions swing and twist
+   */
+  public Pair<Quaterniond, Quaterniond> getSwingTwist(Vec3d axis) {
+    double d = new Vec3d(x, y, z).dot(axis);
+
+    Quaterniond twist = new Quaterniond(axis.x * d, axis.y * d, axis.z * d, this.w).normalize();
+    Quaterniond swing = twist.conjugate().preMultiply(this);
+    return new Pair<>(swing, twist);
+  }
+
+  /**
+   * Transforms the given vector using this quaternion.
+   *
+   * @param v
+   *            vector to transform
+   *
+   * @return the transformed vector
+   */
+  public Vec3d transform(Vec3d v) {
+    Quaterniond q = conjugate().preMultiply(new Quaterniond(v.x, v.y, v.z, 0)).preMultiply(this);
+    return new Vec3d(q.x, q.y, q.z);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+
+    if (obj instanceof Quaterniond) {
+      Quaterniond v = (Quaterniond) obj;
+      return (x == v.x) && (y == v.y) && (z == v.z) && (w == v.w);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    // + 0.0 maps -0.0 to 0.0, which equals() treats as equal
+    int h = Double.hashCode(x + 0.0);
+    h = 31 * h + Double.hashCode(y + 0.0);
+    h = 31 * h + Double.hashCode(z + 0.0);
+    h = 31 * h + Double.hashCode(w + 0.0);
+    return h;
+  }
+
+  /**
+   * Convert to single precision (render boundary).
+   */
+  public Quaternion toQuaternion() {
+    return new Quaternion(x, y, z, w);
+  }
+
+  @Override
+  public String toString() {
+    return "Q" + "[" + x + ", " + y + ", " + z + ", " + w + "]";
+  }
+}
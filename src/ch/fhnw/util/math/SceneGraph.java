@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2013 - 2014 Stefan Muller Arisona, Simon Schubiger, Samuel von Stachelski
+ * Copyright (c) 2013 - 2014 FHNW & ETH Zurich
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *  Neither the name of FHNW / ETH Zurich nor the names of its contributors may
+ *   be used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.fhnw.util.math;
+
+import java.util.Arrays;
+
+/**
+ * Scene graph with cached world and normal matrices. The hierarchy below the root is flattened into arrays in depth
+ * first order, so every subtree is a contiguous index range. Changing a node only queues its index; {@link #update()}
+ * recomputes the world matrices of the queued subtrees and leaves all other nodes untouched, so static parts of a
+ * scene cost nothing per frame. Normal matrices are computed on first use after a change.
+ *
+ * @see SceneNode
+ */
+public final class SceneGraph {
+	private final SceneNode root;
+
+	private SceneNode[] nodes = new SceneNode[0];
+	private int[] parents = new int[0]; // index of the parent node, -1 for the root
+	private int[] ends = new int[0]; // subtree of node i is [i, ends[i])
+	private Mat4[] world = new Mat4[0];
+	private Mat3[] normal = new Mat3[0];
+
+	private int[] queue = new int[16];
+	private int queueSize;
+	private boolean structureChanged = true;
+	private int updated;
+
+	public SceneGraph(SceneNode root) {
+		this.root = root;
+		root.graph = this;
+		root.index = 0;
+	}
+
+	public SceneNode getRoot() {
+		return root;
+	}
+
+	/**
+	 * Number of nodes (valid after {@link #update()}).
+	 */
+	public int size() {
+		return nodes.length;
+	}
+
+	/**
+	 * Node at the given depth first index (valid after {@link #update()}).
+	 */
+	public SceneNode getNode(int i) {
+		return nodes[i];
+	}
+
+	public Mat4 getWorldTransform(int i) {
+		return world[i];
+	}
+
+	public Mat3 getNormalTransform(int i) {
+		if (normal[i] == null)
+			normal[i] = new Mat3(world[i]).inverse().transpose();
+		return normal[i];
+	}
+
+	/**
+	 * Number of world matrices recomputed by the last {@link #update()}.
+	 */
+	public int getUpdatedCount() {
+		return updated;
+	}
+
+	/**
+	 * Recompute the world matrices of all changed subtrees.
+	 */
+	public void update() {
+		if (structureChanged) {
+			queueSize = 0; // indices refer to the old arrays, flatten() clears the flags
+			flatten();
+			structureChanged = false;
+			updated = 0;
+			recompute(0, nodes.length);
+			return;
+		}
+		updated = 0;
+		Arrays.sort(queue, 0, queueSize);
+		int done = 0; // end of the last recomputed range
+		for (int k = 0; k < queueSize; k++) {
+			int i = queue[k];
+			nodes[i].queued = false;
+			if (i >= done) {
+				recompute(i, ends[i]);
+				done = ends[i];
+			}
+		}
+		queueSize = 0;
+	}
+
+	void invalidate(SceneNode node) {
+		if (structureChanged || node.queued)
+			return;
+		if (queueSize == queue.length)
+			queue = Arrays.copyOf(queue, 2 * queue.length);
+		queue[queueSize++] = node.index;
+		node.queued = true;
+	}
+
+	void structureChanged() {
+		structureChanged = true;
+	}
+
+	private void recompute(int from, int to) {
+		for (int i = from; i < to; i++) {
+			Mat4 local = nodes[i].getLocalTransform();
+			int p = parents[i];
+			world[i] = p < 0 ? local : world[p].postMultiply(local);
+			normal[i] = null;
+		}
+		updated += to - from;
+	}
+
+	private void flatten() {
+		int n = count(root);
+		nodes = new SceneNode[n];
+		parents = new int[n];
+		ends = new int[n];
+		world = new Mat4[n];
+		normal = new Mat3[n];
+		flatten(root, -1, 0);
+	}
+
+	private int flatten(SceneNode node, int parent, int i) {
+		int index = i;
+		nodes[index] = node;
+		parents[index] = parent;
+		node.graph = this;
+		node.index = index;
+		node.queued = false;
+		i++;
+		for (SceneNode c : node.getChildren())
+			i = flatten(c, index, i);
+		ends[index] = i;
+		return i;
+	}
+
+	private static int count(SceneNode node) {
+		int n = 1;
+		for (SceneNode c : node.getChildren())
+			n += count(c);
+		return n;
+	}
+}
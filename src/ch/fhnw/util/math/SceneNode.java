@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2013 - 2014 Stefan Muller Arisona, Simon Schubiger, Samuel von Stachelski
+ * Copyright (c) 2013 - 2014 FHNW & ETH Zurich
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *  Neither the name of FHNW / ETH Zurich nor the names of its contributors may
+ *   be used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.fhnw.util.math;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Node of a {@link SceneGraph}. The local matrix is built like in {@link Transform} (T * R * S * T-Origin) and cached
+ * until one of the transform properties changes. The rotation is given either as euler angles in degrees or as a
+ * quaternion; setting one replaces the other. World and normal matrices are cached by the graph the node belongs to.
+ *
+ * @see SceneGraph
+ */
+public class SceneNode implements ITransformable {
+	private final String name;
+	private SceneNode parent;
+	private final List<SceneNode> children = new ArrayList<>();
+
+	private Vec3 origin = Vec3.ZERO;
+	private Vec3 translation = Vec3.ZERO;
+	private Vec3 rotation = Vec3.ZERO;
+	private Quaternion orientation;
+	private Vec3 scale = Vec3.ONE;
+
+	private Mat4 localTransform;
+
+	// set by SceneGraph when the hierarchy is flattened
+	SceneGraph graph;
+	int index = -1;
+	boolean queued;
+
+	public SceneNode() {
+		this(null);
+	}
+
+	public SceneNode(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public SceneNode getParent() {
+		return parent;
+	}
+
+	public List<SceneNode> getChildren() {
+		return Collections.unmodifiableList(children);
+	}
+
+	/**
+	 * Add a child node (removing it from its previous parent).
+	 *
+	 * @return the child
+	 */
+	public SceneNode add(SceneNode child) {
+		if (child.parent != null)
+			child.parent.remove(child);
+		children.add(child);
+		child.parent = this;
+		structureChanged();
+		return child;
+	}
+
+	public void remove(SceneNode child) {
+		if (children.remove(child)) {
+			child.parent = null;
+			child.detach();
+			structureChanged();
+		}
+	}
+
+	@Override
+	public Vec3 getOrigin() {
+		return origin;
+	}
+
+	@Override
+	public void setOrigin(Vec3 origin) {
+		this.origin = origin;
+		invalidate();
+	}
+
+	@Override
+	public Vec3 getTranslation() {
+		return translation;
+	}
+
+	@Override
+	public void setTranslation(Vec3 translation) {
+		this.translation = translation;
+		invalidate();
+	}
+
+	public void setTranslation(float x, float y, float z) {
+		setTranslation(new Vec3(x, y, z));
+	}
+
+	@Override
+	public Vec3 getRotation() {
+		return rotation;
+	}
+
+	/**
+	 * Set the rotation as euler angles in degrees (applied in x, y, z order like {@link Transform}).
+	 */
+	@Override
+	public void setRotation(Vec3 rotation) {
+		this.rotation = rotation;
+		this.orientation = null;
+		invalidate();
+	}
+
+	public void setRotation(float x, float y, float z) {
+		setRotation(new Vec3(x, y, z));
+	}
+
+	/**
+	 * Returns the rotation quaternion or null if the rotation is given as euler angles.
+	 */
+	public Quaternion getOrientation() {
+		return orientation;
+	}
+
+	/**
+	 * Set the rotation as (not necessarily normalized) quaternion.
+	 */
+	public void setOrientation(Quaternion orientation) {
+		this.orientation = orientation;
+		this.rotation = Vec3.ZERO;
+		invalidate();
+	}
+
+	@Override
+	public Vec3 getScale() {
+		return scale;
+	}
+
+	@Override
+	public void setScale(Vec3 scale) {
+		this.scale = scale;
+		invalidate();
+	}
+
+	public void setScale(float x, float y, float z) {
+		setScale(new Vec3(x, y, z));
+	}
+
+	/**
+	 * Get the local matrix (relative to the parent).
+	 */
+	public Mat4 getLocalTransform() {
+		if (localTransform == null) {
+			Mat4 r = orientation != null ? new Mat4(orientation.normalize())
+					: Mat4.multiply(Mat4.rotate(rotation.x, Vec3.X), Mat4.rotate(rotation.y, Vec3.Y), Mat4.rotate(rotation.z, Vec3.Z));
+			localTransform = Mat4.multiply(Mat4.translate(translation), r, Mat4.scale(scale), Mat4.translate(origin.negate()));
+		}
+		return localTransform;
+	}
+
+	/**
+	 * Get the world matrix (product of all local matrices from the root). Only valid after {@link SceneGraph#update()};
+	 * for a node that is not part of a graph this is the local matrix.
+	 */
+	public Mat4 getWorldTransform() {
+		return graph != null ? graph.getWorldTransform(index) : getLocalTransform();
+	}
+
+	/**
+	 * Get the normal matrix (inverse transpose of the upper 3x3 world matrix).
+	 */
+	public Mat3 getNormalTransform() {
+		return graph != null ? graph.getNormalTransform(index) : new Mat3(getLocalTransform()).inverse().transpose();
+	}
+
+	private void invalidate() {
+		localTransform = null;
+		if (graph != null)
+			graph.invalidate(this);
+	}
+
+	private void structureChanged() {
+		for (SceneNode n = this; n != null; n = n.parent) {
+			if (n.graph != null) {
+				n.graph.structureChanged();
+				return;
+			}
+		}
+	}
+
+	private void detach() {
+		if (graph != null)
+			graph.structureChanged();
+		graph = null;
+		index = -1;
+		queued = false;
+		for (SceneNode c : children)
+			c.detach();
+	}
+
+	@Override
+	public String toString() {
+		return name != null ? name : super.toString();
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2013 - 2014 Stefan Muller Arisona, Simon Schubiger, Samuel von Stachelski
+ * Copyright (c) 2013 - 2014 FHNW & ETH Zurich
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *  Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *  Neither the name of FHNW / ETH Zurich nor the names of its contributors may
+ *   be used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.fhnw.util.math;
+
+import java.util.List;
+
+/**
+ * Double precision 3D vector with the same API as {@link Vec3}, for simulations
+ * that must not lose precision in the math library. Convert to {@link Vec3}
+ * only at the render boundary. Instances are immutable.
+ *
+ * @see Vec3
+ */
+public class Vec3d {
+	public static final Vec3d ZERO = new Vec3d(0, 0, 0);
+	public static final Vec3d ONE = new Vec3d(1, 1, 1);
+	public static final Vec3d X = new Vec3d(1, 0, 0);
+	public static final Vec3d Y = new Vec3d(0, 1, 0);
+	public static final Vec3d Z = new Vec3d(0, 0, 1);
+	public static final Vec3d X_NEG = new Vec3d(-1, 0, 0);
+	public static final Vec3d Y_NEG = new Vec3d(0, -1, 0);
+	public static final Vec3d Z_NEG = new Vec3d(0, 0, -1);
+
+	public final double x;
+	public final double y;
+	public final double z;
+
+	public Vec3d(double x, double y, double z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+
+	public Vec3d(double[] vec) {
+		this(vec[0], vec[1], vec[2]);
+	}
+
+	public Vec3d(Vec3 v) {
+		this(v.x, v.y, v.z);
+	}
+
+	public double x() {
+		return x;
+	}
+	
+	public double y() {
+		return y;
+	}
+
+	public double z() {
+		return z;
+	}
+
+	public double length() {
+		return MathUtil.length(x, y, z);
+	}
+
+	public double distance(Vec3d v) {
+		return Math.sqrt((v.x - x) * (v.x - x) + (v.y - y) * (v.y - y) + (v.z - z) * (v.z - z));
+	}
+
+	public Vec3d add(Vec3d v) {
+		return new Vec3d(x + v.x, y + v.y, z + v.z);
+	}
+
+	public Vec3d subtract(Vec3d v) {
+		return new Vec3d(x - v.x, y - v.y, z - v.z);
+	}
+
+	public Vec3d scale(double s) {
+		return new Vec3d(x * s, y * s, z * s);
+	}
+
+	public Vec3d negate() {
+		return scale(-1);
+	}
+
+	public Vec3d normalize() {
+		double l = length();
+		if (MathUtil.isZero(l) || l == 1)
+			return this;
+		return new Vec3d(x / l, y / l, z / l);
+	}
+
+	public double dot(Vec3d a) {
+		return MathUtil.dot(x, y, z, a.x, a.y, a.z);
+	}
+
+	public Vec3d cross(Vec3d a) {
+		return new Vec3d(y * a.z - z * a.y, z * a.x - x * a.z, x * a.y - y * a.x);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+
+		if (obj instanceof Vec3d) {
+			final Vec3d v = (Vec3d) obj;
+			return (x == v.x) && (y == v.y) && (z == v.z);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		// + 0.0 maps -0.0 to 0.0, which equals() treats as equal
+		int h = Double.hashCode(x + 0.0);
+		h = 31 * h + Double.hashCode(y + 0.0);
+		h = 31 * h + Double.hashCode(z + 0.0);
+		return h;
+	}
+	
+	/**
+	 * Convert to single precision (render boundary).
+	 */
+	public Vec3 toVec3() {
+		return new Vec3(x, y, z);
+	}
+
+	public double[] toArray() {
+		return new double[] { x, y, z };
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[% .2f,% .2f,% .2f]", x, y, z);
+	}
+
+	public static double[] toArray(List<? extends Vec3d> vectors) {
+		if (vectors == null)
+			return null;
+
+		double[] result = new double[vectors.size() * 3];
+		int i = 0;
+		for (Vec3d v : vectors) {
+			result[i++] = v.x;
+			result[i++] = v.y;
+			result[i++] = v.z;
+		}
+		return result;
+	}
+}
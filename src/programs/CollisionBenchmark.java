@@ -0,0 +1,95 @@
+package programs;
+
+//-------------   Benchmark Broad-Phase SpatialHash gegen alle Paare (ohne OpenGL)  -------------------
+//
+//  java programs.CollisionBenchmark [max. anzahl kugeln]
+//
+//  Kugeln mit gleicher Dichte in einem Kasten, der mit der Anzahl waechst.
+import java.util.Random;
+
+public class CollisionBenchmark {
+
+	static final double R = 0.01; // Radius
+	static final double DICHTE = 0.2; // Flaechen- bzw. Volumenanteil der Kugeln
+	static final int BRUTE_MAX = 16384; // darueber dauert O(n^2) zu lange
+
+	static KugelSystem create(int n, boolean dreiD) {
+		double vol = n * (dreiD ? 4.0 / 3 * Math.PI * R * R * R : Math.PI * R * R) / DICHTE;
+		double a = 0.5 * (dreiD ? Math.cbrt(vol) : Math.sqrt(vol));
+		KugelSystem ks = new KugelSystem(dreiD, R, n);
+		ks.setBox(-a, a, -a, a, dreiD ? -a : 0, dreiD ? a : 0);
+		Random rnd = new Random(1);
+		for (int i = 0; i < n; i++)
+			ks.add(R * (0.5 + 0.5 * rnd.nextDouble()), 1, a * (2 * rnd.nextDouble() - 1), a * (2 * rnd.nextDouble() - 1),
+					dreiD ? a * (2 * rnd.nextDouble() - 1) : 0, rnd.nextGaussian(), rnd.nextGaussian(),
+					dreiD ? rnd.nextGaussian() : 0);
+		return ks;
+	}
+
+	static boolean touch(KugelSystem ks, int i, int j) {
+		double dx = ks.x[j] - ks.x[i], dy = ks.y[j] - ks.y[i], dz = ks.z[j] - ks.z[i];
+		double rr = ks.r[i] + ks.r[j];
+		return dx * dx + dy * dy + dz * dz <= rr * rr;
+	}
+
+	static long[] count = new long[2];
+
+	// Kandidaten-Paare und davon beruehrende Paare
+	static long[] broadPhase(KugelSystem ks) {
+		count[0] = count[1] = 0;
+		ks.grid.forEachPair((i, j) -> {
+			count[0]++;
+			if (touch(ks, i, j))
+				count[1]++;
+		});
+		return count;
+	}
+
+	static long bruteForce(KugelSystem ks) {
+		long c = 0;
+		for (int i = 0; i < ks.n; i++)
+			for (int j = i + 1; j < ks.n; j++)
+				if (touch(ks, i, j))
+					c++;
+		return c;
+	}
+
+	public static void main(String[] args) {
+		int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		double dt = 0.2 * R; // bei |v| ~ 1 hoechstens ein Fuenftel Radius pro Schritt
+		for (boolean dreiD : new boolean[] { false, true }) {
+			System.out.println(dreiD ? "---- 3D Kugeln ----" : "---- 2D Kreise ----");
+			System.out.printf("%8s %12s %10s %14s %14s %12s%n", "N", "Kandidaten", "Kontakte", "broad us", "step us",
+					"O(n^2) us");
+			for (int n = 1000; n <= maxN; n = n < maxN && 4 * n > maxN ? maxN : 4 * n) {
+				KugelSystem ks = create(n, dreiD);
+				for (int i = 0; i < 20; i++) // aufwaermen, Zellen einschwingen
+					ks.step(dt);
+				int runs = Math.max(5, 2_000_000 / n);
+				long t0 = System.nanoTime();
+				long[] c = null;
+				for (int i = 0; i < runs; i++)
+					c = broadPhase(ks);
+				long t1 = System.nanoTime();
+				for (int i = 0; i < runs; i++)
+					ks.step(dt);
+				long t2 = System.nanoTime();
+				c = broadPhase(ks);
+				String brute = "-";
+				if (n <= BRUTE_MAX) {
+					long t3 = System.nanoTime();
+					long kontakte = bruteForce(ks);
+					long t4 = System.nanoTime();
+					brute = String.format("%.0f", (t4 - t3) * 1e-3);
+					if (kontakte != c[1])
+						brute += " FEHLER: " + kontakte + " Kontakte";
+				}
+				System.out.printf("%8d %12d %10d %14.1f %14.1f %12s%n", n, c[0], c[1], (t1 - t0) * 1e-3 / runs,
+						(t2 - t1) * 1e-3 / runs, brute);
+				if (n == maxN)
+					break;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,167 @@
+package programs;
+
+//-------------   Dichte einer Bahn als Histogramm fester Groesse, ohne OpenGL  -------------------
+//
+//  Statt die Vertices einer Bahn zu speichern, wird jeder Zustand in eine
+//  Zelle eines 3D-Gitters (nz = 1: 2D) gezaehlt. Der Speicher haengt nur von
+//  der Gitter-Groesse ab, nicht von der Anzahl Schritte. Mit setView werden
+//  die Punkte vor dem Zaehlen transformiert (z.B. ModelView-Matrix, dann ist
+//  das 2D-Histogramm die Projektion ins Bild).
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import ch.fhnw.util.math.Mat4;
+
+public class DensityHistogram {
+
+	final int nx, ny, nz;
+	final double xmin, ymin, zmin, sx, sy, sz; // Zellen pro Einheit
+	final int[] counts; // Zelle (i,j,k) bei (k*ny + j)*nx + i
+	long total, outside; // gezaehlte Punkte, davon ausserhalb
+	double[] view; // affine Transformation, Zeilen 0..2 (null: keine)
+	private DensityHistogram[] teile; // pro Thread in accumulate
+
+	// 3D-Gitter
+	public DensityHistogram(int nx, int ny, int nz, double xmin, double xmax, double ymin, double ymax, double zmin,
+			double zmax) {
+		this.nx = nx;
+		this.ny = ny;
+		this.nz = nz;
+		this.xmin = xmin;
+		this.ymin = ymin;
+		this.zmin = zmin;
+		sx = nx / (xmax - xmin);
+		sy = ny / (ymax - ymin);
+		sz = nz == 1 ? 0 : nz / (zmax - zmin);
+		counts = new int[nx * ny * nz];
+	}
+
+	// 2D-Histogramm (z wird nicht beachtet)
+	public DensityHistogram(int nx, int ny, double xmin, double xmax, double ymin, double ymax) {
+		this(nx, ny, 1, xmin, xmax, ymin, ymax, 0, 0);
+	}
+
+	// leeres Histogramm mit gleichem Gitter und gleicher Transformation
+	public DensityHistogram emptyCopy() {
+		DensityHistogram h = new DensityHistogram(nx, ny, nz, xmin, xmin + nx / sx, ymin, ymin + ny / sy, zmin,
+				nz == 1 ? zmin : zmin + nz / sz);
+		h.view = view;
+		return h;
+	}
+
+	// Punkte vor dem Zaehlen mit der affinen Matrix M transformieren (null: keine)
+	public void setView(Mat4 M) {
+		if (M == null) {
+			view = null;
+			return;
+		}
+		view = new double[] { M.m00, M.m01, M.m02, M.m03, M.m10, M.m11, M.m12, M.m13, M.m20, M.m21, M.m22, M.m23 };
+	}
+
+	public void clear() {
+		java.util.Arrays.fill(counts, 0);
+		total = outside = 0;
+	}
+
+	public void add(double x, double y, double z) {
+		total++;
+		if (view != null) {
+			double[] v = view;
+			double tx = v[0] * x + v[1] * y + v[2] * z + v[3];
+			double ty = v[4] * x + v[5] * y + v[6] * z + v[7];
+			z = v[8] * x + v[9] * y + v[10] * z + v[11];
+			x = tx;
+			y = ty;
+		}
+		double fx = (x - xmin) * sx, fy = (y - ymin) * sy, fz = (z - zmin) * sz;
+		if (!(fx >= 0 && fx < nx && fy >= 0 && fy < ny && fz >= 0 && fz < nz)) { // auch NaN
+			outside++;
+			return;
+		}
+		counts[((int) fz * ny + (int) fy) * nx + (int) fx]++;
+	}
+
+	// Zustaende from..to-1 eines Blocks x[dim][N] zaehlen (x[2] fehlt in 2D-Systemen)
+	public void addBatch(double[][] x, int from, int to) {
+		double[] x0 = x[0], x1 = x[1], x2 = x.length > 2 ? x[2] : null;
+		for (int k = from; k < to; k++)
+			add(x0[k], x1[k], x2 == null ? 0 : x2[k]);
+	}
+
+	public void merge(DensityHistogram h) {
+		for (int i = 0; i < counts.length; i++)
+			counts[i] += h.counts[i];
+		total += h.total;
+		outside += h.outside;
+	}
+
+	// Die N Bahnen im Block x[dim][N] nSteps Schritte mit Runge-Kutta weiter
+	// integrieren und jeden Zustand zaehlen. Die Bahnen werden auf die Threads
+	// des Pools verteilt, jeder zaehlt in ein eigenes Histogramm.
+	public void accumulate(Dynamics dyn, double[][] x, double dt, long nSteps, ForkJoinPool pool) {
+		int n = x[0].length;
+		int parts = Math.max(1, Math.min(n, pool.getParallelism()));
+		if (teile == null || teile.length != parts) { // Teil-Histogramme bleiben fuer den naechsten Aufruf
+			teile = new DensityHistogram[parts];
+			for (int p = 0; p < parts; p++)
+				teile[p] = parts == 1 ? this : emptyCopy();
+		}
+		RecursiveAction[] tasks = new RecursiveAction[parts];
+		for (int p = 0; p < parts; p++) {
+			int from = (int) ((long) n * p / parts), to = (int) ((long) n * (p + 1) / parts);
+			DensityHistogram h = teile[p];
+			if (h != this) {
+				h.view = view;
+				h.clear();
+			}
+			tasks[p] = new RecursiveAction() {
+				@Override
+				protected void compute() {
+					for (long s = 0; s < nSteps; s++) {
+						dyn.rungeBatch(x, dt, from, to);
+						h.addBatch(x, from, to);
+					}
+				}
+			};
+		}
+		pool.invoke(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+		if (parts > 1)
+			for (DensityHistogram h : teile)
+				merge(h);
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public long getOutside() {
+		return outside;
+	}
+
+	// Helligkeiten (nx * ny, Zeile j ab j*nx) der ueber z summierten Zaehler,
+	// logarithmisch skaliert: 255 * log(1 + c) / log(1 + max)
+	public byte[] toLuminance(byte[] out, int[] sum) {
+		int n = nx * ny;
+		if (out == null || out.length < n)
+			out = new byte[n];
+		if (sum == null || sum.length < n)
+			sum = new int[n];
+		System.arraycopy(counts, 0, sum, 0, n);
+		for (int k = 1; k < nz; k++)
+			for (int i = 0; i < n; i++)
+				sum[i] += counts[k * n + i];
+		int max = 0;
+		for (int i = 0; i < n; i++)
+			max = Math.max(max, sum[i]);
+		double scale = max == 0 ? 0 : 255 / Math.log1p(max);
+		for (int i = 0; i < n; i++)
+			out[i] = (byte) (int) (scale * Math.log1p(sum[i]) + 0.5);
+		return out;
+	}
+
+}
@@ -0,0 +1,94 @@
+package programs;
+
+//-------------   Histogramm als Textur ueber das ganze Fenster zeichnen  -------------------
+//
+//  Eigenes Shader-Programm (MyShaders.vShaderTex/fShaderTex) mit einer
+//  Helligkeits-Textur (GL_R8) in der Groesse des Histogramms. Pro Bild wird
+//  nur die Textur ersetzt (nx * ny Bytes), unabhaengig von der Bahnlaenge.
+//  Bei neuer Fenstergroesse wird mit resize nur die Textur neu angelegt,
+//  dispose gibt alle OpenGL-Objekte frei.
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.*;
+
+public class DensityTexture {
+
+	int nx, ny;
+	int programId, vaoId, vboId, texId;
+	ByteBuffer pixels;
+	byte[] lum;
+	int[] sum;
+
+	public DensityTexture(GL3 gl, int nx, int ny) {
+		this.nx = nx;
+		this.ny = ny;
+		programId = MyShaders.initShaders(gl, MyShaders.vShaderTex, MyShaders.fShaderTex);
+		int[] id = new int[1];
+		gl.glGenVertexArrays(1, id, 0);
+		vaoId = id[0];
+		gl.glBindVertexArray(vaoId);
+		gl.glGenBuffers(1, id, 0);
+		vboId = id[0];
+		gl.glBindBuffer(GL3.GL_ARRAY_BUFFER, vboId);
+		FloatBuffer quad = Buffers.newDirectFloatBuffer(new float[] { -1, -1, 1, -1, -1, 1, 1, 1 });
+		gl.glBufferData(GL3.GL_ARRAY_BUFFER, 4L * 8, quad, GL3.GL_STATIC_DRAW);
+		int vPosition = gl.glGetAttribLocation(programId, "vPosition");
+		gl.glEnableVertexAttribArray(vPosition);
+		gl.glVertexAttribPointer(vPosition, 2, GL3.GL_FLOAT, false, 0, 0);
+
+		gl.glGenTextures(1, id, 0);
+		texId = id[0];
+		gl.glBindTexture(GL3.GL_TEXTURE_2D, texId);
+		gl.glTexParameteri(GL3.GL_TEXTURE_2D, GL3.GL_TEXTURE_MIN_FILTER, GL3.GL_LINEAR);
+		gl.glTexParameteri(GL3.GL_TEXTURE_2D, GL3.GL_TEXTURE_MAG_FILTER, GL3.GL_LINEAR);
+		gl.glTexParameteri(GL3.GL_TEXTURE_2D, GL3.GL_TEXTURE_WRAP_S, GL3.GL_CLAMP_TO_EDGE);
+		gl.glTexParameteri(GL3.GL_TEXTURE_2D, GL3.GL_TEXTURE_WRAP_T, GL3.GL_CLAMP_TO_EDGE);
+		gl.glPixelStorei(GL3.GL_UNPACK_ALIGNMENT, 1); // Zeilen aus einzelnen Bytes
+		gl.glUniform1i(gl.glGetUniformLocation(programId, "density"), 0);
+		allocate(gl, nx, ny);
+	}
+
+	// Textur und Puffer fuer nx * ny neu anlegen, Shader und Quad bleiben
+	public void resize(GL3 gl, int nx, int ny) {
+		if (nx == this.nx && ny == this.ny)
+			return;
+		this.nx = nx;
+		this.ny = ny;
+		allocate(gl, nx, ny);
+	}
+
+	private void allocate(GL3 gl, int nx, int ny) {
+		pixels = Buffers.newDirectByteBuffer(nx * ny);
+		lum = new byte[nx * ny];
+		sum = new int[nx * ny];
+		gl.glBindTexture(GL3.GL_TEXTURE_2D, texId);
+		gl.glTexImage2D(GL3.GL_TEXTURE_2D, 0, GL3.GL_R8, nx, ny, 0, GL3.GL_RED, GL3.GL_UNSIGNED_BYTE, pixels);
+	}
+
+	public void dispose(GL3 gl) {
+		gl.glDeleteTextures(1, new int[] { texId }, 0);
+		gl.glDeleteBuffers(1, new int[] { vboId }, 0);
+		gl.glDeleteVertexArrays(1, new int[] { vaoId }, 0);
+		gl.glDeleteProgram(programId);
+	}
+
+	// Histogramm hochladen und zeichnen, danach ist programId aktiv
+	public void draw(GL3 gl, DensityHistogram h, int programId) {
+		h.toLuminance(lum, sum);
+		pixels.clear();
+		pixels.put(lum, 0, nx * ny);
+		pixels.flip();
+		gl.glUseProgram(this.programId);
+		gl.glActiveTexture(GL3.GL_TEXTURE0);
+		gl.glBindTexture(GL3.GL_TEXTURE_2D, texId);
+		gl.glTexSubImage2D(GL3.GL_TEXTURE_2D, 0, 0, 0, nx, ny, GL3.GL_RED, GL3.GL_UNSIGNED_BYTE, pixels);
+		gl.glDisable(GL3.GL_DEPTH_TEST);
+		gl.glBindVertexArray(vaoId);
+		gl.glDrawArrays(GL3.GL_TRIANGLE_STRIP, 0, 4);
+		gl.glEnable(GL3.GL_DEPTH_TEST);
+		gl.glUseProgram(programId);
+	}
+
+}
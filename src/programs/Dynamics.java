@@ -1,55 +1,376 @@
 package programs;
 
+import java.util.Arrays;
+
 public abstract class Dynamics {
 
+	// Zwischenspeicher fuer die Runge-Kutta Stufen (pro Instanz, nicht thread-safe)
+	private double[] y1, y2, y3, y4, xx;
+
 	public double[] euler(double[] x, double dt) {
-		double[] y = f(x);
+		double[] xx = x.clone();
+		eulerInPlace(xx, dt);
+		return xx;
 
-		double[] xx = new double[x.length];
+	}
+
+	public double [] runge(double [] x, double dt){
+		double[] xx = x.clone();
+		rungeInPlace(xx, dt);
+		return xx;
+
+	}
+
+	// Euler-Schritt, x wird ueberschrieben
+	public void eulerInPlace(double[] x, double dt) {
+		allocBuffers(x.length);
+		f(x, y1);
 		for (int i = 0; i < x.length; i++) {
-			xx[i] = x[i] + y[i] * dt;
-			
+			x[i] += y1[i] * dt;
 		}
-		return xx;
-		
 	}
-	
-	public double [] runge(double [] x, double dt){
-		double[] y1 = f(x);
+
+	// Runge-Kutta Schritt, x wird ueberschrieben
+	public void rungeInPlace(double[] x, double dt) {
+		int n = x.length;
+		allocBuffers(n);
 		// y1 = f(x)
-		double[] xx = new double[x.length];
-		for (int i = 0; i < x.length; i++) {
+		f(x, y1);
+		for (int i = 0; i < n; i++) {
 			xx[i] = x[i] + 0.5 * dt * y1[i];
-			
-		} 
-		// y2 = f(x + dt 2 y1)
-		double [] y2 = f(xx);
-		for (int i = 0; i < x.length; i++) {
+		}
+		// y2 = f(x + dt/2 y1)
+		f(xx, y2);
+		for (int i = 0; i < n; i++) {
 			xx[i] = x[i] + 0.5 * dt * y2[i];
-			
-		} 
-		
-		//y3 = f(x + dt 2 y2)
-		double [] y3 = f(xx);
-		for (int i = 0; i < x.length; i++) {
+		}
+		// y3 = f(x + dt/2 y2)
+		f(xx, y3);
+		for (int i = 0; i < n; i++) {
 			xx[i] = x[i] + dt * y3[i];
-			
-		} 
-		
-		// y4 = f(x + dt  y3)
+		}
+		// y4 = f(x + dt y3)
 		// y = 1/6 (y1 + 2y2 + 2y3 + y4)
-		double [] y4 = f(xx);
+		f(xx, y4);
+		for (int i = 0; i < n; i++) {
+			x[i] += dt * (y1[i] + 2 * y2[i] + 2 * y3[i] + y4[i]) / 6;
+		}
+	}
+
+	private void allocBuffers(int n) {
+		if (xx != null && xx.length == n)
+			return;
+		y1 = new double[n];
+		y2 = new double[n];
+		y3 = new double[n];
+		y4 = new double[n];
+		xx = new double[n];
+	}
+
+
+	// ------  Dormand-Prince RK45 mit Schrittweitensteuerung  ------
+
+	static final double A21 = 1.0 / 5;
+	static final double A31 = 3.0 / 40, A32 = 9.0 / 40;
+	static final double A41 = 44.0 / 45, A42 = -56.0 / 15, A43 = 32.0 / 9;
+	static final double A51 = 19372.0 / 6561, A52 = -25360.0 / 2187, A53 = 64448.0 / 6561, A54 = -212.0 / 729;
+	static final double A61 = 9017.0 / 3168, A62 = -355.0 / 33, A63 = 46732.0 / 5247, A64 = 49.0 / 176,
+			A65 = -5103.0 / 18656;
+	static final double A71 = 35.0 / 384, A73 = 500.0 / 1113, A74 = 125.0 / 192, A75 = -2187.0 / 6784,
+			A76 = 11.0 / 84;
+	// Differenz Ordnung 5 - Ordnung 4 (Fehlerschaetzer)
+	static final double E1 = 71.0 / 57600, E3 = -71.0 / 16695, E4 = 71.0 / 1920, E5 = -17253.0 / 339200,
+			E6 = 22.0 / 525, E7 = -1.0 / 40;
+	// Koeffizienten fuer dense output (Hairer, Norsett, Wanner)
+	static final double D1 = -12715105075.0 / 11282082432.0, D3 = 87487479700.0 / 32700410799.0,
+			D4 = -10690763975.0 / 1880347072.0, D5 = 701980252875.0 / 199316789632.0,
+			D6 = -1453857185.0 / 822651844.0, D7 = 69997945.0 / 29380423.0;
+
+	static final double HMIN = 1e-12;                 // kleinste Schrittweite relativ zu dt in dopri
+
+	private double atol = 1e-6, rtol = 1e-6;          // absolute und relative Toleranz
+	private double h = 0;                             // vorgeschlagene Schrittweite (0 = noch offen)
+	private double hLast = 0;                         // Schrittweite des letzten akzeptierten Schritts
+	private boolean fsal = false;                     // k7 des letzten Schritts = f(xNew)
+	private double errLast = 0;                       // Fehlernorm des letzten Versuchs (NaN: nicht endlich)
+	private double[] k1, k2, k3, k4, k5, k6, k7, xOld, xNew, xs; // letzter akzeptierter Schritt
+	private double[] s1, s2, s3, s4, s5, s6, s7;      // Stufen des laufenden Versuchs
+
+	public void setTolerance(double atol, double rtol) {
+		this.atol = atol;
+		this.rtol = rtol;
+	}
+
+	public void setStepSize(double h) {
+		this.h = h;
+	}
+
+	public double getStepSize() {
+		return h;
+	}
+
+	// x ueber das Intervall dt integrieren, so viele Teilschritte wie noetig
+	// (x wird ueberschrieben). Rueckgabe: Anzahl akzeptierter Schritte.
+	// Unter HMIN * dt wird nicht weiter verkleinert: ein Schritt dieser Groesse
+	// wird trotz zu grossem Fehler genommen (mit Warnung), bei nicht endlichem
+	// Ergebnis gibt es eine ArithmeticException.
+	public int dopri(double[] x, double dt) {
+		if (h <= 0)
+			h = dt;
+		double hmin = HMIN * dt;
+		double t = 0;
+		int nSteps = 0;
+		boolean gewarnt = false;
+		while (t < dt) {
+			double hProp = h;
+			boolean last = Math.max(h, hmin) >= dt - t;
+			double hh = last ? dt - t : Math.max(h, hmin);
+			boolean ok = dopriStep(x, hh);
+			if (!ok && hh <= hmin) {                   // kleiner geht nicht
+				if (!(errLast < Double.POSITIVE_INFINITY))
+					throw new ArithmeticException("Dormand-Prince: Zustand nicht endlich bei t = " + t);
+				if (!gewarnt)
+					System.err.printf("Dormand-Prince: Toleranz bei h = %.3g (t = %.6g) nicht erreicht%n", hh, t);
+				gewarnt = true;
+				acceptTrial(x, hh);
+				h = hmin;
+				ok = true;
+			}
+			if (ok) {
+				nSteps++;
+				if (last) {                           // letzter Schritt evtl. gekuerzt
+					t = dt;
+					h = Math.max(h, hProp);
+				} else
+					t += hh;
+			}
+		}
+		return nSteps;
+	}
+
+	// Einzelner Dormand-Prince Schritt mit Schrittweite hh. Bei Erfolg wird x
+	// ueberschrieben und true geliefert; getStepSize() liefert die naechste
+	// vorgeschlagene Schrittweite. Die Stufen laufen in eigenen Arrays, ein
+	// verworfener Versuch laesst den letzten akzeptierten Schritt (dense output,
+	// FSAL) unveraendert.
+	public boolean dopriStep(double[] x, double hh) {
+		int n = x.length;
+		allocDopriBuffers(n);
+		if (fsal && Arrays.equals(x, xNew))
+			System.arraycopy(k7, 0, s1, 0, n);
+		else
+			f(x, s1);
+
+		for (int i = 0; i < n; i++)
+			xs[i] = x[i] + hh * A21 * s1[i];
+		f(xs, s2);
+		for (int i = 0; i < n; i++)
+			xs[i] = x[i] + hh * (A31 * s1[i] + A32 * s2[i]);
+		f(xs, s3);
+		for (int i = 0; i < n; i++)
+			xs[i] = x[i] + hh * (A41 * s1[i] + A42 * s2[i] + A43 * s3[i]);
+		f(xs, s4);
+		for (int i = 0; i < n; i++)
+			xs[i] = x[i] + hh * (A51 * s1[i] + A52 * s2[i] + A53 * s3[i] + A54 * s4[i]);
+		f(xs, s5);
+		for (int i = 0; i < n; i++)
+			xs[i] = x[i] + hh * (A61 * s1[i] + A62 * s2[i] + A63 * s3[i] + A64 * s4[i] + A65 * s5[i]);
+		f(xs, s6);
+		for (int i = 0; i < n; i++)
+			xs[i] = x[i] + hh * (A71 * s1[i] + A73 * s3[i] + A74 * s4[i] + A75 * s5[i] + A76 * s6[i]);
+		f(xs, s7);
+
+		// Fehlernorm (RMS, skaliert mit den Toleranzen), NaN bei nicht endlichem Zustand
+		double err = 0;
+		for (int i = 0; i < n; i++) {
+			double ei = hh * (E1 * s1[i] + E3 * s3[i] + E4 * s4[i] + E5 * s5[i] + E6 * s6[i] + E7 * s7[i]);
+			double sc = atol + rtol * Math.max(Math.abs(x[i]), Math.abs(xs[i]));
+			err += (ei / sc) * (ei / sc);
+		}
+		err = Math.sqrt(err / n);
+		if (Double.isInfinite(err))
+			err = Double.NaN;
+		errLast = err;
+
+		if (!(err <= 1)) {                            // verwerfen und kleiner wiederholen (auch NaN)
+			h = err < Double.POSITIVE_INFINITY ? hh * Math.max(0.2, 0.9 * Math.pow(err, -0.2)) : 0.2 * hh;
+			return false;
+		}
+		acceptTrial(x, hh);
+		double fac = err == 0 ? 5 : 0.9 * Math.pow(err, -0.2);
+		h = hh * Math.min(5, Math.max(0.2, fac));
+		return true;
+	}
+
+	// Versuch aus s1..s7, xs uebernehmen
+	private void acceptTrial(double[] x, double hh) {
+		int n = x.length;
+		double[] tmp;
+		tmp = k1; k1 = s1; s1 = tmp;
+		tmp = k2; k2 = s2; s2 = tmp;
+		tmp = k3; k3 = s3; s3 = tmp;
+		tmp = k4; k4 = s4; s4 = tmp;
+		tmp = k5; k5 = s5; s5 = tmp;
+		tmp = k6; k6 = s6; s6 = tmp;
+		tmp = k7; k7 = s7; s7 = tmp;
+		System.arraycopy(x, 0, xOld, 0, n);
+		System.arraycopy(xs, 0, x, 0, n);
+		System.arraycopy(xs, 0, xNew, 0, n);
+		hLast = hh;
+		fsal = true;
+	}
+
+	// Gespeicherte Auswertungen von f verwerfen (FSAL). Aufrufen, wenn sich
+	// Parameter der Dynamik aendern, der Zustand aber nicht.
+	public void reset() {
+		fsal = false;
+	}
+
+	// Dense output: Zustand zur Zeit tOld + theta*hLast (0 <= theta <= 1)
+	// innerhalb des letzten akzeptierten Schritts, Ordnung 4
+	public void dopriDense(double theta, double[] out) {
+		double theta1 = 1 - theta;
+		for (int i = 0; i < out.length; i++) {
+			double ydiff = xNew[i] - xOld[i];
+			double bspl = hLast * k1[i] - ydiff;
+			double r4 = ydiff - hLast * k7[i] - bspl;
+			double r5 = hLast * (D1 * k1[i] + D3 * k3[i] + D4 * k4[i] + D5 * k5[i] + D6 * k6[i] + D7 * k7[i]);
+			out[i] = xOld[i] + theta * (ydiff + theta1 * (bspl + theta * (r4 + theta1 * r5)));
+		}
+	}
+
+	private void allocDopriBuffers(int n) {
+		if (xs != null && xs.length == n)
+			return;
+		k1 = new double[n];
+		k2 = new double[n];
+		k3 = new double[n];
+		k4 = new double[n];
+		k5 = new double[n];
+		k6 = new double[n];
+		k7 = new double[n];
+		s1 = new double[n];
+		s2 = new double[n];
+		s3 = new double[n];
+		s4 = new double[n];
+		s5 = new double[n];
+		s6 = new double[n];
+		s7 = new double[n];
+		xOld = new double[n];
+		xNew = new double[n];
+		xs = new double[n];
+		fsal = false;
+	}
+
+
+	// ------  Batch-Integration: N Zustaende als Structure of Arrays x[dim][N]  ------
+
+	// Stufen-Buffer der Batch-Integration, werden als Ganzes ersetzt, damit
+	// parallele Aufrufe ohne Lock einen konsistenten Satz sehen
+	private static final class BatchBuffers {
+		final double[][] b1, b2, b3, b4, bx;
+
+		BatchBuffers(int dim, int n) {
+			b1 = new double[dim][n];
+			b2 = new double[dim][n];
+			b3 = new double[dim][n];
+			b4 = new double[dim][n];
+			bx = new double[dim][n];
+		}
+	}
+
+	private volatile BatchBuffers batch;
+
+	// Euler-Schritt fuer alle Zustaende, x wird ueberschrieben
+	public void eulerBatch(double[][] x, double dt) {
+		eulerBatch(x, dt, 0, x[0].length);
+	}
+
+	// Euler-Schritt fuer die Zustaende from..to-1
+	public void eulerBatch(double[][] x, double dt, int from, int to) {
+		double[][] b1 = batchBuffers(x.length, x[0].length).b1;
+		fBatch(x, b1, from, to);
 		for (int i = 0; i < x.length; i++) {
-			xx[i] = x[i] + dt * (y1[i] + 2 * y2[i] + 2 * y3 [i] + y4[i]) / 6;
-			
-		} 
-		
-		return xx;
-	
+			double[] xi = x[i], yi = b1[i];
+			for (int k = from; k < to; k++)
+				xi[k] += dt * yi[k];
+		}
+	}
+
+	// Runge-Kutta Schritt fuer alle Zustaende, x wird ueberschrieben
+	public void rungeBatch(double[][] x, double dt) {
+		rungeBatch(x, dt, 0, x[0].length);
 	}
-	
-	
+
+	// Runge-Kutta Schritt fuer die Zustaende from..to-1. Verschiedene Threads
+	// duerfen disjunkte Bereiche desselben Blocks gleichzeitig rechnen.
+	public void rungeBatch(double[][] x, double dt, int from, int to) {
+		int dim = x.length;
+		BatchBuffers bb = batchBuffers(dim, x[0].length);
+		double[][] b1 = bb.b1, b2 = bb.b2, b3 = bb.b3, b4 = bb.b4, bx = bb.bx;
+		fBatch(x, b1, from, to);
+		for (int i = 0; i < dim; i++) {
+			double[] xi = x[i], yi = b1[i], si = bx[i];
+			for (int k = from; k < to; k++)
+				si[k] = xi[k] + 0.5 * dt * yi[k];
+		}
+		fBatch(bx, b2, from, to);
+		for (int i = 0; i < dim; i++) {
+			double[] xi = x[i], yi = b2[i], si = bx[i];
+			for (int k = from; k < to; k++)
+				si[k] = xi[k] + 0.5 * dt * yi[k];
+		}
+		fBatch(bx, b3, from, to);
+		for (int i = 0; i < dim; i++) {
+			double[] xi = x[i], yi = b3[i], si = bx[i];
+			for (int k = from; k < to; k++)
+				si[k] = xi[k] + dt * yi[k];
+		}
+		fBatch(bx, b4, from, to);
+		for (int i = 0; i < dim; i++) {
+			double[] xi = x[i], y1i = b1[i], y2i = b2[i], y3i = b3[i], y4i = b4[i];
+			for (int k = from; k < to; k++)
+				xi[k] += dt * (y1i[k] + 2 * y2i[k] + 2 * y3i[k] + y4i[k]) / 6;
+		}
+	}
+
+	// Ableitungen der Zustaende from..to-1 in y schreiben. Die Default-Version
+	// geht ueber f(x, y); Unterklassen ueberschreiben sie mit einer Schleife
+	// ueber k, die der JIT vektorisieren kann.
+	public void fBatch(double[][] x, double[][] y, int from, int to) {
+		int dim = x.length;
+		double[] xk = new double[dim];
+		double[] yk = new double[dim];
+		for (int k = from; k < to; k++) {
+			for (int i = 0; i < dim; i++)
+				xk[i] = x[i][k];
+			f(xk, yk);
+			for (int i = 0; i < dim; i++)
+				y[i][k] = yk[i];
+		}
+	}
+
+	private BatchBuffers batchBuffers(int dim, int n) {
+		BatchBuffers bb = batch;
+		if (bb != null && bb.bx.length == dim && bb.bx[0].length == n)
+			return bb;
+		synchronized (this) {
+			bb = batch;
+			if (bb == null || bb.bx.length != dim || bb.bx[0].length != n)
+				batch = bb = new BatchBuffers(dim, n);
+			return bb;
+		}
+	}
+
+
 	public abstract double [] f (double [] x);
-	
-	
-}
\ No newline at end of file
+
+	// Ableitung in den Buffer y schreiben. Unterklassen ueberschreiben diese
+	// Methode, damit pro Schritt keine Arrays erzeugt werden.
+	public void f(double[] x, double[] y) {
+		double[] yy = f(x);
+		System.arraycopy(yy, 0, y, 0, y.length);
+	}
+
+
+}
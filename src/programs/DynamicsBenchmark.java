@@ -0,0 +1,137 @@
+package programs;
+
+//-------------   Benchmark Dynamics (ohne OpenGL)  -------------------
+import java.lang.management.ManagementFactory;
+
+public class DynamicsBenchmark {
+
+	static final int WARMUP = 5;
+	static final int RUNS = 10;
+	static final int STEPS = 1_000_000;
+
+	interface Stepper {
+		void run(double[] x);
+	}
+
+	// misst Zeit und allozierte Bytes pro Schritt
+	static void measure(String name, double[] x0, Stepper stepper) {
+		com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long tid = Thread.currentThread().getId();
+		for (int i = 0; i < WARMUP; i++)
+			stepper.run(x0.clone());
+
+		double[] x = x0.clone();
+		long bytes0 = mx.getThreadAllocatedBytes(tid);
+		long t0 = System.nanoTime();
+		for (int i = 0; i < RUNS; i++) {
+			System.arraycopy(x0, 0, x, 0, x.length);
+			stepper.run(x);
+		}
+		long t1 = System.nanoTime();
+		long bytes1 = mx.getThreadAllocatedBytes(tid);
+
+		double steps = (double) RUNS * STEPS;
+		double nsPerStep = (t1 - t0) / steps;
+		double bytesPerStep = (bytes1 - bytes0) / steps;
+		double mbPerSec = (bytes1 - bytes0) / ((t1 - t0) * 1e-9) / (1024 * 1024);
+		System.out.printf("%-24s %8.2f ns/step %8.1f B/step %10.1f MB/s   x0=%.6f%n", name, nsPerStep, bytesPerStep,
+				mbPerSec, x[0]);
+	}
+
+	// Batch (double[dim][N]) gegen N einzelne Zustaende, Lorenz-System
+	static void measureBatch(LorenzSystem lorenz, int n, double dt) {
+		int steps = Math.max(10, STEPS / n);
+		double[][] xb = new double[3][n];
+		double[][] xs = new double[n][];
+		for (int k = 0; k < n; k++) {
+			xb[0][k] = 40;
+			xb[1][k] = 10 + 0.001 * k;
+			xb[2][k] = 10;
+			xs[k] = new double[] { 40, 10 + 0.001 * k, 10 };
+		}
+		for (int w = 0; w < WARMUP; w++) {
+			for (int i = 0; i < steps; i++) {
+				lorenz.rungeBatch(xb, dt);
+				for (int k = 0; k < n; k++)
+					lorenz.rungeInPlace(xs[k], dt);
+			}
+		}
+		long t0 = System.nanoTime();
+		for (int i = 0; i < steps; i++)
+			lorenz.rungeBatch(xb, dt);
+		long t1 = System.nanoTime();
+		for (int i = 0; i < steps; i++)
+			for (int k = 0; k < n; k++)
+				lorenz.rungeInPlace(xs[k], dt);
+		long t2 = System.nanoTime();
+		double total = (double) steps * n;
+		System.out.printf("N=%-7d batch %6.2f ns/traj-step   scalar %6.2f ns/traj-step%n", n, (t1 - t0) / total,
+				(t2 - t1) / total);
+	}
+
+	// TrajectoryEngine mit 1..maxThreads Threads, Ergebnis muss identisch sein
+	static void measureParallel(LorenzSystem lorenz, int n, int nPunkte, double dt) {
+		float[] ref = null;
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(threads);
+			TrajectoryEngine engine = new TrajectoryEngine(pool, 0);
+			float[] verts = null;
+			long best = Long.MAX_VALUE;
+			for (int r = 0; r < WARMUP; r++) {
+				double[][] x = new double[3][n];
+				for (int k = 0; k < n; k++) {
+					x[0][k] = 40;
+					x[1][k] = 10 + 0.001 * k;
+					x[2][k] = 10;
+				}
+				long t0 = System.nanoTime();
+				verts = engine.integrate(lorenz, x, dt, 0, nPunkte, verts);
+				best = Math.min(best, System.nanoTime() - t0);
+			}
+			pool.shutdown();
+			if (ref == null)
+				ref = verts.clone();
+			System.out.printf("threads=%-3d %8.2f ms  identisch=%b%n", threads, best * 1e-6,
+					java.util.Arrays.equals(ref, verts));
+		}
+	}
+
+	public static void main(String[] args) {
+		final double dt = 0.001;
+
+		final GyroDynamics gyro = new GyroDynamics(1, 2, 3);
+		gyro.setState(1, 2, 4, 30, 3, 1, 2);
+		double[] g0 = gyro.x.clone();
+
+		final LorenzSystem lorenz = new LorenzSystem();
+		double[] l0 = { 40, 10, 10 };
+
+		measure("Gyro runge", g0, x -> {
+			double[] y = x;
+			for (int i = 0; i < STEPS; i++)
+				y = gyro.runge(y, dt);
+			System.arraycopy(y, 0, x, 0, x.length);
+		});
+		measure("Gyro rungeInPlace", g0, x -> {
+			for (int i = 0; i < STEPS; i++)
+				gyro.rungeInPlace(x, dt);
+		});
+		measure("Lorenz runge", l0, x -> {
+			double[] y = x;
+			for (int i = 0; i < STEPS; i++)
+				y = lorenz.runge(y, dt);
+			System.arraycopy(y, 0, x, 0, x.length);
+		});
+		measure("Lorenz rungeInPlace", l0, x -> {
+			for (int i = 0; i < STEPS; i++)
+				lorenz.rungeInPlace(x, dt);
+		});
+
+		for (int n = 1; n <= 16384; n *= 4)
+			measureBatch(lorenz, n, dt);
+
+		measureParallel(lorenz, 4096, 1000, dt);
+	}
+
+}
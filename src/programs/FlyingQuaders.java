@@ -3,22 +3,21 @@ package programs;
 //  -------------   JOGL 3D-Programm  -------------------
 import java.awt.*;
 import java.awt.event.*;
-import java.util.Stack;
 
 import com.jogamp.opengl.*;
 import ch.fhnw.util.math.*;
 import com.jogamp.opengl.awt.*;
 import com.jogamp.opengl.util.FPSAnimator;
 
-public class FlyingQuaders implements WindowListener, GLEventListener, KeyListener {
+public class FlyingQuaders implements WindowListener, GLEventListener, KeyListener, SimulationLoop.Simulation {
 
 	// --------- globale Daten ---------------------------
 
 	String windowTitle = "JOGL-Application";
 	int windowWidth = 800;
 	int windowHeight = 600;
-	String vShader = MyShaders.vShader2; // Vertex-Shader mit
-											// Transformations-Matrizen
+	String vShader = MyShaders.vShader3; // Vertex-Shader mit
+											// Transformations-Matrizen und Instancing
 	String fShader = MyShaders.fShader0; // Fragment-Shader
 	int maxVerts = 2048; // max. Anzahl Vertices im Vertex-Array
 	GLCanvas canvas; // OpenGL Window
@@ -31,7 +30,11 @@ public class FlyingQuaders implements WindowListener, GLEventListener, KeyListen
 	RotKoerper rotk;
 	Quader quad2;
 
-	Stack<Mat4> matrixStack = new Stack<>();
+	SceneNode welt = new SceneNode("welt"); // Szenengraph statt Matrix-Stack
+	SceneGraph szene = new SceneGraph(welt);
+	SceneNode quader1 = welt.add(new SceneNode("quader1"));
+	SceneNode quader2 = welt.add(new SceneNode("quader2"));
+	float[] inst = new float[2 * MyGLBase1.instanceSize]; // Instanz-Daten der Quader
 
 	Mat4 M; // ModelView-Matrix
 	Mat4 P; // Projektions-Matrix
@@ -53,10 +56,24 @@ public class FlyingQuaders implements WindowListener, GLEventListener, KeyListen
 
 	GyroDynamics gyro2;
 
+	// Koerper-Welt: Drehung nur fuer wache Quader, Schlafen beim Bremsen (Taste B)
+	RigidBodyWorld physik = new RigidBodyWorld(2); // 2: Huellkugel der groessten Form (Taste 4)
+	RigidBodyWorld.Body koerper1, koerper2;
+	double tempo1 = 1, tempo2 = 1; // in den Winkelgeschwindigkeiten enthaltener moveSpeed
+	// Tasten (AWT-Thread) nur als Auftrag, ausgefuehrt in step() im Simulations-Thread
+	volatile boolean bremsen;
+	boolean bremsenAktiv;
+	volatile ModifyableQuader neueForm; // Tasten 1-5
+	ModifyableQuader formAktiv;
+
 	Vec3 rgb;
 
+	SimulationLoop loop; // Physik-Thread
+	static String[] programArgs = {}; // -record datei / -replay datei
+	double[] s; // interpolierter Zustand fuer display()
+
 	double t = 0, dt = 0.1; // SLERP Parameter
-	double moveSpeedQuad1 = 0.0025, moveSpeedQuad2 = 0.005;
+	volatile double moveSpeedQuad1 = 0.0025, moveSpeedQuad2 = 0.005;
 	// LookAt-Parameter fuer Kamera-System
 	Vec3 A = new Vec3(0, 0, 4); // Kamera-Pos. (Auge)
 	Vec3 B = new Vec3(0, 0, 0); // Zielpunkt
@@ -109,17 +126,103 @@ public class FlyingQuaders implements WindowListener, GLEventListener, KeyListen
 		gyro2 = new GyroDynamics(a, b, c);
 		gyro2.setState(1, 2, 4, 30, 3, 1, 2);
 
+		koerper1 = physik.add(new RigidBodyWorld.Body(gyro, 1, 2));
+		koerper2 = physik.add(new RigidBodyWorld.Body(gyro2, 1, Math.sqrt(3)));
+		physik.setSleeping(true, 1e-9, 100); // Zeit in Schritten
+
 		rgb = new Vec3(0, 1, 0);
 
+		loop = SimulationLoop.create(this, 1, 200, programArgs); // Physik-Thread, Inkremente pro Schritt wie bisher pro Frame
+		loop.start();
 		FPSAnimator anim = new FPSAnimator(canvas, 200, true);
 		anim.start();
 	}
 
+	// ---------- Physik (im Simulations-Thread) ---------------------------
+
+	@Override
+	public String stateLayout() {
+		return "x,test,y,q0,q1,q2,q3,p0,p1,p2,p3";
+	}
+
+	@Override
+	public int stateSize() {
+		return 11;
+	}
+
+	@Override
+	public void getState(double[] state) {
+		state[0] = x;
+		state[1] = test;
+		state[2] = y;
+		System.arraycopy(gyro.x, 3, state, 3, 4); // Quaternionen
+		System.arraycopy(gyro2.x, 3, state, 7, 4);
+	}
+
+	@Override
+	public void step(double dt) {
+		// Schritt 1 mit w*moveSpeed entspricht gyro.move(moveSpeed)
+		double speed1 = moveSpeedQuad1;
+		if (speed1 != tempo1) {
+			koerper1.scaleAngularVelocity(speed1 / tempo1);
+			tempo1 = speed1;
+		}
+		double speed2 = moveSpeedQuad2;
+		if (speed2 != tempo2) {
+			koerper2.scaleAngularVelocity(speed2 / tempo2);
+			tempo2 = speed2;
+		}
+		ModifyableQuader form = neueForm;
+		if (form != formAktiv) { // neue Traegheit, schlafender Quader wacht auf
+			formAktiv = form;
+			gyro.setGyroDynamics(form.getM(), form.getA(), form.getB(), form.getC());
+			physik.wake(koerper1.index);
+		}
+		boolean b = bremsen;
+		if (b != bremsenAktiv) {
+			bremsenAktiv = b;
+			physik.setDamping(0, b ? 0.01 : 0);
+			if (!b) { // wecken und wieder andrehen
+				physik.wake(koerper1.index);
+				physik.wake(koerper2.index);
+				koerper1.setAngularVelocity(tempo1, 2 * tempo1, 4 * tempo1);
+				koerper2.setAngularVelocity(tempo2, 2 * tempo2, 4 * tempo2);
+			}
+		}
+		physik.setPosition(koerper1, x, test, 0);
+		physik.setPosition(koerper2, y, 0, 0);
+		physik.step(1);
+
+		x += dx;
+		y -= dy;
+
+		test -= dtest;
+
+		if (x > right) {
+			test = top;
+			x = left;
+		}
+
+		// Falls Rand erreicht wird (Randlaenge in diesem Fall = 4)
+		if (y > 4 || y < -4) {
+
+			dy *= -1;
+
+		}
+	}
+
+	// Quaternion ab state[i] (q0 = Skalarteil)
+	private Quaternion orientation(double[] state, int i) {
+		return new Quaternion(state[i + 1], state[i + 2], state[i + 3], state[i]);
+	}
+
 	@Override
 	public void display(GLAutoDrawable drawable) {
 		GL3 gl = drawable.getGL().getGL3();
 		gl.glClear(GL3.GL_COLOR_BUFFER_BIT | GL3.GL_DEPTH_BUFFER_BIT);
 		M = Mat4.ID;
+		s = loop.interpolate(s);
+		double x = s[0], test = s[1], y = s[2];
 
 		// set variables for perspectives
 		Mat4 R1 = Mat4.rotate(-elevation, 1, 0, 0);
@@ -127,7 +230,6 @@ public class FlyingQuaders implements WindowListener, GLEventListener, KeyListen
 		Mat4 R = R1.postMultiply(R2);
 
 		mygl.setM(gl, Mat4.lookAt(R.transform(A), B, R.transform(up))); // Blickrichtung
-		matrixStack.push(M);
 		mygl.setColor(1, 1, 0);
 
 		// mygl.drawAxis(gl, 2, 2, 2); // Koordinatenachsen
@@ -137,63 +239,20 @@ public class FlyingQuaders implements WindowListener, GLEventListener, KeyListen
 		mygl.setShadingLevel(gl, 1);
 		mygl.setColor(1, 1, 0);
 
-		matrixStack.push(M);
-
-		// create first quader
-		M = M.postMultiply(Mat4.translate((float) x, (float) test, 0));
-		matrixStack.push(M);
-
-		double[] states = gyro.getState();
-
-		gyro.move(moveSpeedQuad1);
-
-		M = matrixStack.pop();
-		M = M.postMultiply(Mat4.rotate((float) states[3], new Vec3(states[4], states[5], states[6])));
-
-		mygl.setM(gl, M);
-		mygl.setColor(rgb.x, rgb.y, rgb.z);
-		quad.draw(gl);
-		M = matrixStack.pop();
-		mygl.setM(gl, M);
-
-		// create second quader
-		matrixStack.push(M);
-		M = M.postMultiply(Mat4.translate((float) y, 0, 0));
-		double[] states2 = gyro2.getState();
-
-		gyro2.move(moveSpeedQuad2);
-
-		M = M.postMultiply(Mat4.rotate((float) states2[3], new Vec3(states2[4], states2[5], states2[6])));
-
+		// beide Quader als Instanzen des Einheits-Quaders (ein Draw-Call)
 		mygl.setM(gl, M);
-		// mygl.setShadingLevel(gl, 1);
-
-		mygl.setColor(0, 1, 0);
-		quad2.zeichne(gl, (float) quaderLength - 1, (float) quaderWidth - 1, (float) quaderHeight - 1, true);
+		quader1.setTranslation((float) x, (float) test, 0);
+		quader1.setOrientation(orientation(s, 3));
+		quader1.setScale(quad.getA(), quad.getB(), quad.getC());
+		quader2.setTranslation((float) y, 0, 0);
+		quader2.setOrientation(orientation(s, 7));
+		quader2.setScale((float) quaderLength - 1, (float) quaderWidth - 1, (float) quaderHeight - 1);
+		szene.update();
+		MyGLBase1.putInstance(inst, 0, quader1.getWorldTransform(), rgb.x, rgb.y, rgb.z);
+		MyGLBase1.putInstance(inst, 1, quader2.getWorldTransform(), 0, 1, 0);
+		quad2.zeichneInstanzen(gl, inst, 2, true);
 
-		mygl.setM(gl, M);
-
-		M = matrixStack.pop();
-		mygl.setM(gl, M);
 		mygl.setColor(1, 0, 0);
-
-		x += dx;
-		y -= dy;
-
-		test -= dtest;
-
-		if (x > right) {
-			test = top;
-			x = left;
-		}
-
-		// Falls Rand erricht wird (Randlnge in diesem Fall = 4)
-		if (y > 4 || y < -4) {
-
-			dy *= -1;
-
-		}
-
 	}
 
 	@Override
@@ -214,6 +273,7 @@ public class FlyingQuaders implements WindowListener, GLEventListener, KeyListen
 	// ----------- main-Methode ---------------------------
 
 	public static void main(String[] args) {
+		programArgs = args;
 		new FlyingQuaders();
 	}
 
@@ -221,6 +281,7 @@ public class FlyingQuaders implements WindowListener, GLEventListener, KeyListen
 
 	public void windowClosing(WindowEvent e) {
 		System.out.println("closing window");
+		loop.stop(); // Aufnahme abschliessen
 		System.exit(0);
 	}
 
@@ -284,6 +345,9 @@ public class FlyingQuaders implements WindowListener, GLEventListener, KeyListen
 		if ((e.getKeyChar() == 'L') || (e.getKeyChar() == 'l')) {
 			moveSpeedQuad2 = 0.005;
 		}
+		if ((e.getKeyChar() == 'B') || (e.getKeyChar() == 'b')) {
+			bremsen = !bremsen;
+		}
 
 		char code = e.getKeyChar();
 
@@ -291,27 +355,27 @@ public class FlyingQuaders implements WindowListener, GLEventListener, KeyListen
 
 		case '1':
 			quad = new ModifyableQuader(mygl, quad.getM(), 1, 1, 1);
-			gyro.setGyroDynamics(quad.getM(), quad.getA(), quad.getB(), quad.getC());
+			neueForm = quad;
 			rgb = new Vec3(0, 0, 1);
 			break;
 		case '2':
 			quad = new ModifyableQuader(mygl, quad.getM(), 2, 1, 1);
-			gyro.setGyroDynamics(quad.getM(), quad.getA(), quad.getB(), quad.getC());
+			neueForm = quad;
 			rgb = new Vec3(1, 1, 0);
 			break;
 		case '3':
 			quad = new ModifyableQuader(mygl, quad.getM(), 0.44f, 1.32f, 0.75f);
-			gyro.setGyroDynamics(quad.getM(), quad.getA(), quad.getB(), quad.getC());
+			neueForm = quad;
 			rgb = new Vec3(0, 0, 0.75f);
 			break;
 		case '4':
 			quad = new ModifyableQuader(mygl, quad.getM(), 2, 0.5f, 3);
-			gyro.setGyroDynamics(quad.getM(), quad.getA(), quad.getB(), quad.getC());
+			neueForm = quad;
 			rgb = new Vec3(0, 1, 1);
 			break;
 		case '5': // initial shape
 			quad = new ModifyableQuader(mygl, quad.getM(), 2.5f, 1f, 2f);
-			gyro.setGyroDynamics(quad.getM(), quad.getA(), quad.getB(), quad.getC());
+			neueForm = quad;
 			rgb = new Vec3(0, 1, 0);
 			break;
 		}
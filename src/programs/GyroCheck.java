@@ -0,0 +1,80 @@
+package programs;
+
+//-------------   Kreisel: Runge-Kutta gegen Lie-Gruppen Schritt (ohne OpenGL)  -------------------
+//
+//  Quader (I1 < I2 < I3), Drehung nahe der instabilen mittleren Achse, bis T
+//  integriert. Verglichen werden |q| - 1 und der Winkel zur Referenzlage
+//  (Lie-Schritt mit dt/64). Zum Schluss Zeit pro Schritt.
+//
+//  java programs.GyroCheck      Exit-Code 1, falls |q| beim Lie-Schritt driftet
+public class GyroCheck {
+
+	static final double T = 200;
+
+	static GyroDynamics create() {
+		GyroDynamics g = new GyroDynamics(1f, 2.5f, 1f, 2f);
+		g.setState(0.05, 3, 0.05, 30, 3, 1, 2);
+		return g;
+	}
+
+	static double[] run(boolean lie, double dt) {
+		GyroDynamics g = create();
+		long n = Math.round(T / dt);
+		for (long i = 0; i < n; i++)
+			if (lie)
+				g.lieInPlace(g.x, dt);
+			else
+				g.rungeInPlace(g.x, dt);
+		return g.x;
+	}
+
+	static double norm(double[] x) {
+		return Math.sqrt(x[3] * x[3] + x[4] * x[4] + x[5] * x[5] + x[6] * x[6]);
+	}
+
+	// Drehwinkel [Grad] zwischen den Orientierungen von x und ref (ueber atan2,
+	// acos waere bei kleinen Winkeln zu ungenau)
+	static double angle(double[] x, double[] ref) {
+		double p0 = ref[3], p1 = -ref[4], p2 = -ref[5], p3 = -ref[6]; // ref konjugiert
+		double q0 = x[3], q1 = x[4], q2 = x[5], q3 = x[6];
+		double r0 = p0 * q0 - p1 * q1 - p2 * q2 - p3 * q3;
+		double r1 = p0 * q1 + p1 * q0 + p2 * q3 - p3 * q2;
+		double r2 = p0 * q2 + p2 * q0 + p3 * q1 - p1 * q3;
+		double r3 = p0 * q3 + p3 * q0 + p1 * q2 - p2 * q1;
+		return 2 * Math.atan2(Math.sqrt(r1 * r1 + r2 * r2 + r3 * r3), Math.abs(r0)) * 180 / Math.PI;
+	}
+
+	public static void main(String[] args) {
+		double[] dts = { 0.001, 0.004, 0.016, 0.064, 0.128 };
+		double[] ref = run(true, dts[0] / 64);
+		int fehler = 0;
+		System.out.printf("T = %.0f%n%8s %12s %12s %12s %12s%n", T, "dt", "RK4 |q|-1", "Lie |q|-1", "RK4 Grad",
+				"Lie Grad");
+		for (double dt : dts) {
+			double[] rk = run(false, dt), lie = run(true, dt);
+			double nLie = norm(lie) - 1;
+			if (Math.abs(nLie) > 1e-12)
+				fehler++;
+			System.out.printf("%8.3f %12.1e %12.1e %12.2e %12.2e%n", dt, norm(rk) - 1, nLie, angle(rk, ref),
+					angle(lie, ref));
+		}
+
+		int n = 2_000_000;
+		for (int r = 0; r < 3; r++) { // letzter Durchgang zaehlt
+			GyroDynamics g = create();
+			long t0 = System.nanoTime();
+			for (int i = 0; i < n; i++)
+				g.rungeInPlace(g.x, 1e-3);
+			long t1 = System.nanoTime();
+			for (int i = 0; i < n; i++)
+				g.lieInPlace(g.x, 1e-3);
+			long t2 = System.nanoTime();
+			if (r == 2)
+				System.out.printf("ns/Schritt: RK4 %.1f, Lie %.1f%n", (t1 - t0) / (double) n, (t2 - t1) / (double) n);
+		}
+		System.out.println(fehler == 0 ? "|q| = 1 ohne Normieren" : fehler + " Fehler");
+		if (fehler > 0)
+			System.exit(1);
+	}
+
+}
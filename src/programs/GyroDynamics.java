@@ -1,6 +1,6 @@
 package programs;
 
-import ch.fhnw.util.math.Vec3;
+import ch.fhnw.util.math.Vec3d;
 
 public class GyroDynamics extends Dynamics {
 	double I1, I2, I3; // Traegheitsmomente
@@ -25,24 +25,34 @@ public class GyroDynamics extends Dynamics {
 
 	public void initState(double w1, double w2, double w3, double phi, double x, double y, double z) {
 		double q0 = Math.cos(0.5 * phi * Math.PI / 180);
-		Vec3 n = new Vec3(x, y, z);
+		Vec3d n = new Vec3d(x, y, z);
 		n = n.normalize();
 		double s = Math.sin(0.5 * phi * Math.PI / 180);
 		this.x = new double[] { w1, w2, w3, q0, s * n.x, s * n.y, s * n.z };
 	}
 
 	public double[] f(double[] x) {
+		double[] y = new double[7];
+		f(x, y);
+		return y;
+	}
+
+	@Override
+	public void f(double[] x, double[] y) {
 		double w1 = x[0], w2 = x[1], w3 = x[2];
 		double q0 = x[3], q1 = x[4], q2 = x[5], q3 = x[6];
-		double[] y = { (I2 - I3) / I1 * w2 * w3, (I3 - I1) / I2 * w3 * w1, (I1 - I2) / I3 * w1 * w2,
-				-0.5 * (q1 * w1 + q2 * w2 + q3 * w3), 0.5 * (q0 * w1 + q2 * w3 - q3 * w2),
-				0.5 * (q0 * w2 + q3 * w1 - q1 * w3), 0.5 * (q0 * w3 + q1 * w2 - q2 * w1) };
-		return y;
+		y[0] = (I2 - I3) / I1 * w2 * w3;
+		y[1] = (I3 - I1) / I2 * w3 * w1;
+		y[2] = (I1 - I2) / I3 * w1 * w2;
+		y[3] = -0.5 * (q1 * w1 + q2 * w2 + q3 * w3);
+		y[4] = 0.5 * (q0 * w1 + q2 * w3 - q3 * w2);
+		y[5] = 0.5 * (q0 * w2 + q3 * w1 - q1 * w3);
+		y[6] = 0.5 * (q0 * w3 + q1 * w2 - q2 * w1);
 	}
 
 	public void setState(double w1, double w2, double w3, double phi, double x, double y, double z) {
 		double q0 = Math.cos(0.5 * phi * Math.PI / 180);
-		Vec3 n = new Vec3(x, y, z);
+		Vec3d n = new Vec3d(x, y, z);
 		n = n.normalize();
 		double s = Math.sin(0.5 * phi * Math.PI / 180);
 		this.x = new double[] { w1, w2, w3, q0, s * n.x, s * n.y, s * n.z };
@@ -51,13 +61,62 @@ public class GyroDynamics extends Dynamics {
 	public double[] getState() {
 		double w1 = x[0], w2 = x[1], w3 = x[2];
 		double q0 = x[3], q1 = x[4], q2 = x[5], q3 = x[6];
-		double phi = 2 * Math.acos(q0) * 180 / Math.PI;
+		double phi = 2 * Math.acos(Math.max(-1, Math.min(1, q0))) * 180 / Math.PI;
 		double[] xx = { w1, w2, w3, phi, q1, q2, q3 };
 		return xx;
 	}
 
 	public void move(double dt) {
-		x = runge(x, dt);
+		lieInPlace(x, dt);
+	}
+
+	// Lie-Gruppen Schritt (kommutatorfreies Verfahren 4. Ordnung, Celledoni et al.):
+	// w mit den Runge-Kutta Stufen der Euler-Gleichungen, die Orientierung mit
+	// q <- q * exp(dt/2 W_a) * exp(dt/2 W_b), wobei W_a, W_b Mittel der Stufen sind.
+	// Jeder Faktor ist ein Einheitsquaternion, |q| = 1 bleibt ohne Normieren erhalten.
+	public void lieInPlace(double[] x, double dt) {
+		// Stufen des klassischen Runge-Kutta fuer die Euler-Gleichungen
+		double a1 = x[0], a2 = x[1], a3 = x[2];
+		double f1 = dw1(a2, a3), f2 = dw2(a3, a1), f3 = dw3(a1, a2);
+		double b1 = a1 + 0.5 * dt * f1, b2 = a2 + 0.5 * dt * f2, b3 = a3 + 0.5 * dt * f3;
+		double g1 = dw1(b2, b3), g2 = dw2(b3, b1), g3 = dw3(b1, b2);
+		double c1 = a1 + 0.5 * dt * g1, c2 = a2 + 0.5 * dt * g2, c3 = a3 + 0.5 * dt * g3;
+		double h1 = dw1(c2, c3), h2 = dw2(c3, c1), h3 = dw3(c1, c2);
+		double d1 = a1 + dt * h1, d2 = a2 + dt * h2, d3 = a3 + dt * h3;
+		x[0] += dt * (f1 + 2 * g1 + 2 * h1 + dw1(d2, d3)) / 6;
+		x[1] += dt * (f2 + 2 * g2 + 2 * h2 + dw2(d3, d1)) / 6;
+		x[2] += dt * (f3 + 2 * g3 + 2 * h3 + dw3(d1, d2)) / 6;
+		// W_a = 1/4 a + 1/6 b + 1/6 c - 1/12 d, W_b = -1/12 a + 1/6 b + 1/6 c + 1/4 d
+		double m1 = (b1 + c1) / 6, m2 = (b2 + c2) / 6, m3 = (b3 + c3) / 6;
+		rotate(x, 0.5 * dt, m1 + 0.25 * a1 - d1 / 12, m2 + 0.25 * a2 - d2 / 12, m3 + 0.25 * a3 - d3 / 12);
+		rotate(x, 0.5 * dt, m1 - a1 / 12 + 0.25 * d1, m2 - a2 / 12 + 0.25 * d2, m3 - a3 / 12 + 0.25 * d3);
+	}
+
+	private double dw1(double w2, double w3) {
+		return (I2 - I3) / I1 * w2 * w3;
+	}
+
+	private double dw2(double w3, double w1) {
+		return (I3 - I1) / I2 * w3 * w1;
+	}
+
+	private double dw3(double w1, double w2) {
+		return (I1 - I2) / I3 * w1 * w2;
+	}
+
+	// q <- q * exp(h * (0, u)) mit q = x[3..6] (q0 = Skalarteil)
+	private static void rotate(double[] x, double h, double u1, double u2, double u3) {
+		double n = Math.sqrt(u1 * u1 + u2 * u2 + u3 * u3);
+		double a = h * n;
+		if (a == 0)
+			return;
+		double c = Math.cos(a), s = Math.sin(a) / n;
+		double e1 = s * u1, e2 = s * u2, e3 = s * u3;
+		double q0 = x[3], q1 = x[4], q2 = x[5], q3 = x[6];
+		x[3] = q0 * c - q1 * e1 - q2 * e2 - q3 * e3;
+		x[4] = q0 * e1 + q1 * c + q2 * e3 - q3 * e2;
+		x[5] = q0 * e2 + q2 * c + q3 * e1 - q1 * e3;
+		x[6] = q0 * e3 + q3 * c + q1 * e2 - q2 * e1;
 	}
 
 	public void setGyroDynamics(float m, float a, float b, float c) {
@@ -65,5 +124,6 @@ public class GyroDynamics extends Dynamics {
 		I2 = 1.0f / 12.0f * m * (a * a + c * c);
 		I3 = 1.0f / 12.0f * m * (a * a + b * b);
 		// see script p.73
+		reset(); // neue Traegheitsmomente: f(x) des letzten Schritts gilt nicht mehr
 	}
 }
@@ -0,0 +1,307 @@
+package programs;
+
+//-------------   Simulation ohne OpenGL (Batch-Experimente, Parameter-Sweeps)  -------------------
+//
+//  java programs.HeadlessRunner <kepler|lorenz|gyro> [name=wert | name=start:ende:anzahl ...]
+//                               [--steps N] [--dt dt] [--method euler|runge|dopri]
+//                               [--every k] [--out datei|-] [--threads n]
+//
+//  Beispiel: 200 Lorenz-Bahnen mit rho von 20 bis 30, nur Endzustand:
+//  java programs.HeadlessRunner lorenz rho=20:30:200 --steps 100000 --every 0 --out sweep.csv
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class HeadlessRunner {
+
+	// Empfaenger fuer die Zustaende
+	public interface StateListener {
+		void state(long step, double t, double[] x) throws IOException;
+	}
+
+	// Dynamik mit Anfangszustand
+	public static class Scenario {
+		public final Dynamics dyn;
+		public final double[] x;
+
+		public Scenario(Dynamics dyn, double[] x) {
+			this.dyn = dyn;
+			this.x = x;
+		}
+	}
+
+	// x ueber nSteps Schritte integrieren (x wird ueberschrieben). Der
+	// Listener sieht den Anfangszustand und danach jeden every-ten Zustand,
+	// bei every = 0 nur den Endzustand.
+	public static void run(Dynamics dyn, double[] x, double dt, long nSteps, String method, int every,
+			StateListener listener) throws IOException {
+		if (every > 0 && listener != null)
+			listener.state(0, 0, x);
+		for (long i = 1; i <= nSteps; i++) {
+			switch (method) {
+			case "euler":
+				dyn.eulerInPlace(x, dt);
+				break;
+			case "dopri":
+				dyn.dopri(x, dt);
+				break;
+			case "runge":
+				dyn.rungeInPlace(x, dt);
+				break;
+			default:
+				throw new IllegalArgumentException("unbekannte Methode: " + method);
+			}
+			if (listener != null && ((every > 0 && i % every == 0) || (every <= 0 && i == nSteps)))
+				listener.state(i, i * dt, x);
+		}
+	}
+
+	// schreibt "step,t,x0,x1,..." Zeilen, optional mit fester Praefix-Spalte
+	public static StateListener csvWriter(final Appendable out, final String prefix) {
+		return (step, t, x) -> {
+			if (prefix != null)
+				out.append(prefix).append(',');
+			out.append(Long.toString(step)).append(',').append(Double.toString(t));
+			for (double v : x)
+				out.append(',').append(Double.toString(v));
+			out.append('\n');
+		};
+	}
+
+	// ------  Szenarien  ------
+
+	static final List<String> METHODS = Arrays.asList("euler", "runge", "dopri");
+
+	// Parameter der Szenarien, andere Namen sind Tippfehler
+	static final Map<String, List<String>> PARAMETERS = new LinkedHashMap<>();
+	static {
+		PARAMETERS.put("kepler", Arrays.asList("GM", "x0", "y0", "vx", "vy"));
+		PARAMETERS.put("lorenz", Arrays.asList("sigma", "rho", "beta", "x", "y", "z"));
+		PARAMETERS.put("gyro", Arrays.asList("m", "a", "b", "c", "w1", "w2", "w3", "phi", "ax", "ay", "az"));
+	}
+
+	static void checkParameters(String name, Collection<String> p) {
+		List<String> bekannt = PARAMETERS.get(name);
+		if (bekannt == null)
+			throw new IllegalArgumentException("unbekanntes Szenario: " + name);
+		for (String n : p)
+			if (!bekannt.contains(n))
+				throw new IllegalArgumentException(
+						"unbekannter Parameter fuer " + name + ": " + n + " (" + String.join(", ", bekannt) + ")");
+	}
+
+	static double get(Map<String, Double> p, String name, double def) {
+		Double v = p.get(name);
+		return v == null ? def : v;
+	}
+
+	public static Scenario createScenario(String name, Map<String, Double> p) {
+		checkParameters(name, p.keySet());
+		switch (name) {
+		case "kepler": {
+			double GM = get(p, "GM", 9.81e-6 * 6.378 * 6.378); // Erde wie in Kepler
+			double x0 = get(p, "x0", 42);
+			KeplerDynamics k = new KeplerDynamics(GM);
+			return new Scenario(k, new double[] { x0, get(p, "y0", 0), get(p, "vx", 0),
+					get(p, "vy", Math.sqrt(GM / x0)) });
+		}
+		case "lorenz": {
+			LorenzSystem l = new LorenzSystem(get(p, "sigma", 10), get(p, "rho", 28), get(p, "beta", 8.0 / 3));
+			return new Scenario(l, new double[] { get(p, "x", 40), get(p, "y", 10), get(p, "z", 10) });
+		}
+		case "gyro": {
+			GyroDynamics g = new GyroDynamics((float) get(p, "m", 50), (float) get(p, "a", 2.5),
+					(float) get(p, "b", 1), (float) get(p, "c", 2));
+			g.setState(get(p, "w1", 1), get(p, "w2", 2), get(p, "w3", 4), get(p, "phi", 30), get(p, "ax", 3),
+					get(p, "ay", 1), get(p, "az", 2));
+			return new Scenario(g, g.x);
+		}
+		default:
+			throw new IllegalArgumentException("unbekanntes Szenario: " + name);
+		}
+	}
+
+	// ------  Kommandozeile  ------
+
+	static final String USAGE = "usage: HeadlessRunner <kepler|lorenz|gyro> [name=wert|name=start:ende:anzahl ...]"
+			+ " [--steps N] [--dt dt] [--method euler|runge|dopri] [--every k] [--out datei|-] [--threads n]";
+
+	static void usage(String fehler) {
+		if (fehler != null)
+			System.err.println(fehler);
+		System.err.println(USAGE);
+		System.exit(1);
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0)
+			usage(null);
+		final String scenario = args[0];
+		long steps = 10000;
+		double dt = -1;
+		String method = "runge";
+		int every = 1;
+		String out = "-";
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<String> names = new ArrayList<>();
+		List<double[]> values = new ArrayList<>();
+
+		for (int i = 1; i < args.length; i++) {
+			String a = args[i];
+			if (a.startsWith("--") && i + 1 >= args.length)
+				usage("Wert fehlt nach " + a);
+			try {
+				switch (a) {
+				case "--steps":
+					steps = Long.parseLong(args[++i]);
+					break;
+				case "--dt":
+					dt = Double.parseDouble(args[++i]);
+					break;
+				case "--method":
+					method = args[++i];
+					if (!METHODS.contains(method))
+						throw new IllegalArgumentException("unbekannte Methode (" + String.join(", ", METHODS) + ")");
+					break;
+				case "--every":
+					every = Integer.parseInt(args[++i]);
+					break;
+				case "--out":
+					out = args[++i];
+					break;
+				case "--threads":
+					threads = Integer.parseInt(args[++i]);
+					break;
+				default:
+					int eq = a.indexOf('=');
+					if (eq < 0)
+						throw new IllegalArgumentException("unbekanntes Argument: " + a);
+					names.add(a.substring(0, eq));
+					values.add(parseRange(a.substring(eq + 1)));
+				}
+			} catch (IllegalArgumentException e) { // auch NumberFormatException
+				usage(a + ": " + e.getMessage());
+			}
+		}
+		try {
+			checkParameters(scenario, names);
+		} catch (IllegalArgumentException e) {
+			usage(e.getMessage());
+		}
+		if (dt <= 0)
+			dt = scenario.equals("kepler") ? 24 : 0.001;
+
+		// alle Kombinationen der Parameterwerte
+		List<Map<String, Double>> runs = new ArrayList<>();
+		runs.add(new LinkedHashMap<>());
+		for (int n = 0; n < names.size(); n++) {
+			List<Map<String, Double>> next = new ArrayList<>();
+			for (Map<String, Double> r : runs)
+				for (double v : values.get(n)) {
+					Map<String, Double> m = new LinkedHashMap<>(r);
+					m.put(names.get(n), v);
+					next.add(m);
+				}
+			runs = next;
+		}
+
+		final long nSteps = steps;
+		final double fdt = dt;
+		final String fmethod = method;
+		final int fevery = every;
+		final boolean perFile = out.contains("%d");
+		final String fout = out;
+		final boolean mehrere = runs.size() > 1;
+
+		// Jeder Lauf schreibt waehrend der Integration in eine eigene Datei (bei
+		// einer gemeinsamen Ausgabe temporaer). Der Haupt-Thread haengt die Dateien
+		// in der Reihenfolge der Laeufe an und loescht sie gleich danach, es liegt
+		// also nie ein ganzer Lauf im Speicher.
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+			Thread t = new Thread(r, "HeadlessRunner");
+			t.setDaemon(true); // ein haengender Lauf haelt die JVM nicht auf
+			return t;
+		});
+		List<Future<File>> results = new ArrayList<>();
+		long t0 = System.nanoTime();
+		boolean ok = false;
+		try {
+			for (int r = 0; r < runs.size(); r++) {
+				final int run = r;
+				final Map<String, Double> params = runs.get(r);
+				results.add(pool.submit(() -> {
+					Scenario sc = createScenario(scenario, params);
+					String prefix = mehrere ? prefix(run, params) : null;
+					File file = perFile ? new File(String.format(fout, run)) : File.createTempFile("headless", ".csv");
+					if (!perFile)
+						file.deleteOnExit();
+					try (Writer w = new BufferedWriter(new FileWriter(file))) {
+						run(sc.dyn, sc.x, fdt, nSteps, fmethod, fevery, csvWriter(w, prefix));
+					}
+					return perFile ? null : file;
+				}));
+			}
+
+			OutputStream os = out.equals("-") ? System.out
+					: perFile ? null : new BufferedOutputStream(new FileOutputStream(out));
+			try {
+				for (int i = 0; i < results.size(); i++) {
+					File f = results.get(i).get();
+					results.set(i, null);
+					if (f != null) {
+						java.nio.file.Files.copy(f.toPath(), os);
+						f.delete();
+					}
+				}
+			} finally {
+				if (os != null)
+					os.flush();
+				if (os != null && os != System.out)
+					os.close();
+			}
+			ok = true;
+		} catch (ExecutionException e) {
+			System.err.println("Lauf fehlgeschlagen: " + e.getCause());
+		} finally {
+			pool.shutdownNow();
+			for (Future<File> f : results) // nicht mehr kopierte Zwischendateien
+				if (f != null && f.isDone() && !f.isCancelled())
+					try {
+						File file = f.get();
+						if (file != null)
+							file.delete();
+					} catch (ExecutionException e) {
+						// schon gemeldet oder ohne Datei
+					}
+		}
+		if (!ok)
+			System.exit(1);
+		System.err.printf("%d Laeufe a %d Schritte in %.2f s%n", runs.size(), nSteps, (System.nanoTime() - t0) * 1e-9);
+	}
+
+	static String prefix(int run, Map<String, Double> params) {
+		StringBuilder sb = new StringBuilder(Integer.toString(run));
+		for (double v : params.values())
+			sb.append(',').append(v);
+		return sb.toString();
+	}
+
+	// "wert" oder "start:ende:anzahl" mit anzahl >= 1
+	static double[] parseRange(String s) {
+		String[] p = s.split(":", -1);
+		if (p.length == 1)
+			return new double[] { Double.parseDouble(p[0]) };
+		if (p.length != 3)
+			throw new IllegalArgumentException("erwartet wert oder start:ende:anzahl, nicht " + s);
+		double a = Double.parseDouble(p[0]), b = Double.parseDouble(p[1]);
+		int n = Integer.parseInt(p[2]);
+		if (n < 1)
+			throw new IllegalArgumentException("anzahl muss mindestens 1 sein: " + s);
+		double[] v = new double[n];
+		for (int i = 0; i < n; i++)
+			v[i] = n == 1 ? a : a + (b - a) * i / (n - 1);
+		return v;
+	}
+
+}
@@ -0,0 +1,107 @@
+package programs;
+
+//-------------   Verlauf mit Keyframes und Deltas: Speicher, Aufnahme, Sprung  -------------------
+//
+//  java programs.HistoryBenchmark [schritte in millionen]
+//
+//  Nimmt eine Kepler-Bahn (Zustand wie in Kepler: x, y, vx, vy, phi, dt = 24)
+//  mit Velocity-Verlet in StateHistory auf. Ausgegeben werden Bytes pro Schritt
+//  gegen 40 Bytes roh, ns pro record() und pro Sprung zu einem zufaelligen
+//  Schritt, verglichen mit dem Neu-Integrieren ab dem Start. Danach: jeder
+//  Sprung bitgleich, Verdraengen der aeltesten Segmente und Abschneiden nach
+//  dem Zurueckspulen.
+import java.util.Random;
+
+public class HistoryBenchmark {
+
+	static final double DT = 24;
+	static final int K = 64;
+
+	static class Bahn {
+		final KeplerDynamics dyn = new KeplerDynamics(KeplerBenchmark.GM);
+		final double[] z = KeplerBenchmark.startState(), state = new double[5];
+		double phi = 1;
+
+		double[] step() {
+			dyn.verletInPlace(z, DT);
+			phi += 0.2f;
+			System.arraycopy(z, 0, state, 0, 4);
+			state[4] = phi;
+			return state;
+		}
+	}
+
+	public static void main(String[] args) {
+		int schritte = (args.length > 0 ? Integer.parseInt(args[0]) : 4) * 1_000_000;
+		boolean ok = true;
+
+		// Referenz: alle Zustaende
+		double[][] ref = new double[schritte][];
+		Bahn b = new Bahn();
+		for (int i = 0; i < schritte; i++)
+			ref[i] = b.step().clone();
+
+		StateHistory h = new StateHistory(5, K, 256 << 20);
+		for (int i = 0; i < 1000; i++) // aufwaermen
+			h.record(ref[i]);
+		h.clear(0);
+		long t0 = System.nanoTime();
+		for (int i = 0; i < schritte; i++)
+			h.record(ref[i]);
+		double record = (System.nanoTime() - t0) / (double) schritte;
+		double bytes = (double) h.getBytes() / schritte;
+
+		Random rnd = new Random(1);
+		double[] out = new double[5];
+		int spruenge = 200_000;
+		long[] ziel = new long[spruenge];
+		for (int i = 0; i < spruenge; i++)
+			ziel[i] = (long) (rnd.nextDouble() * schritte);
+		t0 = System.nanoTime();
+		for (int i = 0; i < spruenge; i++)
+			h.restore(ziel[i], out);
+		double sprung = (System.nanoTime() - t0) / (double) spruenge;
+		for (int i = 0; i < spruenge; i++) {
+			ok &= h.restore(ziel[i], out);
+			for (int k = 0; k < 5; k++)
+				ok &= Double.doubleToRawLongBits(out[k]) == Double.doubleToRawLongBits(ref[(int) ziel[i]][k]);
+		}
+
+		// Neu-Integrieren bis zum Ende, so teuer waere ein Sprung ohne Verlauf
+		t0 = System.nanoTime();
+		Bahn neu = new Bahn();
+		for (int i = 0; i < schritte; i++)
+			neu.step();
+		double integrieren = (System.nanoTime() - t0) * 1e-6;
+		ok &= neu.state[0] == ref[schritte - 1][0];
+
+		System.out.printf("Schritte %d, Keyframe alle %d%n", schritte, K);
+		System.out.printf("%-26s %8.1f Bytes (roh 40, %.0f %%)%n", "pro Schritt", bytes, 100 * bytes / 40);
+		System.out.printf("%-26s %8.1f ns%n", "record()", record);
+		System.out.printf("%-26s %8.1f ns%n", "Sprung (restore)", sprung);
+		System.out.printf("%-26s %8.1f ms%n", "bis zum Ende integrieren", integrieren);
+
+		// Ring voll: aelteste Segmente fallen weg, der Rest bleibt lesbar
+		StateHistory klein = new StateHistory(5, K, 1 << 20);
+		for (int i = 0; i < schritte; i++)
+			klein.record(ref[i]);
+		long first = klein.getFirstStep();
+		ok &= first > 0 && first % K == 0 && klein.getLastStep() == schritte - 1 && klein.getBytes() <= 1 << 20;
+		ok &= !klein.restore(first - 1, out) && klein.restore(first, out) && out[0] == ref[(int) first][0];
+		System.out.printf("%-26s %8d Schritte in 1 MB%n", "kleiner Ring", schritte - first);
+
+		// Zurueckspulen und anders weiter: danach gilt der neue Verlauf
+		long zurueck = schritte - 5 * K - 17;
+		klein.truncate(zurueck);
+		double[] anders = { 1, 2, 3, 4, 5 };
+		for (int i = 0; i < 3 * K; i++)
+			klein.record(anders);
+		ok &= klein.getLastStep() == zurueck + 3 * K && klein.restore(zurueck, out) && out[1] == ref[(int) zurueck][1];
+		ok &= klein.restore(zurueck + 1, out) && out[2] == 3 && klein.restore(zurueck + 3 * K, out) && out[4] == 5;
+
+		System.out.println(ok ? "Alle Spruenge bitgleich" : "FEHLER");
+		if (!ok)
+			System.exit(1);
+	}
+
+}
@@ -4,14 +4,13 @@ package programs;
 //  -------------   JOGL EllipseMitGedrehtenHalbachsen-Programm  -------------------
 import java.awt.*;
 import java.awt.event.*;
-import java.util.Stack;
 
 import com.jogamp.opengl.*;
 import com.jogamp.opengl.awt.*;
 import com.jogamp.opengl.util.*;
 import ch.fhnw.util.math.*;
 
-public class Kepler implements WindowListener, GLEventListener, KeyListener {
+public class Kepler implements WindowListener, GLEventListener, KeyListener, SimulationLoop.Restorable {
 
 	// --------- globale Daten ---------------------------
 
@@ -28,7 +27,7 @@ public class Kepler implements WindowListener, GLEventListener, KeyListener {
 	Mat4 P = Mat4.ID; // Proj. Matrix
 	// float drehwinkel = 30;
 	// Koordinaten fr P
-	double ybottom, ytop;
+	volatile double ybottom, ytop;
 	float xleft = -60, xright = 60; // ViewingVol
 	float znear = -100, zfar = 100;
 
@@ -45,10 +44,10 @@ public class Kepler implements WindowListener, GLEventListener, KeyListener {
 	double y = y0;
 	double vx = v0x;
 	double vy = v0y;
-	double ax = 0;
-	double ay = -g;
-	double dt = 120; // Zeitschritt
-	boolean stopped = false;
+	KeplerDynamics dynamics = new KeplerDynamics(GM);
+	double[] z = new double[4]; // Zustand { x, y, vx, vy } fuer den Integrator
+	double dt = 24; // Zeitschritt (1000 Schritte/s)
+	volatile boolean stopped = false;
 	// fr Erde
 	static double g = 9.81e-6; // Erdbeschl. [E/s^2]
 	static double rE = 6.378; // Erdradius [e]
@@ -66,17 +65,25 @@ public class Kepler implements WindowListener, GLEventListener, KeyListener {
 	Vec3 B = new Vec3(0, 0, 0); // Zielpunkt
 	Vec3 up = new Vec3(0, 1, 0); // up-Richtung
 
-	// Winkelevaluationen
-	Stack<Mat4> matrixStack = new Stack<Mat4>();
+	// Szenengraph statt Matrix-Stack, Welt-Matrizen werden nur bei Aenderung berechnet
+	SceneNode welt = new SceneNode("welt");
+	SceneGraph szene = new SceneGraph(welt);
+	SceneNode erde = welt.add(new SceneNode("erde")); // dreht um die y-Achse
+	SceneNode bahn = welt.add(new SceneNode("bahn")); // Bahnebene, fest
+	SceneNode speer = welt.add(new SceneNode("speer")); // Position und Richtung des Satelliten
 
 	float elevation = 10;
 	float azimut = 40;
 	
 	RotKoerper rotk;
+	SimulationLoop loop; // Physik-Thread
+	static String[] programArgs = {}; // -record datei / -replay datei
+	double[] s; // interpolierter Zustand fuer display()
 	// --------- Methoden ----------------------------------
 
 	public Kepler() // Konstruktor
 	{
+		bahn.setRotation(-90, 0, -90); // Bahnebene: -90 Grad um x, dann -90 Grad um z
 		createFrame();
 	}
 
@@ -136,12 +143,70 @@ public class Kepler implements WindowListener, GLEventListener, KeyListener {
 																		// Shader-Programme
 		mygl = new MyGLBase1(gl, programId, maxVerts); // OpenGL
 														// Basis-Funktionen
+		loop = SimulationLoop.create(this, dt, 1000, programArgs);
+		loop.keepHistory(64, 16 << 20); // Verlauf fuer z/v
+		loop.start();
 		FPSAnimator anim = new FPSAnimator(canvas, 200, true);
 		anim.start();
 		rotk = new RotKoerper(mygl);
 		gl.glEnable(GL3.GL_DEPTH_TEST);
 	}
 
+	// ---------- Physik (im Simulations-Thread) ---------------------------
+
+	@Override
+	public String stateLayout() {
+		return "x,y,vx,vy,phi";
+	}
+
+	@Override
+	public int stateSize() {
+		return 5;
+	}
+
+	@Override
+	public void getState(double[] state) {
+		state[0] = x;
+		state[1] = y;
+		state[2] = vx;
+		state[3] = vy;
+		state[4] = phi;
+	}
+
+	@Override
+	public void setState(double[] state) {
+		x = state[0];
+		y = state[1];
+		vx = state[2];
+		vy = state[3];
+		phi = (float) state[4];
+	}
+
+	@Override
+	public void step(double dt) {
+		phi += 0.2f;
+
+		if (stopped)
+			return;
+
+		// Velocity-Verlet: Energiefehler bleibt beschraenkt, auch bei grossem dt
+		z[0] = x;
+		z[1] = y;
+		z[2] = vx;
+		z[3] = vy;
+		dynamics.verletInPlace(z, dt);
+		x = z[0];
+		y = z[1];
+		vx = z[2];
+		vy = z[3];
+		if (y < ybottom) {
+			x = x0;
+			y = y0;
+			vx = v0x;
+			vy = v0y;
+		}
+	}
+
 	@Override
 	public void display(GLAutoDrawable drawable) {
 		GL3 gl = drawable.getGL().getGL3();
@@ -149,6 +214,9 @@ public class Kepler implements WindowListener, GLEventListener, KeyListener {
 		mygl.setColor(0, 1, 0); // Farbe der Vertices
 
 		double alpha = 0;
+		s = loop.interpolate(s);
+		double x = s[0], y = s[1], vx = s[2], vy = s[3];
+		float phi = (float) s[4];
 		// Quader viereck = new Quader(mygl);
 		// viereck.zeichne(gl, a, b, c, true);
 		M = Mat4.ID;
@@ -161,13 +229,15 @@ public class Kepler implements WindowListener, GLEventListener, KeyListener {
 		M = Mat4.lookAt(R.transform(A), B, R.transform(up));
 		mygl.setM(gl, M); // Blickrichtung
 		mygl.drawAxis(gl, 50, 50, 50);
-		
-		matrixStack.push(M);
-		
+
+		alpha = (Math.atan(vy / vx)) * (180 / Math.PI);
+		erde.setRotation(0, phi, 0);
+		speer.setTranslation((float) x, (float) y, 0);
+		speer.setRotation(0, 0, (float) alpha);
+		szene.update();
+
 		// Objektsystem fr die Erde
-		M = M.postMultiply(Mat4.rotate(phi, 0,1,0));
-		phi++;
-		mygl.setM(gl, M); // Blickrichtung
+		mygl.setM(gl, M.postMultiply(erde.getWorldTransform()));
 		
 		// Erde zeichnen
 		gl.glEnable(gl.GL_POLYGON_OFFSET_FILL);
@@ -180,46 +250,17 @@ public class Kepler implements WindowListener, GLEventListener, KeyListener {
 		rotk.zeichneKugel(gl, (float)rE, 20, 20, false);
 		// Erde ende
 		
-		M = matrixStack.pop();
-		mygl.setM(gl, M);
-		M = M.postMultiply(Mat4.rotate(-90, 1,0,0));
-		// drehung um z-Achse
-		M = M.postMultiply(Mat4.rotate(-90, 0,0,1));
-		mygl.setM(gl, M);
+		// Bahnebene
+		mygl.setM(gl, M.postMultiply(bahn.getWorldTransform()));
 		
 	
 		//zeichneKreis(gl, (float) rE, 0, 0, 20);
 		zeichneKreis(gl, (float) (0.1 * rE), (float) x, (float) y, 20);
 		
 
-		M = Mat4.translate((float) x, (float) y, 0);
-		alpha = (Math.atan(vy / vx)) * (180 / Math.PI);
-		M = M.postMultiply(Mat4.rotate((float) alpha, 0, 0, 1));
+		M = speer.getWorldTransform(); // wie bisher ohne Kamera
 		mygl.setM(gl, M);
 		zeichneSpeer(gl, 1.2f, 0.04f, 0.2f);
-
-		// eulerischer Algorythmus 2D
-		if (stopped)
-			return;
-
-		x = x + vx * dt;
-		y = y + vy * dt;
-		double r = Math.sqrt(x * x + y * y);
-		double r3 = r * r * r;
-		ax = -GM * x / r3;
-		ay = -GM * y / r3;
-
-		vx = vx + ax * dt;
-		vy = vy + ay * dt;
-		if (y < ybottom) {
-			x = x0;
-			y = y0;
-			vx = v0x;
-			vy = v0y;
-		}
-
-		// y = y + v*dt;
-		// v = v + -g*dt;
 	}
 
 	public void zeichneDreieck(GL3 gl, float x1, float y1, float x2, float y2, float x3, float y3) {
@@ -265,6 +306,7 @@ public class Kepler implements WindowListener, GLEventListener, KeyListener {
 	// ----------- main-Methode ---------------------------
 
 	public static void main(String[] args) {
+		programArgs = args;
 		new Kepler();
 	}
 
@@ -272,6 +314,7 @@ public class Kepler implements WindowListener, GLEventListener, KeyListener {
 
 	public void windowClosing(WindowEvent e) {
 		System.out.println("closing window");
+		loop.stop(); // Aufnahme abschliessen
 		System.exit(0);
 	}
 
@@ -329,6 +372,15 @@ public class Kepler implements WindowListener, GLEventListener, KeyListener {
 		if (code == 's') {
 			stopped = true;
 		}
+		if (code == 'w') { // weiter
+			stopped = false;
+		}
+		if (code == 'z') { // 1 s zurueckspulen
+			loop.skip(-1000);
+		}
+		if (code == 'v') { // 1 s vorspulen
+			loop.skip(1000);
+		}
 
 	}
 
@@ -0,0 +1,84 @@
+package programs;
+
+//-------------   Kepler-Bahn: f-Auswertungen bis zu einem Energiefehler  -------------------
+public class KeplerBenchmark {
+
+	static final double g = 9.81e-6; // Erdbeschl. [E/s^2]
+	static final double rE = 6.378; // Erdradius [E]
+	static final double GM = g * rE * rE;
+	static final int ORBITS = 10;
+	static final int SAMPLES = 100; // Energie-Kontrollen pro Umlauf
+
+	static class CountingKepler extends KeplerDynamics {
+		long nEval = 0;
+
+		CountingKepler() {
+			super(KeplerBenchmark.GM);
+		}
+
+		@Override
+		public void f(double[] x, double[] y) {
+			nEval++;
+			super.f(x, y);
+		}
+	}
+
+	static double[] startState() {
+		double x0 = 42;
+		return new double[] { x0, 0, 0, 0.6 * Math.sqrt(GM / x0) }; // exzentrische Bahn
+	}
+
+	// max. relativer Energiefehler mit RK4 und nPerOrbit Schritten pro Umlauf
+	static double driftRunge(CountingKepler k, int nPerOrbit) {
+		double[] x = startState();
+		double e0 = k.energy(x);
+		double dt = k.period(x) / nPerOrbit;
+		int every = Math.max(1, nPerOrbit / SAMPLES);
+		double drift = 0;
+		for (int i = 1; i <= ORBITS * nPerOrbit; i++) {
+			k.rungeInPlace(x, dt);
+			if (i % every == 0)
+				drift = Math.max(drift, Math.abs((k.energy(x) - e0) / e0));
+		}
+		return drift;
+	}
+
+	// max. relativer Energiefehler mit Dormand-Prince und Toleranz tol
+	static double driftDopri(CountingKepler k, double tol) {
+		double[] x = startState();
+		double e0 = k.energy(x);
+		double dt = k.period(x) / SAMPLES;
+		k.setTolerance(tol, tol);
+		double drift = 0;
+		for (int i = 0; i < ORBITS * SAMPLES; i++) {
+			k.dopri(x, dt);
+			drift = Math.max(drift, Math.abs((k.energy(x) - e0) / e0));
+		}
+		return drift;
+	}
+
+	public static void main(String[] args) {
+		double[] targets = { 1e-3, 1e-5, 1e-7, 1e-9 };
+		System.out.printf("%-10s %14s %14s %8s%n", "drift", "RK4 f-evals", "RK45 f-evals", "ratio");
+		for (double target : targets) {
+			long evRunge = -1;
+			for (int n = 16; n <= (1 << 22); n *= 2) {
+				CountingKepler k = new CountingKepler();
+				if (driftRunge(k, n) <= target) {
+					evRunge = k.nEval;
+					break;
+				}
+			}
+			long evDopri = -1;
+			for (double tol = 1e-2; tol >= 1e-14; tol /= 2) {
+				CountingKepler k = new CountingKepler();
+				if (driftDopri(k, tol) <= target) {
+					evDopri = k.nEval;
+					break;
+				}
+			}
+			System.out.printf("%-10.0e %14d %14d %8.2f%n", target, evRunge, evDopri, (double) evRunge / evDopri);
+		}
+	}
+
+}
@@ -0,0 +1,46 @@
+package programs;
+
+// Satellit im Gravitationsfeld der Erde (2D), Zustand { x, y, vx, vy }
+public class KeplerDynamics extends SeparableDynamics {
+	double GM;
+
+	public KeplerDynamics(double GM) {
+		this.GM = GM;
+	}
+
+	public double[] f(double[] x) {
+		double[] y = new double[4];
+		f(x, y);
+		return y;
+	}
+
+	@Override
+	public void f(double[] x, double[] y) {
+		double r = Math.sqrt(x[0] * x[0] + x[1] * x[1]);
+		double r3 = r * r * r;
+		y[0] = x[2];
+		y[1] = x[3];
+		y[2] = -GM * x[0] / r3;
+		y[3] = -GM * x[1] / r3;
+	}
+
+	@Override
+	public void acceleration(double[] x, double[] a) {
+		double r = Math.sqrt(x[0] * x[0] + x[1] * x[1]);
+		double r3 = r * r * r;
+		a[0] = -GM * x[0] / r3;
+		a[1] = -GM * x[1] / r3;
+	}
+
+	// spezifische Energie (pro Masse)
+	public double energy(double[] x) {
+		double r = Math.sqrt(x[0] * x[0] + x[1] * x[1]);
+		return 0.5 * (x[2] * x[2] + x[3] * x[3]) - GM / r;
+	}
+
+	// Umlaufzeit der Ellipse mit der Energie des Zustands x
+	public double period(double[] x) {
+		double a = -GM / (2 * energy(x));
+		return 2 * Math.PI * Math.sqrt(a * a * a / GM);
+	}
+}
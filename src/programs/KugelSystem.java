@@ -0,0 +1,162 @@
+package programs;
+
+//-------------   Viele Kugeln (2D: Kreise) mit Stoessen, ohne OpenGL  -------------------
+//
+//  Broad-Phase: SpatialHash mit Zellengroesse = groesster Durchmesser,
+//  die Zellen werden nach jedem Schritt nur fuer Kugeln nachgefuehrt,
+//  welche die Zelle wechseln. Narrow-Phase: Stoss entlang der
+//  Verbindungslinie wie in Stoss2D.stoss (Stosszahl k).
+import java.util.Arrays;
+
+public class KugelSystem {
+
+	final boolean dreiD;
+	final double maxRadius;
+	double stossZahl = 1;
+	double xmin = -Double.MAX_VALUE, xmax = Double.MAX_VALUE; // Waende
+	double ymin = -Double.MAX_VALUE, ymax = Double.MAX_VALUE;
+	double zmin = -Double.MAX_VALUE, zmax = Double.MAX_VALUE;
+
+	int n = 0; // Anzahl Kugeln
+	double[] x, y, z, vx, vy, vz, r, m;
+	final SpatialHash grid;
+	long nStoesse; // Stoesse im letzten Schritt
+
+	public KugelSystem(boolean dreiD, double maxRadius, int capacity) {
+		this.dreiD = dreiD;
+		this.maxRadius = maxRadius;
+		grid = new SpatialHash(2 * maxRadius, dreiD, capacity);
+		x = new double[capacity];
+		y = new double[capacity];
+		z = new double[capacity];
+		vx = new double[capacity];
+		vy = new double[capacity];
+		vz = new double[capacity];
+		r = new double[capacity];
+		m = new double[capacity];
+	}
+
+	public void setStossZahl(double k) {
+		stossZahl = k;
+	}
+
+	public void setBox(double xmin, double xmax, double ymin, double ymax, double zmin, double zmax) {
+		this.xmin = xmin;
+		this.xmax = xmax;
+		this.ymin = ymin;
+		this.ymax = ymax;
+		this.zmin = zmin;
+		this.zmax = zmax;
+	}
+
+	// Kugel anhaengen, gibt ihren Index zurueck
+	public int add(double r, double m, double x, double y, double z, double vx, double vy, double vz) {
+		if (r > maxRadius)
+			throw new IllegalArgumentException("Radius " + r + " groesser als maxRadius " + maxRadius);
+		if (n == this.x.length) {
+			int c = Math.max(16, 2 * n);
+			this.x = Arrays.copyOf(this.x, c);
+			this.y = Arrays.copyOf(this.y, c);
+			this.z = Arrays.copyOf(this.z, c);
+			this.vx = Arrays.copyOf(this.vx, c);
+			this.vy = Arrays.copyOf(this.vy, c);
+			this.vz = Arrays.copyOf(this.vz, c);
+			this.r = Arrays.copyOf(this.r, c);
+			this.m = Arrays.copyOf(this.m, c);
+		}
+		int i = n++;
+		this.r[i] = r;
+		this.m[i] = m;
+		this.x[i] = x;
+		this.y[i] = y;
+		this.z[i] = dreiD ? z : 0;
+		this.vx[i] = vx;
+		this.vy[i] = vy;
+		this.vz[i] = dreiD ? vz : 0;
+		grid.update(i, x, y, this.z[i]);
+		return i;
+	}
+
+	public int size() {
+		return n;
+	}
+
+	public long getStoesse() {
+		return nStoesse;
+	}
+
+	// ein Zeitschritt: Stoesse aufloesen, dann bewegen
+	public void step(double dt) {
+		nStoesse = 0;
+		grid.forEachPair(this::stoss);
+		move(dt);
+	}
+
+	// dasselbe mit Vergleich aller Paare (O(n^2), zum Vergleich)
+	public void stepBruteForce(double dt) {
+		nStoesse = 0;
+		for (int i = 0; i < n; i++)
+			for (int j = i + 1; j < n; j++)
+				stoss(i, j);
+		move(dt);
+	}
+
+	void move(double dt) {
+		for (int i = 0; i < n; i++) {
+			x[i] += vx[i] * dt;
+			y[i] += vy[i] * dt;
+			z[i] += vz[i] * dt;
+			if ((x[i] - r[i] < xmin && vx[i] < 0) || (x[i] + r[i] > xmax && vx[i] > 0))
+				vx[i] = -vx[i];
+			if ((y[i] - r[i] < ymin && vy[i] < 0) || (y[i] + r[i] > ymax && vy[i] > 0))
+				vy[i] = -vy[i];
+			if ((z[i] - r[i] < zmin && vz[i] < 0) || (z[i] + r[i] > zmax && vz[i] > 0))
+				vz[i] = -vz[i];
+			grid.update(i, x[i], y[i], z[i]); // nur bei Zellwechsel Arbeit
+		}
+	}
+
+	final double[] vv = new double[2];
+
+	// Stoss zweier Kugeln entlang der Verbindungslinie, nur wenn sie sich
+	// beruehren und aufeinander zu bewegen (sonst wuerde ein ueberlappendes
+	// Paar in jedem Schritt erneut gestossen)
+	void stoss(int i, int j) {
+		double dx = x[j] - x[i], dy = y[j] - y[i], dz = z[j] - z[i];
+		double d2 = dx * dx + dy * dy + dz * dz;
+		double rr = r[i] + r[j];
+		if (d2 > rr * rr || d2 == 0)
+			return;
+		double d = Math.sqrt(d2);
+		double nx = dx / d, ny = dy / d, nz = dz / d;
+		double v1n = vx[i] * nx + vy[i] * ny + vz[i] * nz;
+		double v2n = vx[j] * nx + vy[j] * ny + vz[j] * nz;
+		if (v1n - v2n <= 0)
+			return;
+		stoss1D(m[i], v1n, m[j], v2n, stossZahl, vv);
+		double d1 = vv[0] - v1n, d2n = vv[1] - v2n; // Tangentialkomponenten bleiben
+		vx[i] += d1 * nx;
+		vy[i] += d1 * ny;
+		vz[i] += d1 * nz;
+		vx[j] += d2n * nx;
+		vy[j] += d2n * ny;
+		vz[j] += d2n * nz;
+		nStoesse++;
+	}
+
+	// gerader Stoss mit Stosszahl k, Resultat in vv
+	public static double[] stoss1D(double m1, double v1, double m2, double v2, double k, double[] vv) {
+		vv[0] = (m1 * v1 + m2 * v2 - (v1 - v2) * m2 * k) / (m1 + m2);
+		vv[1] = (m1 * v1 + m2 * v2 - (v2 - v1) * m1 * k) / (m1 + m2);
+		return vv;
+	}
+
+	// Summe der kinetischen Energien
+	public double energy() {
+		double e = 0;
+		for (int i = 0; i < n; i++)
+			e += 0.5 * m[i] * (vx[i] * vx[i] + vy[i] * vy[i] + vz[i] * vz[i]);
+		return e;
+	}
+
+}
@@ -40,16 +40,7 @@ public class Lorenz implements WindowListener, GLEventListener, KeyListener {
 	Vec3 B = new Vec3(0, 0, 0); // Zielpunkt
 	Vec3 up = new Vec3(0, 1, 0); // up-Richtung
 
-	class LorenzDynamics extends Dynamics {
-
-		@Override
-		public double[] f(double[] x) {
-			// TODO Auto-generated method stub
-			double x1 = x[0], x2 = x[1], x3 = x[2];
-			double[] y = { 10 * x2 - 10 * x1, 28 * x1 - x2 - x1 * x3, x1 * x2 - 8 * x3 / 3 };
-
-			return y;
-		}
+	static class LorenzDynamics extends LorenzSystem {
 
 		public void zeichneBahnlo(MyGLBase1 mygl, GL3 gl, double xStart, double yStart, double zStart, double dt,
 				double nSchritte) {
@@ -60,7 +51,7 @@ public class Lorenz implements WindowListener, GLEventListener, KeyListener {
 
 			mygl.putVertex((float) x[0], (float) x[1], (float) x[2]);
 			for (int i = 1; i < nSchritte; i++) {
-				x = runge(x, dt);
+				rungeInPlace(x, dt);
 				mygl.putVertex((float) x[0], (float) x[1], (float) x[2]);
 			}
 			mygl.copyBuffer(gl);
@@ -68,9 +59,78 @@ public class Lorenz implements WindowListener, GLEventListener, KeyListener {
 
 		}
 
+		float[] bahnen; // Vertices aller Bahnen, Bahn k ab 3*k*nSchritte
+		TrajectoryEngine engine = new TrajectoryEngine();
+
+		// mehrere Bahnen parallel integrieren, start[k] = { x, y, z }
+		public void zeichneBahnenlo(MyGLBase1 mygl, GL3 gl, double[][] start, double dt, int nSchritte) {
+			int n = start.length;
+			double[][] x = new double[3][n];
+			for (int k = 0; k < n; k++) {
+				x[0][k] = start[k][0];
+				x[1][k] = start[k][1];
+				x[2][k] = start[k][2];
+			}
+			bahnen = engine.integrate(this, x, dt, 0, nSchritte, bahnen);
+
+			for (int k = 0; k < n; k++) {
+				mygl.rewindBuffer(gl);
+				mygl.putVertices(bahnen, 3 * k * nSchritte, nSchritte);
+				mygl.copyBuffer(gl);
+				mygl.drawArrays(gl, GL3.GL_LINE_STRIP);
+			}
+		}
+
 	}
 
 	LorenzDynamics lorenzo = new LorenzDynamics();
+	double[][] starts = { { 40, 10, 10 } }; // Startpunkte der Bahnen
+
+	// Dichte-Modus (Taste D): viele Bahnen ohne Vertices in ein Histogramm der
+	// Bildebene zaehlen und als Textur zeichnen, Speicher unabhaengig von der Bahnlaenge
+	static final int HISTO_BAHNEN = 64; // Bahnen im Block (verteilt auf die Threads)
+	static final long HISTO_SCHRITTE = 1 << 20; // Runge-Kutta Schritte pro Bild
+	volatile boolean dichte = false;
+	int programId;
+	DensityHistogram histo;
+	DensityTexture histoTex;
+	double[][] wolke; // Zustaende der Bahnen x[3][HISTO_BAHNEN]
+	Mat4 histoM; // Kamera, mit der das Histogramm gezaehlt wurde
+	java.util.concurrent.ForkJoinPool pool = java.util.concurrent.ForkJoinPool.commonPool();
+
+	// Bahnen starten und einschwingen lassen (nur Punkte auf dem Attraktor zaehlen)
+	void startWolke() {
+		wolke = new double[3][HISTO_BAHNEN];
+		for (int k = 0; k < HISTO_BAHNEN; k++) {
+			wolke[0][k] = 40;
+			wolke[1][k] = 10 + 0.01 * k;
+			wolke[2][k] = 10;
+		}
+		for (int i = 0; i < 2000; i++)
+			lorenzo.rungeBatch(wolke, 0.005);
+	}
+
+	// Histogramm weiterzaehlen, bei neuer Kamera oder Fenstergroesse neu beginnen
+	void zeichneDichte(GL3 gl, Mat4 M) {
+		int w = windowWidth, h = windowHeight;
+		if (histo == null || histo.nx != w || histo.ny != h || histo.ymin != bottom) {
+			histo = new DensityHistogram(w, h, left, right, bottom, top);
+			if (histoTex == null)
+				histoTex = new DensityTexture(gl, w, h);
+			else
+				histoTex.resize(gl, w, h);
+			histoM = null;
+		}
+		if (histoM == null || !Arrays.equals(M.toArray(), histoM.toArray())) {
+			histo.clear();
+			histo.setView(M);
+			histoM = M;
+		}
+		if (wolke == null)
+			startWolke();
+		histo.accumulate(lorenzo, wolke, 0.005, HISTO_SCHRITTE / HISTO_BAHNEN, pool);
+		histoTex.draw(gl, histo, programId);
+	}
 
 	// --------- Methoden ----------------------------------
 
@@ -122,8 +182,8 @@ public class Lorenz implements WindowListener, GLEventListener, KeyListener {
 		System.out.println();
 		gl.glEnable(GL3.GL_DEPTH_TEST);
 		gl.glClearColor(0.2f, 0.2f, 1.0f, 1);
-		int programId = MyShaders.initShaders(gl, vShader, fShader);
-		mygl = new MyGLBase1(gl, programId, maxVerts);
+		programId = MyShaders.initShaders(gl, vShader, fShader);
+		mygl = new MyGLBase1(gl, programId, maxVerts, MyGLBase1.VERTEX_COMPACT); // 20 Bytes pro Vertex
 		FPSAnimator anim = new FPSAnimator(canvas, 200, true); // Animations-Thread,
 																// 200
 																// Frames/sek
@@ -141,12 +201,15 @@ public class Lorenz implements WindowListener, GLEventListener, KeyListener {
 		Mat4 R2 = Mat4.rotate(azimut, 0, 1, 0);
 		Mat4 R = R1.preMultiply(R2);
 		M = Mat4.lookAt(R.transform(A), B, R.transform(up));
+		if (dichte)
+			zeichneDichte(gl, M);
 		mygl.setM(gl, M);
 		mygl.setColor(1, 1, 1);
 		mygl.drawAxis(gl, 100, 100, 100); // Koordinatenachsen
 		mygl.setM(gl, M);
 		mygl.setColor(0, 0, 1);
-		lorenzo.zeichneBahnlo(mygl, gl, 40, 10, 10, 0.01f, 1000);
+		if (!dichte)
+			lorenzo.zeichneBahnenlo(mygl, gl, starts, 0.01f, 1000);
 
 		// zeichneBahn(gl, -20, -20, 0, 0, 1, 0, 0.0005f, 500); // Spirale
 	}
@@ -157,6 +220,8 @@ public class Lorenz implements WindowListener, GLEventListener, KeyListener {
 		// Set the viewport to be the entire window
 		gl.glViewport(0, 0, width, height);
 		float aspect = (float) height / width;
+		windowWidth = width;
+		windowHeight = height;
 		bottom = aspect * left;
 		top = aspect * right;
 		mygl.setP(gl, Mat4.ortho(left, right, bottom, top, near, far));
@@ -164,7 +229,9 @@ public class Lorenz implements WindowListener, GLEventListener, KeyListener {
 
 	@Override
 	public void dispose(GLAutoDrawable drawable) {
-	} // not needed
+		if (histoTex != null)
+			histoTex.dispose(drawable.getGL().getGL3());
+	}
 
 	// ----------- main-Methode ---------------------------
 
@@ -219,6 +286,8 @@ public class Lorenz implements WindowListener, GLEventListener, KeyListener {
 	}
 
 	public void keyTyped(KeyEvent e) {
+		if ((e.getKeyChar() == 'D') || (e.getKeyChar() == 'd'))
+			dichte = !dichte;
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package programs;
+
+//-------------   Lorenz-Attraktor als Dichte-Histogramm: Schritte/s bei festem Speicher  -------------------
+//
+//  java programs.LorenzDensityBenchmark [schritte in millionen]
+//
+//  Zaehlt die Zustaende von 64 Bahnen in ein 2D-Histogramm (800 x 600, Ansicht
+//  wie in Lorenz) und in ein 3D-Gitter (128^3). Danach: Ergebnis mit 4 Threads
+//  gleich wie mit einem, jeder Schritt gezaehlt.
+import java.util.concurrent.ForkJoinPool;
+
+import ch.fhnw.util.math.Mat4;
+import ch.fhnw.util.math.Vec3;
+
+public class LorenzDensityBenchmark {
+
+	static final int BAHNEN = 64;
+	static final double DT = 0.005;
+
+	static double[][] start() {
+		LorenzSystem lorenz = new LorenzSystem();
+		double[][] x = new double[3][BAHNEN];
+		for (int k = 0; k < BAHNEN; k++) {
+			x[0][k] = 40;
+			x[1][k] = 10 + 0.01 * k;
+			x[2][k] = 10;
+		}
+		for (int i = 0; i < 2000; i++)
+			lorenz.rungeBatch(x, DT);
+		return x;
+	}
+
+	static DensityHistogram bild() {
+		DensityHistogram h = new DensityHistogram(800, 600, -60, 60, -45, 45);
+		Mat4 R = Mat4.rotate(-10, 1, 0, 0).preMultiply(Mat4.rotate(30, 0, 1, 0));
+		h.setView(Mat4.lookAt(R.transform(new Vec3(0, 0, 100)), new Vec3(0, 0, 0), R.transform(new Vec3(0, 1, 0))));
+		return h;
+	}
+
+	static void messen(String name, DensityHistogram h, long schritte, ForkJoinPool pool) {
+		LorenzSystem lorenz = new LorenzSystem();
+		double[][] x = start();
+		h.accumulate(lorenz, x, DT, 10_000, pool); // aufwaermen
+		h.clear();
+		long t0 = System.nanoTime();
+		h.accumulate(lorenz, x, DT, schritte / BAHNEN, pool);
+		double s = (System.nanoTime() - t0) * 1e-9;
+		long punkte = h.getTotal();
+		System.out.printf("%-14s %8.0f M %10.1f M/s %10.1f MB %14.0f MB %10.1e%n", name, punkte * 1e-6,
+				punkte * 1e-6 / s, h.counts.length * 4e-6, punkte * 12e-6, (double) h.getOutside() / punkte);
+	}
+
+	public static void main(String[] args) {
+		long schritte = (args.length > 0 ? Long.parseLong(args[0]) : 256) * 1_000_000;
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		System.out.printf("Threads: %d%n", pool.getParallelism());
+		System.out.printf("%-14s %10s %12s %13s %17s %10s%n", "", "Punkte", "Tempo", "Histogramm", "als Vertices",
+				"ausserhalb");
+		messen("2D 800x600", bild(), schritte, pool);
+		messen("3D 128^3", new DensityHistogram(128, 128, 128, -25, 25, -30, 30, 0, 55), schritte, pool);
+
+		// Aufteilung auf Threads aendert nichts
+		LorenzSystem lorenz = new LorenzSystem();
+		DensityHistogram h1 = bild(), h4 = bild();
+		h1.accumulate(lorenz, start(), DT, 100_000, new ForkJoinPool(1));
+		h4.accumulate(lorenz, start(), DT, 100_000, new ForkJoinPool(4));
+		boolean ok = java.util.Arrays.equals(h1.counts, h4.counts) && h1.getTotal() == 100_000L * BAHNEN
+				&& h4.getTotal() == h1.getTotal();
+		System.out.println(ok ? "1 und 4 Threads gleich, alle Schritte gezaehlt" : "FEHLER");
+		if (!ok)
+			System.exit(1);
+	}
+
+}
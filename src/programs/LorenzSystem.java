@@ -0,0 +1,41 @@
+package programs;
+
+// Lorenz-System dx/dt = sigma (y - x), dy/dt = rho x - y - x z, dz/dt = x y - beta z
+public class LorenzSystem extends Dynamics {
+	double sigma = 10, rho = 28, beta = 8.0 / 3;
+
+	public LorenzSystem() {
+	}
+
+	public LorenzSystem(double sigma, double rho, double beta) {
+		this.sigma = sigma;
+		this.rho = rho;
+		this.beta = beta;
+	}
+
+	@Override
+	public double[] f(double[] x) {
+		double[] y = new double[3];
+		f(x, y);
+		return y;
+	}
+
+	@Override
+	public void f(double[] x, double[] y) {
+		double x1 = x[0], x2 = x[1], x3 = x[2];
+		y[0] = sigma * x2 - sigma * x1;
+		y[1] = rho * x1 - x2 - x1 * x3;
+		y[2] = x1 * x2 - beta * x3;
+	}
+
+	@Override
+	public void fBatch(double[][] x, double[][] y, int from, int to) {
+		double[] x1 = x[0], x2 = x[1], x3 = x[2];
+		double[] y1 = y[0], y2 = y[1], y3 = y[2];
+		for (int k = from; k < to; k++) {
+			y1[k] = sigma * x2[k] - sigma * x1[k];
+			y2[k] = rho * x1[k] - x2[k] - x1[k] * x3[k];
+			y3[k] = x1[k] * x2[k] - beta * x3[k];
+		}
+	}
+}
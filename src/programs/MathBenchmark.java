@@ -0,0 +1,183 @@
+package programs;
+
+//-------------   Benchmark Vec3/Mat4 gegen MutableVec3/MutableMat4 (ohne OpenGL)  -------------------
+//
+//  java programs.MathBenchmark          Messung in dieser JVM
+//  java programs.MathBenchmark --ea     Messung je in einer JVM mit -XX:+DoEscapeAnalysis
+//                                       und -XX:-DoEscapeAnalysis
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import ch.fhnw.util.math.*;
+
+public class MathBenchmark {
+
+	static final int WARMUP = 5;
+	static final int RUNS = 10;
+	static final int N = 1000; // Anzahl Koerper
+	static final int STEPS = 1000; // Schritte pro Lauf
+
+	interface Kernel {
+		float run(); // Ergebnis verhindert, dass der JIT die Rechnung entfernt
+	}
+
+	static void measure(String name, Kernel k) {
+		com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long tid = Thread.currentThread().getId();
+		float r = 0;
+		for (int i = 0; i < WARMUP; i++)
+			r += k.run();
+		long bytes0 = mx.getThreadAllocatedBytes(tid);
+		long t0 = System.nanoTime();
+		for (int i = 0; i < RUNS; i++)
+			r += k.run();
+		long t1 = System.nanoTime();
+		long bytes1 = mx.getThreadAllocatedBytes(tid);
+		double ops = (double) RUNS * N * STEPS;
+		System.out.printf("%-28s %8.2f ns/op %8.1f B/op   (%g)%n", name, (t1 - t0) / ops, (bytes1 - bytes0) / ops, r);
+	}
+
+	// ------ Bewegung mit Rotation: p = R * (p + v*dt), v = v + (w x v)*dt ------
+
+	static float[] px = new float[N], py = new float[N], pz = new float[N];
+	static float[] vx = new float[N], vy = new float[N], vz = new float[N];
+
+	static void reset() {
+		for (int i = 0; i < N; i++) {
+			px[i] = i * 0.01f;
+			py[i] = 1;
+			pz[i] = 0;
+			vx[i] = 1;
+			vy[i] = 0.5f;
+			vz[i] = -0.2f;
+		}
+	}
+
+	static float immutableMotion() {
+		reset();
+		float dt = 0.001f;
+		Vec3 w = new Vec3(0, 0, 1);
+		Mat4 R = Mat4.rotate(0.01f, 0, 1, 0);
+		for (int s = 0; s < STEPS; s++)
+			for (int i = 0; i < N; i++) {
+				Vec3 p = new Vec3(px[i], py[i], pz[i]);
+				Vec3 v = new Vec3(vx[i], vy[i], vz[i]);
+				v = v.add(w.cross(v).scale(dt));
+				p = R.transform(p.add(v.scale(dt)));
+				px[i] = p.x;
+				py[i] = p.y;
+				pz[i] = p.z;
+				vx[i] = v.x;
+				vy[i] = v.y;
+				vz[i] = v.z;
+			}
+		return px[N - 1];
+	}
+
+	static float mutableMotion() {
+		reset();
+		float dt = 0.001f;
+		MutableVec3 w = new MutableVec3(0, 0, 1);
+		MutableMat4 R = new MutableMat4().setRotate(0.01f, 0, 1, 0);
+		MutableVec3 p = new MutableVec3(), v = new MutableVec3(), t = new MutableVec3();
+		for (int s = 0; s < STEPS; s++)
+			for (int i = 0; i < N; i++) {
+				p.set(px[i], py[i], pz[i]);
+				v.set(vx[i], vy[i], vz[i]);
+				v.addScaled(t.cross(w, v), dt);
+				R.transformInPlace(p.addScaled(v, dt));
+				px[i] = p.x;
+				py[i] = p.y;
+				pz[i] = p.z;
+				vx[i] = v.x;
+				vy[i] = v.y;
+				vz[i] = v.z;
+			}
+		return px[N - 1];
+	}
+
+	// ------ Matrix-Kette T * R * S pro Koerper ------
+
+	static float immutableMatrices() {
+		float r = 0;
+		for (int s = 0; s < STEPS; s++)
+			for (int i = 0; i < N; i++) {
+				Mat4 M = Mat4.translate(i, s, 0).postMultiply(Mat4.rotate(i, 0, 1, 0)).postMultiply(Mat4.scale(2, 2, 2));
+				r += M.m03 + M.m00;
+			}
+		return r;
+	}
+
+	static float mutableMatrices() {
+		float r = 0;
+		MutableMat4 M = new MutableMat4(), Rot = new MutableMat4();
+		for (int s = 0; s < STEPS; s++)
+			for (int i = 0; i < N; i++) {
+				M.setTranslate(i, s, 0).mul(Rot.setRotate(i, 0, 1, 0)).scale(2, 2, 2);
+				r += M.m03 + M.m00;
+			}
+		return r;
+	}
+
+	// ------ Stossantwort wie Stoss2D.stoss ------
+
+	static float immutableStoss() {
+		float r = 0;
+		for (int s = 0; s < STEPS; s++)
+			for (int i = 0; i < N; i++) {
+				Vec3 v1 = new Vec3(1, i * 0.001f, 0);
+				Vec3 v2 = new Vec3(-0.5f, 0, 0);
+				Vec3 n = new Vec3(1, 0.3f, 0).normalize();
+				float v1n = v1.dot(n), v2n = v2.dot(n);
+				Vec3 vv1p = v1.subtract(n.scale(v1n));
+				Vec3 vv2p = v2.subtract(n.scale(v2n));
+				v1 = n.scale(v2n).add(vv1p);
+				v2 = n.scale(v1n).add(vv2p);
+				r += v1.x + v2.y;
+			}
+		return r;
+	}
+
+	static float mutableStoss() {
+		float r = 0;
+		MutableVec3 v1 = new MutableVec3(), v2 = new MutableVec3(), n = new MutableVec3();
+		MutableVec3 vv1p = new MutableVec3(), vv2p = new MutableVec3();
+		for (int s = 0; s < STEPS; s++)
+			for (int i = 0; i < N; i++) {
+				v1.set(1, i * 0.001f, 0);
+				v2.set(-0.5f, 0, 0);
+				n.set(1, 0.3f, 0).normalize();
+				float v1n = v1.dot(n), v2n = v2.dot(n);
+				vv1p.set(v1).addScaled(n, -v1n);
+				vv2p.set(v2).addScaled(n, -v2n);
+				v1.set(vv1p).addScaled(n, v2n);
+				v2.set(vv2p).addScaled(n, v1n);
+				r += v1.x + v2.y;
+			}
+		return r;
+	}
+
+	// startet den Benchmark in einer neuen JVM mit den gegebenen Optionen
+	static void fork(String option) throws Exception {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		System.out.println("---- " + option + " ----");
+		Process p = new ProcessBuilder(java, option, "-cp", System.getProperty("java.class.path"),
+				MathBenchmark.class.getName()).inheritIO().start();
+		p.waitFor();
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length > 0 && args[0].equals("--ea")) {
+			fork("-XX:+DoEscapeAnalysis");
+			fork("-XX:-DoEscapeAnalysis");
+			return;
+		}
+		measure("motion Vec3/Mat4", MathBenchmark::immutableMotion);
+		measure("motion MutableVec3/Mat4", MathBenchmark::mutableMotion);
+		measure("T*R*S Mat4", MathBenchmark::immutableMatrices);
+		measure("T*R*S MutableMat4", MathBenchmark::mutableMatrices);
+		measure("stoss Vec3", MathBenchmark::immutableStoss);
+		measure("stoss MutableVec3", MathBenchmark::mutableStoss);
+	}
+
+}
@@ -77,6 +77,15 @@ public class ModifyableQuader {
 
     public void zeichne(GL3 gl, float a, float b, float c,   // Kantenlaengen
                         boolean gefuellt) {
+        MyGLBase1.MeshKey key = vb.meshKey("ModifyableQuader").add(a).add(b).add(c).add(gefuellt);
+        MyGLBase1.Mesh mesh = vb.getMesh(key);
+        if (mesh == null)
+            mesh = vb.storeMesh(gl, key, erzeuge(gl, a, b, c, gefuellt));
+        vb.drawMesh(gl, mesh);
+    }
+
+
+    private MyGLBase1.Mesh erzeuge(GL3 gl, float a, float b, float c, boolean gefuellt) {
         a *= 0.5f;
         b *= 0.5f;
         c *= 0.5f;
@@ -88,8 +97,8 @@ public class ModifyableQuader {
         Vec3 F = new Vec3(a, b, -c);
         Vec3 G = new Vec3(-a, b, -c);
         Vec3 H = new Vec3(-a, b, c);
+        MyGLBase1.Mesh mesh = new MyGLBase1.Mesh();
         vb.rewindBuffer(gl);
-        int nVertices;
         if (gefuellt) {
             Viereck(gl, D, C, B, A, e2n);            // Boden
             Viereck(gl, E, F, G, H, e2);             // Deckflaeche
@@ -97,9 +106,7 @@ public class ModifyableQuader {
             Viereck(gl, B, C, G, F, e3n);
             Viereck(gl, D, H, G, C, e1n);
             Viereck(gl, A, E, H, D, e3);
-            nVertices = 36;
-            vb.copyBuffer(gl);
-            gl.glDrawArrays(GL3.GL_TRIANGLES, 0, nVertices);
+            mesh.addDraw(GL3.GL_TRIANGLES, 0, 36);
         } else {
             kante(A, B);                         // Boden
             kante(B, C);
@@ -113,10 +120,9 @@ public class ModifyableQuader {
             kante(B, F);
             kante(C, G);
             kante(D, H);
-            nVertices = 24;
-            vb.copyBuffer(gl);
-            gl.glDrawArrays(GL3.GL_LINES, 0, nVertices);
+            mesh.addDraw(GL3.GL_LINES, 0, 24);
         }
+        return mesh;
     }
 
 }
@@ -12,7 +12,7 @@ public class MyGLBase1
 
     //  --------------  Globale Daten  -------------------------------------
 
-    private int maxVerts;                                     // max. Anzahl Vertices im Vertex-Array
+    private int maxVerts;                                     // Kapazitaet des Vertex-Arrays (waechst bei Bedarf)
     private int nVertices = 0;                                // momentane Anzahl Vertices
 
     private Mat4 M = Mat4.ID;                                 // ModelView-Matrix
@@ -34,15 +34,160 @@ public class MyGLBase1
 
     //  --------  Vertex-Array (fuer die Attribute Position, Color, Normal)  ------------
 
-    private FloatBuffer vertexBuf;                            // Vertex-Array
-    final int vPositionSize = 4*Float.SIZE/8;                 // Anz. Bytes der x,y,z,w (homogene Koordinaten)
-    final int vColorSize = 4*Float.SIZE/8;                    // Anz. Bytes der rgba Werte
-    final int vNormalSize = 4*Float.SIZE/8;                   // Anz. Bytes der Normalen
-    final int vertexSize = vPositionSize + vColorSize + vNormalSize; // Anz. Bytes eines Vertex
+    //  Vertex-Formate:  VERTEX_FLOAT   48 Bytes  x,y,z,w / rgba / Normale als je 4 floats
+    //                   VERTEX_COMPACT 20 Bytes  x,y,z als floats, rgba als 4 Bytes (RGBA8),
+    //                                            Normale gepackt (GL_INT_2_10_10_10_REV)
+    //  Die Shader sehen in beiden Faellen vec4-Attribute (w=1 bzw. 0 ergaenzt OpenGL).
+
+    public static final int VERTEX_FLOAT = 0;
+    public static final int VERTEX_COMPACT = 1;
+
+    private int vertexFormat;                                 // VERTEX_FLOAT oder VERTEX_COMPACT
+    private ByteBuffer vertexBuf;                             // Vertex-Array
+    int vPositionSize;                                        // Anz. Bytes der Position
+    int vColorSize;                                           // Anz. Bytes der rgba Werte
+    int vNormalSize;                                          // Anz. Bytes der Normalen
+    int vertexSize;                                           // Anz. Bytes eines Vertex
     private int bufSize;                                      // Anzahl Bytes des VertexArrays = maxVerts * vertexSize
 
+    //  Der OpenGL-Buffer ist ein Ring fuer mehrere Vertex-Arrays: copyBuffer haengt
+    //  das Vertex-Array unsynchronisiert hinten an (der GPU-Teil davor bleibt
+    //  unberuehrt) und erst wenn der Ring voll ist, wird mit glBufferData neuer
+    //  Speicher angefordert (orphaning). Die CPU wartet so nie auf die GPU.
+    static final int STREAM_SEGMENTS = 3;                     // Ring-Groesse in Vertex-Arrays
+    private long streamBufSize;                               // Anzahl Bytes des OpenGL-Buffers
+    private long streamOffset = 0;                            // naechste freie Position im OpenGL-Buffer
+
     private float[] currentColor = { 1,1,1,1};                // aktuelle Farbe fuer Vertices
     private float[] currentNormal = { 1,0,0,0};               // aktuelle Normale Vertices
+    private byte[] currentColorRGBA8 = { -1,-1,-1,-1 };      // aktuelle Farbe (VERTEX_COMPACT)
+    private int currentNormalPacked = packNormal(1,0,0);      // aktuelle Normale (VERTEX_COMPACT)
+
+
+    //  --------  Mesh-Cache (statische Geometrie in eigenen VBOs)  ------------
+
+    private LinkedHashMap<MeshKey,Mesh> meshes =                // Key: Form und Parameter (ohne Farbe),
+            new LinkedHashMap<MeshKey,Mesh>(16, 0.75f, true);   // zuletzt gezeichnete am Ende
+    private int maxMeshes = 64;                                 // danach wird das aelteste Mesh freigegeben
+    private final MeshKey scratchKey = new MeshKey();           // fuer meshKey(), keine Allokation pro Frame
+
+
+    //  --------  Instancing (nur mit MyShaders.vShader3)  ------------
+
+    public static final int instanceSize = 20;                // floats pro Instanz: Modell-Matrix (column major), rgba
+    private int iModelId, iColorId, instancedId;              // Attribute und Uniform im Shader
+    private int instanceBufId;                                // OpenGL-Buffer fuer die Instanz-Daten
+    private FloatBuffer instanceBuf;
+    private int instanceBufCapacity = 0;                      // Anzahl Instanzen im OpenGL-Buffer
+
+    public static class Mesh                                  // Vertices in eigenem VBO/VAO, mit Zeichenbefehlen
+    {  public static final int RESTART = -1;                  // Primitive-Restart-Index (0xFFFFFFFF)
+       int vaoId, vboId, eboId;                               // OpenGL-Objekte (0 = noch nicht hochgeladen)
+       int nVertices;
+       boolean instanceAttribs = false;                       // Instanz-Attribute im VAO gesetzt
+       private int nDraws = 0;                                // Zeichenbefehle glDrawArrays(mode, first, count)
+       private int[] modes = new int[4], firsts = new int[4], counts = new int[4];   // bzw. glDrawElements
+       private boolean[] indexed = new boolean[4];
+       private int nIndices = 0;                              // Indices fuer den Element-Buffer
+       private int[] indices = new int[0];
+
+       public void addDraw(int mode, int first, int count)    // Zeichenbefehl anhaengen
+       {  add(mode, first, count, false);
+       }
+
+       public void addElements(int mode, int first, int count)  // Indices first..first+count-1 zeichnen
+       {  add(mode, first, count, true);
+       }
+
+       private void add(int mode, int first, int count, boolean idx)
+       {  if ( nDraws == modes.length )
+          {  modes = Arrays.copyOf(modes, 2*nDraws);
+             firsts = Arrays.copyOf(firsts, 2*nDraws);
+             counts = Arrays.copyOf(counts, 2*nDraws);
+             indexed = Arrays.copyOf(indexed, 2*nDraws);
+          }
+          modes[nDraws] = mode;
+          firsts[nDraws] = first;
+          counts[nDraws] = count;
+          indexed[nDraws] = idx;
+          nDraws++;
+       }
+
+       public void putIndex(int i)                            // Vertex-Index (oder RESTART) anhaengen
+       {  if ( nIndices == indices.length )
+            indices = Arrays.copyOf(indices, Math.max(64, 2*nIndices));
+          indices[nIndices++] = i;
+       }
+
+       public int getNIndices()
+       {  return nIndices;
+       }
+
+       public void draw(GL3 gl)                               // Zeichenbefehle mit dem gebundenen VAO ausfuehren
+       {  for (int i = 0; i < nDraws; i++)
+            if ( indexed[i] )
+              gl.glDrawElements(modes[i], counts[i], GL3.GL_UNSIGNED_INT, 4L*firsts[i]);
+            else
+              gl.glDrawArrays(modes[i], firsts[i], counts[i]);
+       }
+
+       public void drawInstanced(GL3 gl, int n)               // dasselbe fuer n Instanzen
+       {  for (int i = 0; i < nDraws; i++)
+            if ( indexed[i] )
+              gl.glDrawElementsInstanced(modes[i], counts[i], GL3.GL_UNSIGNED_INT, 4L*firsts[i], n);
+            else
+              gl.glDrawArraysInstanced(modes[i], firsts[i], counts[i], n);
+       }
+
+       public int getNVertices()
+       {  return nVertices;
+       }
+    }
+
+
+    public static final class MeshKey                         // Form (Klassen-Praefix) und bis zu 6 Parameter
+    {  private String form;
+       private final float[] p = new float[6];
+       private int n;
+
+       public MeshKey add(float v)                            // Parameter anhaengen
+       {  p[n++] = v;
+          return this;
+       }
+
+       public MeshKey add(boolean v)
+       {  return add(v ? 1 : 0);
+       }
+
+       private MeshKey copy()
+       {  MeshKey k = new MeshKey();
+          k.form = form;
+          k.n = n;
+          System.arraycopy(p, 0, k.p, 0, n);
+          return k;
+       }
+
+       @Override
+       public boolean equals(Object o)
+       {  if ( !(o instanceof MeshKey) )
+            return false;
+          MeshKey k = (MeshKey)o;
+          if ( n != k.n || !form.equals(k.form) )
+            return false;
+          for (int i = 0; i < n; i++)
+            if ( Float.floatToIntBits(p[i]) != Float.floatToIntBits(k.p[i]) )
+              return false;
+          return true;
+       }
+
+       @Override
+       public int hashCode()
+       {  int h = form.hashCode();
+          for (int i = 0; i < n; i++)
+            h = 31*h + Float.floatToIntBits(p[i]);
+          return h;
+       }
+    }
 
 
     //  ------------- Konstruktor  ---------------------------
@@ -50,8 +195,28 @@ public class MyGLBase1
 
     public MyGLBase1(GL3 gl,
                    int programId,                             // Program-Identifier
-                   int maxVerts)                              // max. Anzahl Vertices im Vertex-Array
+                   int maxVerts)                              // anfaengliche Anzahl Vertices im Vertex-Array
+    {  this(gl, programId, maxVerts, VERTEX_FLOAT);
+    }
+
+
+    public MyGLBase1(GL3 gl,
+                   int programId,                             // Program-Identifier
+                   int maxVerts,                              // anfaengliche Anzahl Vertices im Vertex-Array
+                   int vertexFormat)                          // VERTEX_FLOAT oder VERTEX_COMPACT
     {  this.maxVerts = maxVerts;
+       this.vertexFormat = vertexFormat;
+       if ( vertexFormat == VERTEX_COMPACT )
+       {  vPositionSize = 3*Float.SIZE/8;
+          vColorSize = 4;
+          vNormalSize = 4;
+       }
+       else
+       {  vPositionSize = 4*Float.SIZE/8;
+          vColorSize = 4*Float.SIZE/8;
+          vNormalSize = 4*Float.SIZE/8;
+       }
+       vertexSize = vPositionSize + vColorSize + vNormalSize;
        setupVertexBuffer(programId, gl, maxVerts);            // Vertex-Buffer
         setupMatrices(programId, gl);                          // ModelView- und Projektions-Matrix
        setupLightingParms(programId, gl);                     // Beleuchtung
@@ -64,7 +229,7 @@ public class MyGLBase1
      private void setupVertexBuffer(int pgm, GL3 gl, int maxVerts)
      {
        bufSize = maxVerts * vertexSize;
-       vertexBuf = Buffers.newDirectFloatBuffer(bufSize);
+       vertexBuf = Buffers.newDirectByteBuffer(bufSize);
        // ------  OpenGl-Objekte -----------
        int[] tmp = new int[1];
        gl.glGenVertexArrays(1, tmp, 0);                        // VertexArrayObject
@@ -73,8 +238,9 @@ public class MyGLBase1
        gl.glGenBuffers(1, tmp, 0);                             // VertexBuffer
        vertexBufId = tmp[0];
        gl.glBindBuffer(GL3.GL_ARRAY_BUFFER, vertexBufId);
-       gl.glBufferData(GL3.GL_ARRAY_BUFFER, bufSize,           // Speicher allozieren
-                            null, GL3.GL_STATIC_DRAW);
+       streamBufSize = (long)STREAM_SEGMENTS * bufSize;
+       gl.glBufferData(GL3.GL_ARRAY_BUFFER, streamBufSize,     // Speicher allozieren
+                            null, GL3.GL_STREAM_DRAW);
 
        // ----- get shader variable identifiers  -------------
        vPositionId = gl.glGetAttribLocation(pgm, "vPosition");
@@ -82,9 +248,18 @@ public class MyGLBase1
        vNormalId = gl.glGetAttribLocation(pgm, "vNormal");
 
        //  ------  enable vertex attributes ---------------
-       enableAttribute(gl, vPositionId, "vPosition", 4, GL3.GL_FLOAT, false, vertexSize, 0);
-       enableAttribute(gl, vColorId, "vColor", 4, GL3.GL_FLOAT, false, vertexSize, vPositionSize);
-       enableAttribute(gl, vNormalId, "vNormal", 4, GL3.GL_FLOAT, false, vertexSize, vPositionSize + vColorSize);
+       setupAttributes(gl, true, 0);
+
+       // ----- Instancing (Attribute nur im Shader vShader3 vorhanden)  -------------
+       iModelId = gl.glGetAttribLocation(pgm, "iModel");
+       iColorId = gl.glGetAttribLocation(pgm, "iColor");
+       instancedId = gl.glGetUniformLocation(pgm, "instanced");
+       gl.glGenBuffers(1, tmp, 0);
+       instanceBufId = tmp[0];
+       gl.glBindBuffer(GL3.GL_ARRAY_BUFFER, vertexBufId);
+
+       gl.glEnable(GL3.GL_PRIMITIVE_RESTART);                  // fuer indizierte Meshes
+       gl.glPrimitiveRestartIndex(Mesh.RESTART);
     };
 
 
@@ -139,6 +314,9 @@ public class MyGLBase1
        currentColor[1] = g;
        currentColor[2] = b;
        currentColor[3] = 1;
+       currentColorRGBA8[0] = toByte(r);
+       currentColorRGBA8[1] = toByte(g);
+       currentColorRGBA8[2] = toByte(b);
     }
 
     public void setNormal(float x, float y, float z)             // aktuelle Vertexfarbe setzen
@@ -146,25 +324,71 @@ public class MyGLBase1
        currentNormal[1] = y;
        currentNormal[2] = z;
        currentNormal[3] = 0;
+       currentNormalPacked = packNormal(x, y, z);
     }
 
 
     public void putVertex(float x, float y, float z)            // Vertex-Daten in Buffer speichern
-    {  vertexBuf.put(x);
-       vertexBuf.put(y);
-       vertexBuf.put(z);
-       vertexBuf.put(1);
-       vertexBuf.put(currentColor);                              // Farbe
-       vertexBuf.put(currentNormal);                             // Normale
+    {  if ( vertexBuf.remaining() < vertexSize )
+         growBuffer();
+       vertexBuf.putFloat(x);
+       vertexBuf.putFloat(y);
+       vertexBuf.putFloat(z);
+       if ( vertexFormat == VERTEX_COMPACT )
+       {  vertexBuf.put(currentColorRGBA8);                      // Farbe
+          vertexBuf.putInt(currentNormalPacked);                 // Normale
+       }
+       else
+       {  vertexBuf.putFloat(1);
+          for (int i = 0; i < 4; i++)
+            vertexBuf.putFloat(currentColor[i]);                 // Farbe
+          for (int i = 0; i < 4; i++)
+            vertexBuf.putFloat(currentNormal[i]);                // Normale
+       }
        nVertices++;
     }
 
+    public void putVertices(float[] xyz, int offset, int n)  // n Vertices (x,y,z ab offset) speichern
+    {  for (int i = 0; i < n; i++)
+       {  int j = offset + 3*i;
+          putVertex(xyz[j], xyz[j+1], xyz[j+2]);
+       }
+    }
+
+    private void growBuffer()                                   // Vertex-Array verdoppeln
+    {  ByteBuffer old = vertexBuf;
+       maxVerts *= 2;
+       bufSize = maxVerts * vertexSize;
+       vertexBuf = Buffers.newDirectByteBuffer(bufSize);
+       old.flip();
+       vertexBuf.put(old);
+    }
+
     public void copyBuffer(GL3 gl)                              // Vertex-Array in OpenGL-Buffer kopieren
-    {  vertexBuf.rewind();
-       if ( nVertices > maxVerts )
-         throw new IndexOutOfBoundsException();
+    {  int n = nVertices*vertexSize;
+       vertexBuf.rewind();
+       if ( n == 0 )
+         return;
+       gl.glBindVertexArray(vaoId);
        gl.glBindBuffer(GL3.GL_ARRAY_BUFFER, vertexBufId);
-       gl.glBufferSubData(GL3.GL_ARRAY_BUFFER, 0, nVertices*vertexSize, vertexBuf);
+       if ( streamOffset + n > streamBufSize )                  // Ring voll: neuer Speicher (orphaning)
+       {  streamBufSize = Math.max(streamBufSize, (long)STREAM_SEGMENTS * bufSize);
+          gl.glBufferData(GL3.GL_ARRAY_BUFFER, streamBufSize, null, GL3.GL_STREAM_DRAW);
+          streamOffset = 0;
+       }
+       vertexBuf.limit(n);
+       ByteBuffer dst = gl.glMapBufferRange(GL3.GL_ARRAY_BUFFER, streamOffset, n,
+               GL3.GL_MAP_WRITE_BIT | GL3.GL_MAP_UNSYNCHRONIZED_BIT | GL3.GL_MAP_INVALIDATE_RANGE_BIT);
+       if ( dst != null )
+       {  dst.put(vertexBuf);
+          gl.glUnmapBuffer(GL3.GL_ARRAY_BUFFER);
+       }
+       else                                                     // Mapping nicht moeglich
+         gl.glBufferSubData(GL3.GL_ARRAY_BUFFER, streamOffset, n, vertexBuf);
+       vertexBuf.limit(vertexBuf.capacity());
+       vertexBuf.rewind();
+       setupAttributes(gl, false, streamOffset);                // Vertex 0 = Anfang des Vertex-Arrays
+       streamOffset += n;
     }
 
     public void rewindBuffer(GL3 gl)                            // Bufferposition zuruecksetzen
@@ -177,6 +401,224 @@ public class MyGLBase1
     }
 
 
+    //  ---------  Mesh-Cache  ----------
+    //
+    //  Statische Geometrie wird einmal mit putVertex ins Vertex-Array geschrieben
+    //  und mit storeMesh in ein eigenes VBO/VAO kopiert. Danach genuegt drawMesh
+    //  (nur Binden und glDrawArrays, kein Tessellieren und kein Upload mehr).
+    //  Der Key enthaelt nur die Geometrie: die Farbe wird nicht aus dem VBO
+    //  gelesen, sondern beim Zeichnen als konstantes Attribut (aktuelle Farbe)
+    //  gesetzt. Hoechstens maxMeshes Meshes bleiben gespeichert, das am
+    //  laengsten nicht gezeichnete wird freigegeben.
+    //
+    //    MyGLBase1.MeshKey key = vb.meshKey("Quader").add(a).add(b).add(c);
+    //    MyGLBase1.Mesh mesh = vb.getMesh(key);
+    //    if ( mesh == null )
+    //      mesh = vb.storeMesh(gl, key, erzeuge(...));
+    //    vb.drawMesh(gl, mesh);
+
+    public MeshKey meshKey(String form)                        // Key ohne Parameter (wird wiederverwendet,
+    {  scratchKey.form = form;                                 // nur bis zum naechsten Aufruf gueltig)
+       scratchKey.n = 0;
+       return scratchKey;
+    }
+
+    public Mesh getMesh(MeshKey key)                           // gespeichertes Mesh oder null
+    {  return meshes.get(key);
+    }
+
+    public Mesh getMesh(String key)
+    {  return getMesh(meshKey(key));
+    }
+
+    public Mesh storeMesh(GL3 gl, String key, Mesh mesh)
+    {  return storeMesh(gl, meshKey(key), mesh);
+    }
+
+    public Mesh storeMesh(GL3 gl, MeshKey key, Mesh mesh)      // aktuelles Vertex-Array als Mesh speichern
+    {  vertexBuf.rewind();
+       int[] tmp = new int[1];
+       gl.glGenVertexArrays(1, tmp, 0);
+       mesh.vaoId = tmp[0];
+       gl.glBindVertexArray(mesh.vaoId);
+       gl.glGenBuffers(1, tmp, 0);
+       mesh.vboId = tmp[0];
+       gl.glBindBuffer(GL3.GL_ARRAY_BUFFER, mesh.vboId);
+       gl.glBufferData(GL3.GL_ARRAY_BUFFER, nVertices*vertexSize, vertexBuf, GL3.GL_STATIC_DRAW);
+       mesh.nVertices = nVertices;
+       setupAttributes(gl, false, 0);
+       if ( vColorId >= 0 )                                   // Farbe beim Zeichnen (setMeshColor)
+         gl.glDisableVertexAttribArray(vColorId);
+       if ( mesh.nIndices > 0 )                               // Element-Buffer (gehoert zum VAO)
+       {  IntBuffer idx = Buffers.newDirectIntBuffer(mesh.nIndices);
+          idx.put(mesh.indices, 0, mesh.nIndices);
+          idx.rewind();
+          gl.glGenBuffers(1, tmp, 0);
+          mesh.eboId = tmp[0];
+          gl.glBindBuffer(GL3.GL_ELEMENT_ARRAY_BUFFER, mesh.eboId);
+          gl.glBufferData(GL3.GL_ELEMENT_ARRAY_BUFFER, 4L*mesh.nIndices, idx, GL3.GL_STATIC_DRAW);
+       }
+       gl.glBindVertexArray(vaoId);                           // wieder Standard-VAO und -Buffer
+       gl.glBindBuffer(GL3.GL_ARRAY_BUFFER, vertexBufId);
+       Mesh old = meshes.put(key.copy(), mesh);
+       if ( old != null && old != mesh )
+         deleteMesh(gl, old);
+       if ( meshes.size() > maxMeshes )                       // am laengsten nicht gezeichnetes freigeben
+       {  Iterator<Mesh> it = meshes.values().iterator();
+          deleteMesh(gl, it.next());
+          it.remove();
+       }
+       return mesh;
+    }
+
+    public void releaseMesh(GL3 gl, MeshKey key)               // Mesh freigeben (falls gespeichert)
+    {  Mesh mesh = meshes.remove(key);
+       if ( mesh != null )
+         deleteMesh(gl, mesh);
+    }
+
+    public void setMaxMeshes(int n)                            // Groesse des Mesh-Cache
+    {  maxMeshes = Math.max(1, n);
+    }
+
+    private void setMeshColor(GL3 gl)                          // aktuelle Farbe fuer Meshes ohne Farb-Array
+    {  if ( vColorId >= 0 )
+         gl.glVertexAttrib4f(vColorId, currentColor[0], currentColor[1], currentColor[2], currentColor[3]);
+    }
+
+    public void drawMesh(GL3 gl, Mesh mesh)                    // Mesh mit aktueller Matrix M zeichnen
+    {  setMeshColor(gl);
+       gl.glBindVertexArray(mesh.vaoId);
+       mesh.draw(gl);
+       gl.glBindVertexArray(vaoId);
+    }
+
+    public void deleteMeshes(GL3 gl)                           // alle Meshes freigeben
+    {  for (Mesh m : meshes.values())
+         deleteMesh(gl, m);
+       meshes.clear();
+    }
+
+    //  ---------  Instancing  ----------
+    //
+    //  Ein Mesh wird mit einem einzigen glDrawArraysInstanced n-mal gezeichnet.
+    //  inst enthaelt pro Instanz instanceSize floats: die Modell-Matrix (wird
+    //  im Shader nach M angewendet) und eine Farbe, die mit der aktuellen Farbe
+    //  multipliziert wird (darum vorher setColor(1,1,1)).
+
+    public static void putInstance(float[] inst, int i, Mat4 T,          // Instanz i mit Matrix T
+                                   float r, float g, float b)
+    {  int j = i*instanceSize;
+       inst[j]    = T.m00; inst[j+1]  = T.m10; inst[j+2]  = T.m20; inst[j+3]  = T.m30;
+       inst[j+4]  = T.m01; inst[j+5]  = T.m11; inst[j+6]  = T.m21; inst[j+7]  = T.m31;
+       inst[j+8]  = T.m02; inst[j+9]  = T.m12; inst[j+10] = T.m22; inst[j+11] = T.m32;
+       inst[j+12] = T.m03; inst[j+13] = T.m13; inst[j+14] = T.m23; inst[j+15] = T.m33;
+       inst[j+16] = r; inst[j+17] = g; inst[j+18] = b; inst[j+19] = 1;
+    }
+
+    public static void putInstance(float[] inst, int i,                  // Instanz i verschoben und skaliert
+                                   float x, float y, float z, float s,   // (ohne Matrix-Objekt)
+                                   float r, float g, float b)
+    {  int j = i*instanceSize;
+       Arrays.fill(inst, j, j+16, 0);
+       inst[j] = s;
+       inst[j+5] = s;
+       inst[j+10] = s;
+       inst[j+12] = x; inst[j+13] = y; inst[j+14] = z; inst[j+15] = 1;
+       inst[j+16] = r; inst[j+17] = g; inst[j+18] = b; inst[j+19] = 1;
+    }
+
+    public void drawMeshInstanced(GL3 gl, Mesh mesh, float[] inst, int n)  // n Instanzen, ein Draw-Call pro Zeichenbefehl
+    {  if ( iModelId < 0 )
+         throw new IllegalStateException("Shader ohne Instanz-Attribute (MyShaders.vShader3 verwenden)");
+       if ( n <= 0 )
+         return;
+       if ( instanceBuf == null || instanceBuf.capacity() < n*instanceSize )
+         instanceBuf = Buffers.newDirectFloatBuffer(n*instanceSize);
+       instanceBuf.clear();
+       instanceBuf.put(inst, 0, n*instanceSize);
+       instanceBuf.flip();
+       gl.glBindBuffer(GL3.GL_ARRAY_BUFFER, instanceBufId);
+       if ( n > instanceBufCapacity )
+         instanceBufCapacity = n;
+       gl.glBufferData(GL3.GL_ARRAY_BUFFER, instanceBufCapacity*instanceSize*4L,   // alten Inhalt verwerfen (orphaning)
+                       null, GL3.GL_STREAM_DRAW);
+       gl.glBufferSubData(GL3.GL_ARRAY_BUFFER, 0, n*instanceSize*4L, instanceBuf);
+
+       setMeshColor(gl);
+       gl.glBindVertexArray(mesh.vaoId);
+       if ( !mesh.instanceAttribs )                          // Attribute zeigen auf instanceBufId
+       {  int stride = instanceSize*4;
+          for (int c = 0; c < 4; c++)                         // mat4 = 4 Spalten-Attribute
+          {  gl.glEnableVertexAttribArray(iModelId+c);
+             gl.glVertexAttribPointer(iModelId+c, 4, GL3.GL_FLOAT, false, stride, 16*c);
+             gl.glVertexAttribDivisor(iModelId+c, 1);
+          }
+          if ( iColorId >= 0 )
+          {  gl.glEnableVertexAttribArray(iColorId);
+             gl.glVertexAttribPointer(iColorId, 4, GL3.GL_FLOAT, false, stride, 64);
+             gl.glVertexAttribDivisor(iColorId, 1);
+          }
+          mesh.instanceAttribs = true;
+       }
+       gl.glUniform1i(instancedId, 1);
+       mesh.drawInstanced(gl, n);
+       gl.glUniform1i(instancedId, 0);
+       gl.glBindVertexArray(vaoId);
+       gl.glBindBuffer(GL3.GL_ARRAY_BUFFER, vertexBufId);
+    }
+
+
+    private void deleteMesh(GL3 gl, Mesh mesh)
+    {  gl.glDeleteBuffers(1, new int[] { mesh.vboId }, 0);
+       if ( mesh.eboId != 0 )
+         gl.glDeleteBuffers(1, new int[] { mesh.eboId }, 0);
+       gl.glDeleteVertexArrays(1, new int[] { mesh.vaoId }, 0);
+       mesh.vaoId = mesh.vboId = mesh.eboId = 0;
+       mesh.instanceAttribs = false;
+    }
+
+    private void setupAttributes(GL3 gl, boolean log,          // Attribute fuer das gebundene VAO/VBO
+                                 long base)                    // Byte-Position des ersten Vertex
+    {  int[] ids = { vPositionId, vColorId, vNormalId };
+       String[] names = { "vPosition", "vColor", "vNormal" };
+       int[] offsets = { 0, vPositionSize, vPositionSize + vColorSize };
+       int[] sizes = { 4, 4, 4 };
+       int[] types = { GL3.GL_FLOAT, GL3.GL_FLOAT, GL3.GL_FLOAT };
+       boolean[] normalized = { false, false, false };
+       if ( vertexFormat == VERTEX_COMPACT )
+       {  sizes[0] = 3;                                        // w = 1
+          types[1] = GL3.GL_UNSIGNED_BYTE;                     // 0..255 -> 0..1
+          types[2] = GL3.GL_INT_2_10_10_10_REV;                // -511..511 -> -1..1
+          normalized[1] = normalized[2] = true;
+       }
+       for (int i = 0; i < ids.length; i++)
+         if ( log )
+           enableAttribute(gl, ids[i], names[i], sizes[i], types[i], normalized[i], vertexSize, (int)base + offsets[i]);
+         else if ( ids[i] >= 0 )
+         {  gl.glEnableVertexAttribArray(ids[i]);
+            gl.glVertexAttribPointer(ids[i], sizes[i], types[i], normalized[i], vertexSize, base + offsets[i]);
+         }
+    }
+
+    static int packNormal(float x, float y, float z)          // Einheitsnormale -> GL_INT_2_10_10_10_REV (w = 0)
+    {  float l = (float)Math.sqrt(x*x + y*y + z*z);
+       if ( l > 0 )
+       {  x /= l;
+          y /= l;
+          z /= l;
+       }
+       int ix = Math.round(x*511) & 0x3FF;
+       int iy = Math.round(y*511) & 0x3FF;
+       int iz = Math.round(z*511) & 0x3FF;
+       return ix | (iy << 10) | (iz << 20);
+    }
+
+    static byte toByte(float c)                                // Farbkomponente 0..1 -> 0..255
+    {  return (byte)Math.round(Math.max(0, Math.min(1, c)) * 255);
+    }
+
+
     public void setM(GL3 gl, Mat4 M)                            // ModelView-Matrix
     {   this.M = M;
         gl.glUniformMatrix4fv(MId, 1, false, M.toArray(), 0);
@@ -232,6 +674,10 @@ public class MyGLBase1
     {  return P;
     }
 
+    public int getVertexFormat()
+    {  return vertexFormat;
+    }
+
     public int getShadingLevel()                                         // Projektions-Matrix
     {  return shadingLevel;
     }
@@ -68,6 +68,68 @@ public class MyShaders
     "   }";
 
 
+    /* -----------  Vertex-Shader wie vShader2, mit Instancing  ------  */
+    /*  pro Instanz: Modell-Matrix iModel und Farbe iColor (nur wenn instanced = 1)  */
+    public static String vShader3 =
+    "   #version 140                                         /* Shader Language Version */                \n" +
+    "   /*  -------- Input/Output Variabeln  ----------- */                                               \n" +
+    "                                                                                                     \n" +
+    "   uniform mat4 M, P;                                   /* Transformations-Matrizen */               \n" +
+    "   uniform vec4 lightPosition;                          /* Position Lichtquelle (im Cam.System) */   \n" +
+    "   uniform int shadingLevel;                            /* 0 ohne Beleucht, 1 diffuse Reflexion */   \n" +
+    "   uniform float ambient;                               /* ambientes Licht */                        \n" +
+    "   uniform float diffuse;                               /* diffuse Reflexion */                      \n" +
+    "   uniform int instanced;                               /* 1: Instanz-Attribute verwenden */         \n" +
+    "   in vec4 vPosition, vColor, vNormal;                  /* Vertex-Attribute */                       \n" +
+    "   in mat4 iModel;                                      /* Instanz-Attribute (Divisor 1) */          \n" +
+    "   in vec4 iColor;                                                                                   \n" +
+    "   out vec4 fColor;                                     /* Fragment-Farbe */                         \n" +
+    "   void main()                                                                                       \n" +
+    "   {  mat4 MV = M;                                                                                   \n" +
+    "      fColor = vColor;                                                                               \n" +
+    "      if (instanced == 1)                                                                            \n" +
+    "      {  MV = M * iModel;                                                                            \n" +
+    "         fColor = vColor * iColor;                                                                   \n" +
+    "      }                                                                                              \n" +
+    "      vec4 vertex = MV * vPosition;                     /* ModelView=Transformation */               \n" +
+    "      gl_Position = P * vertex;                         /* Projektion */                             \n" +
+    "      float Id;                                         /* Helligkeit diffuse Reflexion */           \n" +
+    "      if (shadingLevel >= 1)                                                                         \n" +
+    "      { vec3 normal = normalize((MV * vNormal).xyz);                                                 \n" +
+    "        vec3 toLight = normalize(lightPosition.xyz - vertex.xyz);                                    \n" +
+    "        Id = diffuse * dot(toLight, normal);            /* Gesetz von Lambert */                     \n" +
+    "        if ( Id < 0 ) Id = 0;                                                                        \n" +
+    "        vec3 whiteColor = vec3(1,1,1);                                                               \n" +
+    "        vec3 reflectedLight =  (ambient + Id) * fColor.rgb;                                          \n" +
+    "        fColor.rgb = min(reflectedLight, whiteColor);                                                \n" +
+    "      }                                                                                              \n" +
+    "   }";
+
+
+    /* -----------  Vertex-Shader fuer ein Bild (Textur) ueber das ganze Fenster  ------  */
+    public static String vShaderTex =
+    "   #version 130                                                              \n" +
+    "   in vec2 vPosition;                       /* Ecke in [-1,1]^2 */           \n" +
+    "   out vec2 texCoord;                                                        \n" +
+    "   void main()                                                               \n" +
+    "   {  gl_Position = vec4(vPosition, 0, 1);                                   \n" +
+    "      texCoord = 0.5 * (vPosition + 1);                                      \n" +
+    "   }";
+
+
+    /* -----------  Fragment-Shader: Helligkeit der Textur (Rot-Kanal) als Farbskala  ------  */
+    public static String fShaderTex =
+    "   #version 130                                                              \n" +
+    "   uniform sampler2D density;               /* Helligkeit 0..1 */            \n" +
+    "   in vec2 texCoord;                                                         \n" +
+    "   out vec4 fragColor;                                                       \n" +
+    "   void main()                                                               \n" +
+    "   {  float d = texture(density, texCoord).r;                                \n" +
+    "      fragColor = vec4(clamp(3*d, 0, 1), clamp(3*d - 1, 0, 1),               \n" +
+    "                       clamp(3*d - 2, 0, 1), 1);   /* schwarz-rot-gelb-weiss */ \n" +
+    "   }";
+
+
     public static int initShaders(GL3 gl,
                                    String vShader,   // Vertex-Shader
                                    String fShader)   // Fragment-Shader
@@ -0,0 +1,137 @@
+package programs;
+
+//-------------   Benchmark N-Koerper: Barnes-Hut gegen direkte Summe (ohne OpenGL)  -------------------
+//
+//  java programs.NBodyBenchmark [max. anzahl koerper]
+//
+//  1. Kepler: Erde + Satellit als NBodySystem, Vergleich mit KeplerDynamics
+//  2. Genauigkeit der Beschleunigungen fuer verschiedene Oeffnungswinkel
+//  3. Zeit pro Verlet-Schritt bis max. Koerper (Plummer-Kugel, G = M = 1)
+import java.util.Random;
+
+public class NBodyBenchmark {
+
+	static final int DIRECT_MAX = 16384; // darueber wird die direkte Summe hochgerechnet
+
+	// Plummer-Kugel mit n Koerpern der Gesamtmasse 1 im Gleichgewicht
+	static double[] plummer(int n, long seed) {
+		Random rnd = new Random(seed);
+		double[] x = new double[6 * n];
+		for (int i = 0; i < n; i++) {
+			double r;
+			do
+				r = 1 / Math.sqrt(Math.pow(rnd.nextDouble(), -2.0 / 3) - 1);
+			while (r > 10);
+			setRandom(x, 3 * i, r, rnd);
+			double q, g;
+			do { // von Neumann: g(q) = q^2 (1 - q^2)^3.5
+				q = rnd.nextDouble();
+				g = 0.1 * rnd.nextDouble();
+			} while (g > q * q * Math.pow(1 - q * q, 3.5));
+			setRandom(x, 3 * (n + i), q * Math.sqrt(2) * Math.pow(1 + r * r, -0.25), rnd);
+		}
+		return x;
+	}
+
+	// Vektor der Laenge len in zufaelliger Richtung nach x[o..o+2]
+	static void setRandom(double[] x, int o, double len, Random rnd) {
+		double z = 2 * rnd.nextDouble() - 1, phi = 2 * Math.PI * rnd.nextDouble();
+		double s = Math.sqrt(1 - z * z);
+		x[o] = len * s * Math.cos(phi);
+		x[o + 1] = len * s * Math.sin(phi);
+		x[o + 2] = len * z;
+	}
+
+	static double[] masses(int n) {
+		double[] m = new double[n];
+		java.util.Arrays.fill(m, 1.0 / n);
+		return m;
+	}
+
+	// relative Abweichung (RMS) der Beschleunigungen a gegen ref
+	static double rms(double[] a, double[] ref) {
+		double e = 0, s = 0;
+		for (int i = 0; i < ref.length; i++) {
+			e += (a[i] - ref[i]) * (a[i] - ref[i]);
+			s += ref[i] * ref[i];
+		}
+		return Math.sqrt(e / s);
+	}
+
+	static boolean kepler() {
+		double GM = KeplerBenchmark.GM;
+		KeplerDynamics k = new KeplerDynamics(GM);
+		double[] xk = KeplerBenchmark.startState();
+		NBodySystem nb = new NBodySystem(new double[] { GM, 1e-20 * GM }, 1);
+		nb.setSoftening(0);
+		double[] xn = { 0, 0, 0, xk[0], xk[1], 0, 0, 0, 0, xk[2], xk[3], 0 };
+		double dt = k.period(xk) / 1000;
+		for (int i = 0; i < 1000; i++) {
+			k.verletInPlace(xk, dt);
+			nb.verletInPlace(xn, dt);
+		}
+		double d = Math.hypot(xn[3] - xk[0], xn[4] - xk[1]) / Math.hypot(xk[0], xk[1]);
+		System.out.printf("Kepler: Satellit nach einem Umlauf, rel. Abweichung zu KeplerDynamics %.1e%n", d);
+		return d < 1e-9;
+	}
+
+	public static void main(String[] args) {
+		int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+		System.out.printf("Threads: %d%n", java.util.concurrent.ForkJoinPool.commonPool().getParallelism());
+		boolean ok = kepler();
+
+		int n = 16384;
+		double[] x = plummer(n, 1);
+		NBodySystem nb = new NBodySystem(masses(n), 1);
+		nb.setSoftening(0.01);
+		double[] ref = new double[3 * n], a = new double[3 * n];
+		nb.accelerationDirect(x, ref);
+		System.out.printf("%nGenauigkeit N=%d%n%8s %12s %12s%n", n, "theta", "rel. Fehler", "ms");
+		for (double theta : new double[] { 0.3, 0.5, 0.7, 1.0 }) {
+			nb.setTheta(theta);
+			nb.acceleration(x, a); // aufwaermen
+			nb.acceleration(x, a);
+			long t0 = System.nanoTime();
+			nb.acceleration(x, a);
+			double ms = (System.nanoTime() - t0) * 1e-6;
+			double err = rms(a, ref);
+			System.out.printf("%8.1f %12.1e %12.1f%n", theta, err, ms);
+			if (theta == 0.7 && err > 1e-2)
+				ok = false;
+		}
+
+		System.out.printf("%nVerlet-Schritt, theta = 0.7%n%8s %10s %12s %12s %12s %14s%n", "N", "Knoten", "Baum ms",
+				"Schritt ms", "nachsort.", "direkt ms");
+		double directPerPair = 0;
+		for (n = 16384; n <= maxN; n *= 4) {
+			x = plummer(n, 2);
+			nb = new NBodySystem(masses(n), 1);
+			nb.setSoftening(0.01);
+			double dt = 0.001;
+			nb.verletInPlace(x, dt); // erster Aufbau mit Radix-Sort
+			long t0 = System.nanoTime();
+			nb.buildTree(x);
+			long t1 = System.nanoTime();
+			int steps = 3;
+			for (int i = 0; i < steps; i++)
+				nb.verletInPlace(x, dt);
+			long t2 = System.nanoTime();
+			String direct;
+			if (n <= DIRECT_MAX) {
+				a = new double[3 * n];
+				long t3 = System.nanoTime();
+				nb.accelerationDirect(x, a);
+				long t4 = System.nanoTime();
+				directPerPair = (t4 - t3) / ((double) n * n);
+				direct = String.format("%.1f", (t4 - t3) * 1e-6);
+			} else
+				direct = String.format("~%.0f", directPerPair * n * n * 1e-6);
+			System.out.printf("%8d %10d %12.1f %12.1f %12d %14s%n", n, nb.getNodeCount(), (t1 - t0) * 1e-6,
+					(t2 - t1) * 1e-6 / steps, nb.nShifts, direct);
+		}
+		System.out.println(ok ? "ok" : "FEHLER");
+		if (!ok)
+			System.exit(1);
+	}
+
+}
@@ -0,0 +1,427 @@
+package programs;
+
+//-------------   N Koerper mit gegenseitiger Gravitation (Barnes-Hut), ohne OpenGL  -------------------
+//
+//  Verallgemeinerung von KeplerDynamics: Zustand { x0,y0,z0, x1,y1,z1, ..., vx0,vy0,vz0, ... },
+//  integriert z.B. mit verletInPlace (eine Kraftberechnung pro Schritt).
+//
+//  Kraftberechnung: die Koerper werden nach ihrem Morton-Schluessel (z-Kurve)
+//  sortiert, daraus entsteht der Oktalbaum als zusammenhaengende Bereiche der
+//  sortierten Folge. Von Schritt zu Schritt bleibt die Reihenfolge fast gleich,
+//  deshalb wird die letzte Reihenfolge mit Insertion-Sort nachsortiert (nur bei
+//  zu vielen Verschiebungen Radix-Sort). Ein Knoten der Kantenlaenge s im
+//  Abstand d wird als Punktmasse genommen, falls s < theta * d. Der Baum wird
+//  pro Blatt (Gruppe von hoechstens LEAF Koerpern) einmal durchlaufen, d ist
+//  dabei der Abstand zur Box der Gruppe. Die Blaetter werden mit ForkJoin
+//  parallel berechnet, jeder Koerper unabhaengig von der Aufteilung.
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class NBodySystem extends SeparableDynamics {
+
+	static final int LEAF = 16; // max. Koerper pro Blatt
+	static final int BITS = 21; // Bits pro Koordinate im Morton-Schluessel
+
+	final int n;
+	final double[] m;
+	double G;
+	double theta = 0.7; // Oeffnungswinkel (rel. Fehler der Beschleunigung ~ 4e-3)
+	double eps2 = 1e-6; // Glaettung^2 gegen Singularitaeten
+	ForkJoinPool pool = ForkJoinPool.commonPool();
+	int grain = 1024; // min. Koerper pro Task
+
+	// Koerper in Morton-Reihenfolge
+	int[] order;
+	long[] key, sortKey;
+	double[] px, py, pz, pm;
+	long nShifts; // Verschiebungen des letzten Nachsortierens (-1: Radix-Sort)
+
+	// Knoten (Wurzel = 0), Kinder liegen hintereinander ab child[i]
+	int nNodes, nLeaves;
+	int[] leaves = {}; // Blaetter in Morton-Reihenfolge
+	int[] lo = {}, hi = {}, child = {}, nChild = {};
+	double[] nm = {}, cx = {}, cy = {}, cz = {}, open2 = {}; // Masse, Schwerpunkt, (s/theta)^2
+
+	public NBodySystem(double[] m, double G) {
+		this.n = m.length;
+		this.m = m;
+		this.G = G;
+		order = new int[n];
+		for (int i = 0; i < n; i++)
+			order[i] = i;
+		key = new long[n];
+		sortKey = new long[n];
+		px = new double[n];
+		py = new double[n];
+		pz = new double[n];
+		pm = new double[n];
+		allocNodes(Math.max(16, n / 2));
+	}
+
+	public void setTheta(double theta) {
+		this.theta = theta;
+	}
+
+	public void setSoftening(double eps) {
+		eps2 = eps * eps;
+	}
+
+	public void setPool(ForkJoinPool pool, int grain) {
+		this.pool = pool;
+		this.grain = grain;
+	}
+
+	public int getNodeCount() {
+		return nNodes;
+	}
+
+	@Override
+	public void acceleration(double[] x, double[] a) {
+		buildTree(x);
+		pool.invoke(new ForceTask(a, 0, nLeaves));
+	}
+
+	// ------ Baum ------
+
+	public void buildTree(double[] x) {
+		double xmin = Double.MAX_VALUE, ymin = xmin, zmin = xmin;
+		double xmax = -Double.MAX_VALUE, ymax = xmax, zmax = xmax;
+		for (int i = 0; i < n; i++) {
+			xmin = Math.min(xmin, x[3 * i]);
+			xmax = Math.max(xmax, x[3 * i]);
+			ymin = Math.min(ymin, x[3 * i + 1]);
+			ymax = Math.max(ymax, x[3 * i + 1]);
+			zmin = Math.min(zmin, x[3 * i + 2]);
+			zmax = Math.max(zmax, x[3 * i + 2]);
+		}
+		double size = Math.max(xmax - xmin, Math.max(ymax - ymin, zmax - zmin));
+		if (size == 0)
+			size = 1;
+		double scale = (1 << BITS) / (size * (1 + 1e-9));
+		for (int i = 0; i < n; i++)
+			key[i] = morton((int) ((x[3 * i] - xmin) * scale), (int) ((x[3 * i + 1] - ymin) * scale),
+					(int) ((x[3 * i + 2] - zmin) * scale));
+		if (!insertionSort(8L * n + 1024))
+			radixSort();
+		for (int k = 0; k < n; k++) {
+			int i = order[k];
+			sortKey[k] = key[i];
+			px[k] = x[3 * i];
+			py[k] = x[3 * i + 1];
+			pz[k] = x[3 * i + 2];
+			pm[k] = m[i];
+		}
+		nNodes = 1;
+		nLeaves = 0;
+		build(0, 0, n, 0, size);
+	}
+
+	// Bits von ix, iy, iz verschraenkt (je 21 Bit)
+	static long morton(int ix, int iy, int iz) {
+		return spread(ix) << 2 | spread(iy) << 1 | spread(iz);
+	}
+
+	static long spread(int v) {
+		long x = v & 0x1fffffL;
+		x = (x | x << 32) & 0x1f00000000ffffL;
+		x = (x | x << 16) & 0x1f0000ff0000ffL;
+		x = (x | x << 8) & 0x100f00f00f00f00fL;
+		x = (x | x << 4) & 0x10c30c30c30c30c3L;
+		x = (x | x << 2) & 0x1249249249249249L;
+		return x;
+	}
+
+	// letzte Reihenfolge nachsortieren, false bei mehr als maxShifts Verschiebungen
+	private boolean insertionSort(long maxShifts) {
+		long shifts = 0;
+		for (int k = 1; k < n; k++) {
+			int i = order[k];
+			long ki = key[i];
+			int j = k - 1;
+			while (j >= 0 && key[order[j]] > ki) {
+				order[j + 1] = order[j];
+				j--;
+				if (++shifts > maxShifts) {
+					order[j + 1] = i; // Permutation bleibt gueltig
+					nShifts = -1;
+					return false;
+				}
+			}
+			order[j + 1] = i;
+		}
+		nShifts = shifts;
+		return true;
+	}
+
+	// LSD Radix-Sort der Indizes nach key, 8 Bit pro Durchgang
+	private void radixSort() {
+		int[] tmp = new int[n];
+		int[] count = new int[257];
+		for (int shift = 0; shift < 3 * BITS; shift += 8) {
+			Arrays.fill(count, 0);
+			for (int k = 0; k < n; k++)
+				count[(int) (key[order[k]] >>> shift & 0xff) + 1]++;
+			for (int b = 0; b < 256; b++)
+				count[b + 1] += count[b];
+			for (int k = 0; k < n; k++)
+				tmp[count[(int) (key[order[k]] >>> shift & 0xff)]++] = order[k];
+			int[] t = order;
+			order = tmp;
+			tmp = t;
+		}
+	}
+
+	// Knoten i fuer die sortierten Koerper lo..hi-1 auf Stufe level (Kantenlaenge s)
+	private void build(int i, int from, int to, int level, double s) {
+		lo[i] = from;
+		hi[i] = to;
+		double inv = theta > 0 ? s / theta : Double.MAX_VALUE;
+		open2[i] = inv * inv;
+		if (to - from <= LEAF || level == BITS) {
+			nChild[i] = 0;
+			if (nLeaves == leaves.length)
+				leaves = Arrays.copyOf(leaves, Math.max(16, 2 * nLeaves));
+			leaves[nLeaves++] = i;
+			double mm = 0, sx = 0, sy = 0, sz = 0;
+			for (int k = from; k < to; k++) {
+				mm += pm[k];
+				sx += pm[k] * px[k];
+				sy += pm[k] * py[k];
+				sz += pm[k] * pz[k];
+			}
+			setMass(i, mm, sx, sy, sz);
+			return;
+		}
+		// Bereiche der 8 Oktanten (naechste 3 Bits des Schluessels)
+		int shift = 3 * (BITS - 1 - level);
+		int c = 0;
+		int first = nNodes;
+		int[] bounds = new int[9];
+		bounds[0] = from;
+		for (int o = 0; o < 8; o++) {
+			int b = bounds[o];
+			while (b < to && (int) (sortKey[b] >>> shift & 7) == o)
+				b++;
+			bounds[o + 1] = b;
+			if (b > bounds[o])
+				c++;
+		}
+		if (nNodes + c > lo.length)
+			allocNodes(2 * lo.length + c);
+		nNodes += c;
+		child[i] = first;
+		nChild[i] = c;
+		int ci = first;
+		for (int o = 0; o < 8; o++)
+			if (bounds[o + 1] > bounds[o])
+				build(ci++, bounds[o], bounds[o + 1], level + 1, 0.5 * s);
+		double mm = 0, sx = 0, sy = 0, sz = 0;
+		for (int k = first; k < first + c; k++) {
+			mm += nm[k];
+			sx += nm[k] * cx[k];
+			sy += nm[k] * cy[k];
+			sz += nm[k] * cz[k];
+		}
+		setMass(i, mm, sx, sy, sz);
+	}
+
+	private void setMass(int i, double mm, double sx, double sy, double sz) {
+		nm[i] = mm;
+		if (mm > 0) {
+			cx[i] = sx / mm;
+			cy[i] = sy / mm;
+			cz[i] = sz / mm;
+		} else {
+			cx[i] = sx;
+			cy[i] = sy;
+			cz[i] = sz;
+		}
+	}
+
+	private void allocNodes(int c) {
+		lo = Arrays.copyOf(lo, c);
+		hi = Arrays.copyOf(hi, c);
+		child = Arrays.copyOf(child, c);
+		nChild = Arrays.copyOf(nChild, c);
+		nm = Arrays.copyOf(nm, c);
+		cx = Arrays.copyOf(cx, c);
+		cy = Arrays.copyOf(cy, c);
+		cz = Arrays.copyOf(cz, c);
+		open2 = Arrays.copyOf(open2, c);
+	}
+
+	// ------ Kraefte ------
+
+	// Beschleunigungen der Koerper im Blatt L nach a[3*order[k]..]. Der Baum wird
+	// einmal fuer die ganze Gruppe durchlaufen (Abstand zur Box der Gruppe), die
+	// Liste der Punktmassen gilt dann fuer jeden Koerper der Gruppe.
+	private void forceLeaf(int L, double[] a, Liste li) {
+		int from = lo[L], to = hi[L];
+		double gx0 = Double.MAX_VALUE, gy0 = gx0, gz0 = gx0, gx1 = -gx0, gy1 = gx1, gz1 = gx1;
+		for (int k = from; k < to; k++) {
+			gx0 = Math.min(gx0, px[k]);
+			gx1 = Math.max(gx1, px[k]);
+			gy0 = Math.min(gy0, py[k]);
+			gy1 = Math.max(gy1, py[k]);
+			gz0 = Math.min(gz0, pz[k]);
+			gz1 = Math.max(gz1, pz[k]);
+		}
+		li.n = 0;
+		int[] stack = li.stack;
+		int sp = 0;
+		stack[sp++] = 0;
+		while (sp > 0) {
+			int i = stack[--sp];
+			if (i == L)
+				continue;
+			boolean vorfahr = lo[i] <= from && to <= hi[i];
+			if (!vorfahr) {
+				double dx = Math.max(0, Math.max(gx0 - cx[i], cx[i] - gx1));
+				double dy = Math.max(0, Math.max(gy0 - cy[i], cy[i] - gy1));
+				double dz = Math.max(0, Math.max(gz0 - cz[i], cz[i] - gz1));
+				if (open2[i] < dx * dx + dy * dy + dz * dz) { // weit genug weg: Punktmasse
+					li.add(cx[i], cy[i], cz[i], nm[i]);
+					continue;
+				}
+			}
+			if (nChild[i] == 0) // Blatt: alle Koerper
+				for (int j = lo[i]; j < hi[i]; j++)
+					li.add(px[j], py[j], pz[j], pm[j]);
+			else
+				for (int c = child[i], e = c + nChild[i]; c < e; c++)
+					stack[sp++] = c;
+		}
+		double[] lx = li.x, ly = li.y, lz = li.z, lm = li.m;
+		int nl = li.n;
+		for (int k = from; k < to; k++) {
+			double x = px[k], y = py[k], z = pz[k];
+			double ax = 0, ay = 0, az = 0;
+			for (int j = 0; j < nl; j++) {
+				double dx = lx[j] - x, dy = ly[j] - y, dz = lz[j] - z;
+				double r2 = dx * dx + dy * dy + dz * dz + eps2;
+				double f = lm[j] / (r2 * Math.sqrt(r2));
+				ax += f * dx;
+				ay += f * dy;
+				az += f * dz;
+			}
+			for (int j = from; j < to; j++) { // eigenes Blatt ohne k
+				if (j == k)
+					continue;
+				double dx = px[j] - x, dy = py[j] - y, dz = pz[j] - z;
+				double r2 = dx * dx + dy * dy + dz * dz + eps2;
+				double f = pm[j] / (r2 * Math.sqrt(r2));
+				ax += f * dx;
+				ay += f * dy;
+				az += f * dz;
+			}
+			int o = 3 * order[k];
+			a[o] = G * ax;
+			a[o + 1] = G * ay;
+			a[o + 2] = G * az;
+		}
+	}
+
+	// Interaktionsliste einer Gruppe (pro Task)
+	static class Liste {
+		double[] x = new double[1024], y = new double[1024], z = new double[1024], m = new double[1024];
+		int n;
+		final int[] stack = new int[8 * BITS + 8];
+
+		void add(double px, double py, double pz, double pm) {
+			if (n == x.length) {
+				x = Arrays.copyOf(x, 2 * n);
+				y = Arrays.copyOf(y, 2 * n);
+				z = Arrays.copyOf(z, 2 * n);
+				m = Arrays.copyOf(m, 2 * n);
+			}
+			x[n] = px;
+			y[n] = py;
+			z[n] = pz;
+			m[n++] = pm;
+		}
+	}
+
+	class ForceTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		final double[] a;
+		final int from, to; // Bereich in leaves
+
+		ForceTask(double[] a, int from, int to) {
+			this.a = a;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= Math.max(1, grain / LEAF)) {
+				Liste li = new Liste();
+				for (int l = from; l < to; l++)
+					forceLeaf(leaves[l], a, li);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new ForceTask(a, from, mid), new ForceTask(a, mid, to));
+		}
+	}
+
+	// Vergleich: direkte Summe ueber alle Paare, O(n^2), ebenfalls parallel
+	public void accelerationDirect(double[] x, double[] a) {
+		pool.invoke(new DirectTask(x, a, 0, n));
+	}
+
+	class DirectTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		final double[] x, a;
+		final int from, to;
+
+		DirectTask(double[] x, double[] a, int from, int to) {
+			this.x = x;
+			this.a = a;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= Math.max(1, grain / 16)) {
+				for (int i = from; i < to; i++) {
+					double xi = x[3 * i], yi = x[3 * i + 1], zi = x[3 * i + 2];
+					double ax = 0, ay = 0, az = 0;
+					for (int j = 0; j < n; j++) {
+						if (j == i)
+							continue;
+						double dx = x[3 * j] - xi, dy = x[3 * j + 1] - yi, dz = x[3 * j + 2] - zi;
+						double r2 = dx * dx + dy * dy + dz * dz + eps2;
+						double f = m[j] / (r2 * Math.sqrt(r2));
+						ax += f * dx;
+						ay += f * dy;
+						az += f * dz;
+					}
+					a[3 * i] = G * ax;
+					a[3 * i + 1] = G * ay;
+					a[3 * i + 2] = G * az;
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new DirectTask(x, a, from, mid), new DirectTask(x, a, mid, to));
+		}
+	}
+
+	// kinetische plus potentielle Energie (Potential direkt, O(n^2))
+	public double energy(double[] x) {
+		double e = 0;
+		for (int i = 0; i < n; i++) {
+			int v = 3 * (n + i);
+			e += 0.5 * m[i] * (x[v] * x[v] + x[v + 1] * x[v + 1] + x[v + 2] * x[v + 2]);
+			for (int j = i + 1; j < n; j++) {
+				double dx = x[3 * j] - x[3 * i], dy = x[3 * j + 1] - x[3 * i + 1], dz = x[3 * j + 2] - x[3 * i + 2];
+				e -= G * m[i] * m[j] / Math.sqrt(dx * dx + dy * dy + dz * dz + eps2);
+			}
+		}
+		return e;
+	}
+
+}
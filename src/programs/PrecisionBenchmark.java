@@ -0,0 +1,102 @@
+package programs;
+
+//-------------   Kepler-Bahn mit Vec3 (float) gegen Vec3d (double)  -------------------
+//
+//  Velocity-Verlet mit den unveraenderlichen Vektortypen, gemessen werden
+//  Zeit pro Schritt und der max. relative Energiefehler ueber viele Umlaeufe.
+//  Der Verlet-Fehler ist beschraenkt, ein wachsender Fehler kommt also von
+//  der Rundung.
+//
+//  java programs.PrecisionBenchmark [umlaeufe] [schritte pro umlauf]
+import ch.fhnw.util.math.*;
+
+public class PrecisionBenchmark {
+
+	static final double GM = 9.81e-6 * 6.378 * 6.378; // Erde wie in Kepler
+	static final double X0 = 42;
+	static final double V0 = 0.6 * Math.sqrt(GM / X0); // exzentrische Bahn
+	static final int SAMPLES = 10; // Energie-Kontrollen pro Umlauf
+
+	static double period() {
+		double e = 0.5 * V0 * V0 - GM / X0;
+		double a = -GM / (2 * e);
+		return 2 * Math.PI * Math.sqrt(a * a * a / GM);
+	}
+
+	static double energy(double x, double y, double z, double vx, double vy, double vz) {
+		return 0.5 * (vx * vx + vy * vy + vz * vz) - GM / Math.sqrt(x * x + y * y + z * z);
+	}
+
+	// ------ float ------
+
+	static Vec3 accel(Vec3 r, float gm) {
+		float l = r.length();
+		return r.scale(-gm / (l * l * l));
+	}
+
+	static double[] runFloat(int orbits, int nPerOrbit) {
+		float dt = (float) (period() / nPerOrbit);
+		float gm = (float) GM;
+		Vec3 r = new Vec3(X0, 0, 0);
+		Vec3 v = new Vec3(0, V0, 0);
+		Vec3 a = accel(r, gm);
+		double e0 = energy(r.x, r.y, r.z, v.x, v.y, v.z);
+		double drift = 0;
+		long t0 = System.nanoTime();
+		for (int o = 0; o < orbits; o++)
+			for (int i = 1; i <= nPerOrbit; i++) {
+				v = v.add(a.scale(0.5f * dt));
+				r = r.add(v.scale(dt));
+				a = accel(r, gm);
+				v = v.add(a.scale(0.5f * dt));
+				if (i % (nPerOrbit / SAMPLES) == 0)
+					drift = Math.max(drift, Math.abs((energy(r.x, r.y, r.z, v.x, v.y, v.z) - e0) / e0));
+			}
+		long t1 = System.nanoTime();
+		return new double[] { (double) (t1 - t0) / ((long) orbits * nPerOrbit), drift };
+	}
+
+	// ------ double ------
+
+	static Vec3d accel(Vec3d r) {
+		double l = r.length();
+		return r.scale(-GM / (l * l * l));
+	}
+
+	static double[] runDouble(int orbits, int nPerOrbit) {
+		double dt = period() / nPerOrbit;
+		Vec3d r = new Vec3d(X0, 0, 0);
+		Vec3d v = new Vec3d(0, V0, 0);
+		Vec3d a = accel(r);
+		double e0 = energy(r.x, r.y, r.z, v.x, v.y, v.z);
+		double drift = 0;
+		long t0 = System.nanoTime();
+		for (int o = 0; o < orbits; o++)
+			for (int i = 1; i <= nPerOrbit; i++) {
+				v = v.add(a.scale(0.5 * dt));
+				r = r.add(v.scale(dt));
+				a = accel(r);
+				v = v.add(a.scale(0.5 * dt));
+				if (i % (nPerOrbit / SAMPLES) == 0)
+					drift = Math.max(drift, Math.abs((energy(r.x, r.y, r.z, v.x, v.y, v.z) - e0) / e0));
+			}
+		long t1 = System.nanoTime();
+		return new double[] { (double) (t1 - t0) / ((long) orbits * nPerOrbit), drift };
+	}
+
+	public static void main(String[] args) {
+		int orbits = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int nPerOrbit = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		runFloat(10, nPerOrbit); // Aufwaermen
+		runDouble(10, nPerOrbit);
+		System.out.printf("%d Umlaeufe a %d Schritte%n", orbits, nPerOrbit);
+		System.out.printf("%-8s %10s %14s%n", "", "ns/step", "rel. drift");
+		for (int n = 1; n <= orbits; n *= 10) {
+			double[] f = runFloat(n, nPerOrbit);
+			double[] d = runDouble(n, nPerOrbit);
+			System.out.printf("%6d   float  %8.2f %14.3e%n", n, f[0], f[1]);
+			System.out.printf("%6d   double %8.2f %14.3e%n", n, d[0], d[1]);
+		}
+	}
+
+}
@@ -46,6 +46,31 @@ public class Quader
     public void zeichne(GL3 gl,
                         float a, float b, float c,   // Kantenlaengen
                         boolean gefuellt)
+    {  MyGLBase1.MeshKey key = vb.meshKey("Quader").add(a).add(b).add(c).add(gefuellt);
+       MyGLBase1.Mesh mesh = vb.getMesh(key);         // Geometrie nur einmal erzeugen
+       if ( mesh == null )
+         mesh = vb.storeMesh(gl, key, erzeuge(gl, a, b, c, gefuellt));
+       vb.drawMesh(gl, mesh);
+    }
+
+
+    public void zeichneInstanzen(GL3 gl,             // n Einheits-Quader mit Matrix und Farbe pro Instanz
+                        float[] inst, int n,          // (siehe MyGLBase1.putInstance)
+                        boolean gefuellt)
+    {  float[] c = vb.getCurrentColor();
+       vb.setColor(1,1,1);                            // Farbe kommt von der Instanz
+       MyGLBase1.MeshKey key = vb.meshKey("Quader").add(1).add(1).add(1).add(gefuellt);
+       MyGLBase1.Mesh mesh = vb.getMesh(key);
+       if ( mesh == null )
+         mesh = vb.storeMesh(gl, key, erzeuge(gl, 1, 1, 1, gefuellt));
+       vb.drawMeshInstanced(gl, mesh, inst, n);
+       vb.setColor(c[0], c[1], c[2]);
+    }
+
+
+    private MyGLBase1.Mesh erzeuge(GL3 gl,          // Vertices ins Vertex-Array von vb
+                        float a, float b, float c,
+                        boolean gefuellt)
     {  a *= 0.5f;
        b *= 0.5f;
        c *= 0.5f;
@@ -57,8 +82,8 @@ public class Quader
        Vec3 F = new Vec3( a, b,-c);
        Vec3 G = new Vec3(-a, b,-c);
        Vec3 H = new Vec3(-a, b, c);
+       MyGLBase1.Mesh mesh = new MyGLBase1.Mesh();
        vb.rewindBuffer(gl);
-       int nVertices;
        if ( gefuellt )
        {  Viereck(gl,D,C,B,A,e2n);            // Boden
           Viereck(gl,E,F,G,H,e2);             // Deckflaeche
@@ -66,9 +91,7 @@ public class Quader
           Viereck(gl,B,C,G,F,e3n);
           Viereck(gl,D,H,G,C,e1n);
           Viereck(gl,A,E,H,D,e3);
-          nVertices = 36;
-          vb.copyBuffer(gl);
-          vb.drawArrays(gl,GL3.GL_TRIANGLES);
+          mesh.addDraw(GL3.GL_TRIANGLES, 0, 36);
        }
        else
        {  kante(A,B);                         // Boden
@@ -83,10 +106,9 @@ public class Quader
           kante(B,F);
           kante(C,G);
           kante(D,H);
-          nVertices = 24;
-          vb.copyBuffer(gl);
-          vb.drawArrays(gl,GL3.GL_LINES);
+          mesh.addDraw(GL3.GL_LINES, 0, 24);
         }
+       return mesh;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package programs;
+
+//-------------   Benchmark RigidBodyWorld mit und ohne Schlafzustand (ohne OpenGL)  -------------------
+//
+//  java programs.RigidBodyBenchmark [max. anzahl quader]
+//
+//  Quader (1 x 1 x 1) auf einem Gitter ohne Beruehrung. 1% dreht sich dauernd,
+//  die uebrigen liegen still und schlafen nach sleepTime ein. Ein Geschoss
+//  fliegt in die erste Gitterreihe und weckt die getroffenen Quader.
+import java.util.Random;
+
+public class RigidBodyBenchmark {
+
+	static final double ABSTAND = 2.5; // Gitterabstand (Huellkugel-Durchmesser 1.73)
+	static final double DT = 0.01;
+	static final int WARMUP = 100, STEPS = 200;
+
+	static RigidBodyWorld create(int k, boolean schlafen) {
+		RigidBodyWorld w = new RigidBodyWorld(1);
+		w.setSleeping(schlafen, 1e-4, 0.5);
+		Random rnd = new Random(1);
+		for (int i = 0; i < k; i++)
+			for (int j = 0; j < k; j++)
+				for (int l = 0; l < k; l++) {
+					RigidBodyWorld.Body b = new RigidBodyWorld.Body(1, 1, 1, 1);
+					b.setPosition(i * ABSTAND, j * ABSTAND, l * ABSTAND);
+					if (rnd.nextInt(100) == 0)
+						b.setRotation(3 * rnd.nextGaussian(), 3 * rnd.nextGaussian(), 3 * rnd.nextGaussian(), 0, 1, 0, 0);
+					w.add(b);
+				}
+		RigidBodyWorld.Body geschoss = new RigidBodyWorld.Body(1, 1, 1, 1);
+		geschoss.setPosition(-ABSTAND, 0, 0);
+		geschoss.setVelocity(5, 0, 0);
+		w.add(geschoss);
+		return w;
+	}
+
+	// groesste Abweichung von Lage und Orientierung zwischen zwei Welten
+	static double diff(RigidBodyWorld a, RigidBodyWorld b) {
+		double d = 0;
+		for (int i = 0; i < a.size(); i++) {
+			RigidBodyWorld.Body p = a.getBody(i), q = b.getBody(i);
+			d = Math.max(d, Math.abs(p.x - q.x) + Math.abs(p.y - q.y) + Math.abs(p.z - q.z));
+			for (int s = 3; s < 7; s++)
+				d = Math.max(d, Math.abs(p.getState()[s] - q.getState()[s]));
+		}
+		return d;
+	}
+
+	static double time(RigidBodyWorld w) {
+		for (int i = 0; i < WARMUP; i++)
+			w.step(DT);
+		long t0 = System.nanoTime();
+		for (int i = 0; i < STEPS; i++)
+			w.step(DT);
+		return (System.nanoTime() - t0) * 1e-3 / STEPS;
+	}
+
+	public static void main(String[] args) {
+		int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 30_000;
+		int fehler = 0;
+		System.out.printf("%8s %8s %8s %12s %12s %8s %8s %10s%n", "N", "wach", "Inseln", "schlafen us", "immer us",
+				"Faktor", "geweckt", "Abweichung");
+		for (int k = 10; k * k * k <= maxN; k += 10) {
+			RigidBodyWorld an = create(k, true), aus = create(k, false);
+			double tAn = time(an), tAus = time(aus);
+			double d = diff(an, aus);
+			// Geschoss hat die erste Reihe getroffen: Quader (0,0,0) wach und in Bewegung
+			RigidBodyWorld.Body erster = an.getBody(0);
+			boolean ok = !erster.isSleeping() && erster.vx > 0 && an.getWakeUps() > 0 && d < 1e-12;
+			if (!ok)
+				fehler++;
+			System.out.printf("%8d %8d %8d %12.1f %12.1f %8.1f %8d %10.1e%s%n", an.size(), an.getActiveCount(),
+					an.getIslandCount(), tAn, tAus, tAus / tAn, an.getWakeUps(), d, ok ? "" : "   <-- FEHLER");
+		}
+		System.out.println(fehler == 0 ? "ok" : fehler + " Fehler");
+		if (fehler > 0)
+			System.exit(1);
+	}
+
+}
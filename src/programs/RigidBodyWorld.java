@@ -0,0 +1,304 @@
+package programs;
+
+//-------------   Starre Koerper (Quader) mit Inseln und Schlafzustand, ohne OpenGL  -------------------
+//
+//  Jeder Koerper hat eine GyroDynamics fuer Drehung und Orientierung und
+//  eine lineare Bewegung. Pro Schritt wird nur ueber die wachen Koerper
+//  iteriert: Kontakte (Huellkugeln, Stoss wie in KugelSystem) werden ueber
+//  den SpatialHash um die wachen Koerper gesucht und mit Union-Find zu
+//  Inseln zusammengefasst. Bleibt die Energie aller Koerper einer Insel
+//  sleepTime lang unter sleepEnergy, schlaeft die ganze Insel. Ein Kontakt
+//  mit einem wachen Koerper weckt die Insel wieder auf.
+import java.util.Arrays;
+
+public class RigidBodyWorld {
+
+	public static class Body {
+		final GyroDynamics gyro; // w1,w2,w3 und Quaternion in gyro.x
+		final double m; // Masse
+		final double radius; // Radius der Huellkugel
+		double x, y, z, vx, vy, vz; // Schwerpunkt und Geschwindigkeit
+		boolean sleeping;
+		double ruhe; // Zeit unter sleepEnergy
+		int index = -1;
+		int island = -1, nextInIsland = -1; // schlafende Insel: Wurzel und naechster Koerper
+
+		public Body(GyroDynamics gyro, double m, double radius) {
+			this.gyro = gyro;
+			this.m = m;
+			this.radius = radius;
+		}
+
+		// Quader mit Masse m und Kantenlaengen a,b,c
+		public Body(double m, double a, double b, double c) {
+			this(new GyroDynamics((float) m, (float) a, (float) b, (float) c), m, 0.5 * Math.sqrt(a * a + b * b + c * c));
+			gyro.setState(0, 0, 0, 0, 1, 0, 0);
+		}
+
+		public Body(ModifyableQuader q) {
+			this(q.getM(), q.getA(), q.getB(), q.getC());
+		}
+
+		public void setPosition(double x, double y, double z) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+		public void setVelocity(double vx, double vy, double vz) {
+			this.vx = vx;
+			this.vy = vy;
+			this.vz = vz;
+		}
+
+		// Winkelgeschwindigkeit, Drehwinkel [Grad] und Drehachse wie GyroDynamics.setState
+		public void setRotation(double w1, double w2, double w3, double phi, double ax, double ay, double az) {
+			gyro.setState(w1, w2, w3, phi, ax, ay, az);
+		}
+
+		public void setAngularVelocity(double w1, double w2, double w3) {
+			gyro.x[0] = w1;
+			gyro.x[1] = w2;
+			gyro.x[2] = w3;
+		}
+
+		// Winkelgeschwindigkeit mit f multiplizieren: ein Schritt dt entspricht dann
+		// einem Schritt f*dt mit der alten (Euler-Gleichungen homogen in w)
+		public void scaleAngularVelocity(double f) {
+			setAngularVelocity(f * gyro.x[0], f * gyro.x[1], f * gyro.x[2]);
+		}
+
+		public double[] getState() { // w1,w2,w3,q0,q1,q2,q3
+			return gyro.x;
+		}
+
+		public boolean isSleeping() {
+			return sleeping;
+		}
+
+		// kinetische Energie (Translation und Rotation)
+		public double energy() {
+			double[] s = gyro.x;
+			return 0.5 * m * (vx * vx + vy * vy + vz * vz)
+					+ 0.5 * (gyro.I1 * s[0] * s[0] + gyro.I2 * s[1] * s[1] + gyro.I3 * s[2] * s[2]);
+		}
+	}
+
+	double sleepEnergy = 1e-4; // Schwelle fuer den Schlafzustand
+	double sleepTime = 0.5; // so lange muss die Energie darunter bleiben
+	boolean sleepingEnabled = true;
+	double linearDamping = 0, angularDamping = 0; // Anteil pro Zeiteinheit
+	double stossZahl = 0.5;
+
+	Body[] bodies = new Body[16];
+	int n = 0;
+	int[] active = new int[16]; // wache Koerper
+	int nActive = 0;
+	final SpatialHash grid;
+	final double maxRadius;
+
+	int[] uf = new int[16]; // Union-Find der Inseln (nur wache Koerper)
+	boolean[] ruhig = new boolean[16]; // pro Insel-Wurzel: alle Koerper ruhig
+	int nIslands = 0;
+	long nWakeUps = 0;
+	final double[] vv = new double[2];
+
+	public RigidBodyWorld(double maxRadius) {
+		this.maxRadius = maxRadius;
+		grid = new SpatialHash(2 * maxRadius, true, 16);
+	}
+
+	public void setSleeping(boolean enabled, double energy, double time) {
+		sleepingEnabled = enabled;
+		sleepEnergy = energy;
+		sleepTime = time;
+		if (!enabled)
+			for (int i = 0; i < n; i++)
+				wake(i);
+	}
+
+	public void setDamping(double linear, double angular) {
+		linearDamping = linear;
+		angularDamping = angular;
+	}
+
+	public Body add(Body body) {
+		if (body.radius > maxRadius)
+			throw new IllegalArgumentException("Huellkugel " + body.radius + " groesser als maxRadius " + maxRadius);
+		if (n == bodies.length) {
+			bodies = Arrays.copyOf(bodies, 2 * n);
+			active = Arrays.copyOf(active, 2 * n);
+			uf = Arrays.copyOf(uf, 2 * n);
+			ruhig = Arrays.copyOf(ruhig, 2 * n);
+		}
+		body.index = n;
+		bodies[n++] = body;
+		active[nActive++] = body.index;
+		grid.update(body.index, body.x, body.y, body.z);
+		return body;
+	}
+
+	// Koerper von aussen verschieben (z.B. vorgegebene Bahn)
+	public void setPosition(Body b, double x, double y, double z) {
+		b.setPosition(x, y, z);
+		if (b.index >= 0)
+			grid.update(b.index, x, y, z);
+	}
+
+	public int size() {
+		return n;
+	}
+
+	public Body getBody(int i) {
+		return bodies[i];
+	}
+
+	public int getActiveCount() {
+		return nActive;
+	}
+
+	public int getIslandCount() { // Inseln wacher Koerper im letzten Schritt
+		return nIslands;
+	}
+
+	public long getWakeUps() {
+		return nWakeUps;
+	}
+
+	// Insel des Koerpers i wecken
+	public void wake(int i) {
+		Body bi = bodies[i];
+		if (!bi.sleeping)
+			return;
+		for (int j = bi.island; j >= 0; j = bodies[j].nextInIsland) {
+			Body b = bodies[j];
+			b.sleeping = false;
+			b.ruhe = 0;
+			b.island = -1;
+			active[nActive++] = j;
+			uf[j] = j;
+			nWakeUps++;
+		}
+	}
+
+	int find(int i) {
+		while (uf[i] != i) {
+			uf[i] = uf[uf[i]];
+			i = uf[i];
+		}
+		return i;
+	}
+
+	void union(int i, int j) {
+		int ri = find(i), rj = find(j);
+		if (ri != rj)
+			uf[ri] = rj;
+	}
+
+	public void step(double dt) {
+		for (int k = 0; k < nActive; k++)
+			uf[active[k]] = active[k];
+
+		// Kontakte um die wachen Koerper (auch neu geweckte, die am Ende angehaengt werden)
+		for (int k = 0; k < nActive; k++)
+			grid.forEachNeighbor(active[k], this::kontakt);
+
+		// nur wache Koerper bewegen
+		double dl = Math.max(0, 1 - linearDamping * dt), da = Math.max(0, 1 - angularDamping * dt);
+		for (int k = 0; k < nActive; k++) {
+			Body b = bodies[active[k]];
+			b.gyro.lieInPlace(b.gyro.x, dt);
+			b.gyro.x[0] *= da;
+			b.gyro.x[1] *= da;
+			b.gyro.x[2] *= da;
+			b.vx *= dl;
+			b.vy *= dl;
+			b.vz *= dl;
+			b.x += b.vx * dt;
+			b.y += b.vy * dt;
+			b.z += b.vz * dt;
+			grid.update(b.index, b.x, b.y, b.z);
+		}
+		if (sleepingEnabled)
+			schlafen(dt);
+		else
+			nIslands = countIslands();
+	}
+
+	private void kontakt(int i, int j) {
+		Body bi = bodies[i], bj = bodies[j];
+		if (!bj.sleeping && j < i) // Paar wacher Koerper nur einmal
+			return;
+		double dx = bj.x - bi.x, dy = bj.y - bi.y, dz = bj.z - bi.z;
+		double d2 = dx * dx + dy * dy + dz * dz;
+		double rr = bi.radius + bj.radius;
+		if (d2 > rr * rr)
+			return;
+		if (bj.sleeping)
+			wake(j);
+		union(i, j);
+		double d = Math.sqrt(d2);
+		if (d == 0)
+			return;
+		double nx = dx / d, ny = dy / d, nz = dz / d;
+		double v1n = bi.vx * nx + bi.vy * ny + bi.vz * nz;
+		double v2n = bj.vx * nx + bj.vy * ny + bj.vz * nz;
+		if (v1n - v2n <= 0) // entfernen sich schon
+			return;
+		KugelSystem.stoss1D(bi.m, v1n, bj.m, v2n, stossZahl, vv);
+		double d1 = vv[0] - v1n, d2n = vv[1] - v2n;
+		bi.vx += d1 * nx;
+		bi.vy += d1 * ny;
+		bi.vz += d1 * nz;
+		bj.vx += d2n * nx;
+		bj.vy += d2n * ny;
+		bj.vz += d2n * nz;
+	}
+
+	// Inseln, in denen alle Koerper lange genug ruhig sind, einschlafen lassen
+	private void schlafen(double dt) {
+		for (int k = 0; k < nActive; k++) {
+			Body b = bodies[active[k]];
+			b.ruhe = b.energy() < sleepEnergy ? b.ruhe + dt : 0;
+			b.nextInIsland = -1;
+			ruhig[active[k]] = true;
+		}
+		nIslands = 0;
+		for (int k = 0; k < nActive; k++) {
+			int i = active[k];
+			int r = find(i);
+			if (r == i)
+				nIslands++;
+			if (bodies[i].ruhe < sleepTime)
+				ruhig[r] = false;
+		}
+		int m = 0;
+		for (int k = 0; k < nActive; k++) {
+			int i = active[k];
+			int r = find(i);
+			if (!ruhig[r]) {
+				active[m++] = i;
+				continue;
+			}
+			Body b = bodies[i]; // schlafende Insel als Liste ab der Wurzel
+			b.sleeping = true;
+			b.island = r;
+			b.vx = b.vy = b.vz = 0;
+			b.gyro.x[0] = b.gyro.x[1] = b.gyro.x[2] = 0;
+			if (i != r) {
+				b.nextInIsland = bodies[r].nextInIsland;
+				bodies[r].nextInIsland = i;
+			}
+		}
+		nActive = m;
+	}
+
+	private int countIslands() {
+		int c = 0;
+		for (int k = 0; k < nActive; k++)
+			if (find(active[k]) == active[k])
+				c++;
+		return c;
+	}
+
+}
@@ -57,12 +57,14 @@ public class RotKoerper
 
 
 
-   public void zeichneRotFlaeche(GL3 gl,            // Rotationsflaeche (Rotation um y-Achse)
-               float[] x, float[] y,                // Kurve in xy-Ebene
+   // ------  Vertices der Rotationsflaeche ins Vertex-Array, Zeichenbefehle in mesh  ------
+
+   private void putRotFlaeche(float[] x, float[] y,           // Kurve in xy-Ebene
                float[] nx, float[] ny,              // Normalenvektoren
-               int n2)                              // Anzahl Drehungen um y-Achse
+               int n2,                              // Anzahl Drehungen um y-Achse
+               int first,                           // Index des ersten Vertex im Vertex-Array
+               MyGLBase1.Mesh mesh)
     {
-
      int n1 = x.length;                             // Anzahl Breitenlinien
      float[][] xa = new float[n1][n2];              // Vertex-Koordinaten
      float[][] ya = new float[n1][n2];
@@ -74,9 +76,8 @@ public class RotKoerper
      berechnePunkte(x,y,nx,ny,
                     xa,ya,za,nxa,nya,nza);
 
-     // ------  Streifen zeichnen   ------
+     // ------  Streifen  ------
      int j2;
-     vb.rewindBuffer(gl);
      for (int j=0; j < n2; j++)                     // n2 Streifen von Norden nach Sueden
        for (int i=0; i < n1; i++)
         {  vb.setNormal(nxa[i][j],nya[i][j],nza[i][j]);
@@ -85,19 +86,17 @@ public class RotKoerper
            vb.setNormal(nxa[i][j2],nya[i][j2],nza[i][j2]);
            vb.putVertex(xa[i][j2],ya[i][j2],za[i][j2]);
         }
-
-     vb.copyBuffer(gl);
      int nVerticesStreifen = 2*n1;                  // Anzahl Vertices eines Streifens
      for (int j=0; j < n2; j++)                     // die Streifen muessen einzeln gezeichnet werden
-          gl.glDrawArrays(GL3.GL_TRIANGLE_STRIP,j*nVerticesStreifen,nVerticesStreifen);  // Streifen von Norden nach Sueden
+       mesh.addDraw(GL3.GL_TRIANGLE_STRIP, first+j*nVerticesStreifen, nVerticesStreifen);
   }
 
 
-
-   public void zeichneRotGitternetz(GL3 gl,         // Rotationsflaeche (Rotation um y-Achse)
-               float[] x, float[] y,                // Kurve in xy-Ebene
+   private void putRotGitternetz(float[] x, float[] y,        // Kurve in xy-Ebene
                float[] nx, float[] ny,              // Normalenvektoren
-               int n2)                              // Anzahl Drehungen um y-Achse
+               int n2,                              // Anzahl Drehungen um y-Achse
+               int first,                           // Index des ersten Vertex im Vertex-Array
+               MyGLBase1.Mesh mesh)
     {
       int n1 = x.length;                            // Anzahl Breitenlinien
       float[][] xa = new float[n1][n2];                    // Vertex-Koordinaten
@@ -110,118 +109,206 @@ public class RotKoerper
       berechnePunkte(x,y,nx,ny,
                     xa,ya,za,nxa,nya,nza);
 
-
-     vb.rewindBuffer(gl);
-     for (int i=0; i < n1; i++)                     // n1 Breitenlinien (Kresie um y-Achse)
+     for (int i=0; i < n1; i++)                     // n1 Breitenlinien (Kreise um y-Achse)
        for (int j=0; j < n2; j++)
         {  vb.setNormal(nxa[i][j],nya[i][j],nza[i][j]);
            vb.putVertex(xa[i][j],ya[i][j],za[i][j]);
         }
-     vb.copyBuffer(gl);
-     int nVerticesOffset = n2;                  // Anzahl Vertices einer Breitenlinie
      for (int i=0; i < n1; i++)                     // die Linien muessen einzeln gezeichnet werden
-       gl.glDrawArrays(GL3.GL_LINE_LOOP,i*nVerticesOffset,n2);  // Breitenlinie
+       mesh.addDraw(GL3.GL_LINE_LOOP, first+i*n2, n2);  // Breitenlinie
 
-     vb.rewindBuffer(gl);
+     first += n1*n2;
      for (int j=0; j < n2; j++)                     // n2 Laengslinien
        for (int i=0; i < n1; i++)
         {  vb.setNormal(nxa[i][j],nya[i][j],nza[i][j]);
            vb.putVertex(xa[i][j],ya[i][j],za[i][j]);
         }
-     vb.copyBuffer(gl);
-     nVerticesOffset = n1;                  // Anzahl Vertices einer Laengslinie
-     for (int j=0; j < n2; j++)                     // die Linien muessen einzeln gezeichnet werden
-       gl.glDrawArrays(GL3.GL_LINE_LOOP,j*nVerticesOffset,n1);  // Laengslinie
-
+     for (int j=0; j < n2; j++)
+       mesh.addDraw(GL3.GL_LINE_LOOP, first+j*n1, n1);  // Laengslinie
    }
 
 
-  public void zeichneKugel(GL3 gl, float r, int n1, int n2, boolean solid)
-  {  float[] x = new float[n1];                     // Halbkreis in xy-Ebene von Nord- zum Suedpol
-     float[] y = new float[n1];
-     float[] nx = new float[n1];                    // Normalenvektoren
-     float[] ny = new float[n1];
-     float dphi = (float)(Math.PI / (n1-1)), phi;
-     for (int i = 0; i < n1; i++)
-     {  phi  = (float)(0.5*Math.PI) - i*dphi;
-        x[i] = r*(float)Math.cos(phi);
-        y[i] = r*(float)Math.sin(phi);
-        nx[i] = x[i];
-        ny[i] = y[i];
-     }
+   public void zeichneRotFlaeche(GL3 gl,            // Rotationsflaeche (Rotation um y-Achse)
+               float[] x, float[] y,                // Kurve in xy-Ebene
+               float[] nx, float[] ny,              // Normalenvektoren
+               int n2)                              // Anzahl Drehungen um y-Achse
+    {  MyGLBase1.Mesh mesh = new MyGLBase1.Mesh();
+       vb.rewindBuffer(gl);
+       putRotFlaeche(x,y,nx,ny,n2,0,mesh);
+       vb.copyBuffer(gl);
+       mesh.draw(gl);
+    }
+
+
+   public void zeichneRotGitternetz(GL3 gl,         // Rotationsflaeche (Rotation um y-Achse)
+               float[] x, float[] y,                // Kurve in xy-Ebene
+               float[] nx, float[] ny,              // Normalenvektoren
+               int n2)                              // Anzahl Drehungen um y-Achse
+    {  MyGLBase1.Mesh mesh = new MyGLBase1.Mesh();
+       vb.rewindBuffer(gl);
+       putRotGitternetz(x,y,nx,ny,n2,0,mesh);
+       vb.copyBuffer(gl);
+       mesh.draw(gl);
+    }
+
+
+   // ------  indiziertes Mesh: jeder Gitterpunkt nur einmal im Vertex-Array  ------
+   //
+   //       Vertex (i,j) hat den Index i*n2+j. Flaeche: ein Dreiecks-Streifen pro
+   //       Nord-Sued Streifen, Gitternetz: Breiten- und Laengslinien als Line-Loops,
+   //       jeweils mit Primitive-Restart getrennt und in einem Draw-Call.
+
+   private void putRotIndiziert(float[] x, float[] y,         // Kurve in xy-Ebene
+               float[] nx, float[] ny,              // Normalenvektoren
+               int n2,                              // Anzahl Drehungen um y-Achse
+               boolean solid,
+               MyGLBase1.Mesh mesh)
+    {
+     int n1 = x.length;                             // Anzahl Breitenlinien
+     float[][] xa = new float[n1][n2];              // Vertex-Koordinaten
+     float[][] ya = new float[n1][n2];
+     float[][] za = new float[n1][n2];
+     float[][] nxa = new float[n1][n2];             // Normalen
+     float[][] nya = new float[n1][n2];
+     float[][] nza = new float[n1][n2];
+
+     berechnePunkte(x,y,nx,ny,
+                    xa,ya,za,nxa,nya,nza);
+
+     for (int i=0; i < n1; i++)                     // n1*n2 Vertices
+       for (int j=0; j < n2; j++)
+        {  vb.setNormal(nxa[i][j],nya[i][j],nza[i][j]);
+           vb.putVertex(xa[i][j],ya[i][j],za[i][j]);
+        }
+
+     int first = mesh.getNIndices();
      if (solid)
-        zeichneRotFlaeche(gl,x,y,nx,ny,n2);
+     {  for (int j=0; j < n2; j++)                  // n2 Streifen von Norden nach Sueden
+        {  int j2 = (j+1) % n2;
+           for (int i=0; i < n1; i++)
+           {  mesh.putIndex(i*n2+j);
+              mesh.putIndex(i*n2+j2);
+           }
+           mesh.putIndex(MyGLBase1.Mesh.RESTART);
+        }
+        mesh.addElements(GL3.GL_TRIANGLE_STRIP, first, mesh.getNIndices()-first);
+     }
      else
-        zeichneRotGitternetz(gl,x,y,nx,ny,n2);
+     {  for (int i=0; i < n1; i++)                  // Breitenlinien
+        {  for (int j=0; j < n2; j++)
+             mesh.putIndex(i*n2+j);
+           mesh.putIndex(MyGLBase1.Mesh.RESTART);
+        }
+        for (int j=0; j < n2; j++)                  // Laengslinien
+        {  for (int i=0; i < n1; i++)
+             mesh.putIndex(i*n2+j);
+           mesh.putIndex(MyGLBase1.Mesh.RESTART);
+        }
+        mesh.addElements(GL3.GL_LINE_LOOP, first, mesh.getNIndices()-first);
+     }
+  }
+
+
+   // Vertices der Rotationsflaeche fuer ein neues Mesh (Mantel ab Index 0)
+   private MyGLBase1.Mesh rotMesh(GL3 gl,
+               float[] x, float[] y, float[] nx, float[] ny, int n2, boolean solid)
+    {  MyGLBase1.Mesh mesh = new MyGLBase1.Mesh();
+       vb.rewindBuffer(gl);
+       putRotIndiziert(x,y,nx,ny,n2,solid,mesh);
+       return mesh;
+    }
+
+
+  public void zeichneKugel(GL3 gl, float r, int n1, int n2, boolean solid)
+  {  MyGLBase1.MeshKey key = vb.meshKey("Kugel").add(r).add(n1).add(n2).add(solid);
+     MyGLBase1.Mesh mesh = vb.getMesh(key);
+     if ( mesh == null )
+     {  float[] x = new float[n1];                  // Halbkreis in xy-Ebene von Nord- zum Suedpol
+        float[] y = new float[n1];
+        float[] nx = new float[n1];                 // Normalenvektoren
+        float[] ny = new float[n1];
+        float dphi = (float)(Math.PI / (n1-1)), phi;
+        for (int i = 0; i < n1; i++)
+        {  phi  = (float)(0.5*Math.PI) - i*dphi;
+           x[i] = r*(float)Math.cos(phi);
+           y[i] = r*(float)Math.sin(phi);
+           nx[i] = x[i];
+           ny[i] = y[i];
+        }
+        mesh = vb.storeMesh(gl, key, rotMesh(gl,x,y,nx,ny,n2,solid));
+     }
+     vb.drawMesh(gl, mesh);
    }
 
 
 
    public void zeichneTorus(GL3 gl, float r, float R, int n1, int n2, boolean solid)
-   {  int nn1 = n1+1;
-      float[] x = new float[nn1];                    // Kreis in xy-Ebene
-      float[] y = new float[nn1];
-      float[] nx = new float[nn1];                   // Normalenvektoren
-      float[] ny = new float[nn1];
-      float dphi = 2*(float)(Math.PI / n1), phi;
-      for (int i = 0; i <= n1; i++)
-      {  phi  =  i*dphi;
-         x[i] = r*(float)Math.cos(phi);
-         y[i] = r*(float)Math.sin(phi);
-         nx[i] = x[i];
-         ny[i] = y[i];
-         x[i] += R;
+   {  MyGLBase1.MeshKey key = vb.meshKey("Torus").add(r).add(R).add(n1).add(n2).add(solid);
+      MyGLBase1.Mesh mesh = vb.getMesh(key);
+      if ( mesh == null )
+      {  int nn1 = n1+1;
+         float[] x = new float[nn1];                 // Kreis in xy-Ebene
+         float[] y = new float[nn1];
+         float[] nx = new float[nn1];                // Normalenvektoren
+         float[] ny = new float[nn1];
+         float dphi = 2*(float)(Math.PI / n1), phi;
+         for (int i = 0; i <= n1; i++)
+         {  phi  =  i*dphi;
+            x[i] = r*(float)Math.cos(phi);
+            y[i] = r*(float)Math.sin(phi);
+            nx[i] = x[i];
+            ny[i] = y[i];
+            x[i] += R;
+         }
+         mesh = vb.storeMesh(gl, key, rotMesh(gl,x,y,nx,ny,n2,solid));
       }
-      if (solid)
-        zeichneRotFlaeche(gl,x,y,nx,ny,n2);
-      else
-        zeichneRotGitternetz(gl,x,y,nx,ny,n2);
+      vb.drawMesh(gl, mesh);
    }
 
 
    public void zeichneZylinder(GL3 gl, float r, float s, int n1, int n2, boolean solid)
-   {
-      float[] x = new float[n1];                     // Mantellinie in xy-Ebene
-      float[] y = new float[n1];
-      float[] nx = new float[n1];                    // Normalenvektoren
-      float[] ny = new float[n1];
-      float dy = s / (n1-1);
-      for (int i = 0; i < n1; i++)
-      {  x[i] = r;
-         y[i] = i*dy;
-         nx[i] = 1;
-         ny[i] = 0;
-      }
-      if (solid)
-        zeichneRotFlaeche(gl,x,y,nx,ny,n2);
-      else
-        zeichneRotGitternetz(gl,x,y,nx,ny,n2);
-
-      //  ------  Grund-Kreis (y=0) -------
-      int nPkte = n2;
-      float[] xx = new float[nPkte+1];
-      float[] zz = new float[nPkte+1];
-      float phi = 2*(float)Math.PI/nPkte;
-      for (int i=0; i<=nPkte; i++)
-      {  zz[i] =  r*(float)Math.cos(i*phi);
-         xx[i] =  r*(float)Math.sin(i*phi);
+   {  MyGLBase1.MeshKey key = vb.meshKey("Zylinder").add(r).add(s).add(n1).add(n2).add(solid);
+      MyGLBase1.Mesh mesh = vb.getMesh(key);
+      if ( mesh == null )
+      {  float[] x = new float[n1];                  // Mantellinie in xy-Ebene
+         float[] y = new float[n1];
+         float[] nx = new float[n1];                 // Normalenvektoren
+         float[] ny = new float[n1];
+         float dy = s / (n1-1);
+         for (int i = 0; i < n1; i++)
+         {  x[i] = r;
+            y[i] = i*dy;
+            nx[i] = 1;
+            ny[i] = 0;
+         }
+         mesh = rotMesh(gl,x,y,nx,ny,n2,solid);
+         int first = n1*n2;                          // Vertices des Mantels
+
+         //  ------  Grund-Kreis (y=0) -------
+         int nPkte = n2;
+         float[] xx = new float[nPkte+1];
+         float[] zz = new float[nPkte+1];
+         float phi = 2*(float)Math.PI/nPkte;
+         for (int i=0; i<=nPkte; i++)
+         {  zz[i] =  r*(float)Math.cos(i*phi);
+            xx[i] =  r*(float)Math.sin(i*phi);
+         }
+         vb.setNormal(0,-1,0);
+         vb.putVertex(0,0,0);
+         for (int i=0; i<=nPkte; i++)
+           vb.putVertex(xx[i],0,zz[i]);
+         mesh.addDraw(GL3.GL_TRIANGLE_FAN, first, nPkte+2);
+
+         //  ------  Deck-Kreis  (y=s) -------
+         first += nPkte+2;
+         vb.setNormal(0,1,0);
+         vb.putVertex(0,s,0);
+         for (int i=0; i<=nPkte; i++)
+           vb.putVertex(xx[i],s,zz[i]);
+         mesh.addDraw(GL3.GL_TRIANGLE_FAN, first, nPkte+2);
+         mesh = vb.storeMesh(gl, key, mesh);
       }
-      vb.rewindBuffer(gl);
-      vb.setNormal(0,-1,0);
-      vb.putVertex(0,0,0);
-      for (int i=0; i<=nPkte; i++)
-        vb.putVertex(xx[i],0,zz[i]);
-      vb.copyBuffer(gl);
-      vb.drawArrays(gl,GL3.GL_TRIANGLE_FAN);
-
-      //  ------  Deck-Kreis  (y=s) -------
-      vb.rewindBuffer(gl);
-      vb.setNormal(0,1,0);
-      vb.putVertex(0,s,0);
-      for (int i=0; i<=nPkte; i++)
-        vb.putVertex(xx[i],s,zz[i]);
-      vb.copyBuffer(gl);
-      vb.drawArrays(gl,GL3.GL_TRIANGLE_FAN);
+      vb.drawMesh(gl, mesh);
    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package programs;
+
+//-------------   Szenengraph gegen Neuberechnung aller Matrizen pro Frame (ohne OpenGL)  -------------------
+//
+//  java programs.SceneGraphBenchmark [gruppen] [kinder pro gruppe] [bewegte gruppen]
+//
+//  Prueft vorher einen geaenderten Knoten in einem danach entfernten Teilbaum
+//  (Exit-Code 1 bei Fehler).
+import ch.fhnw.util.math.*;
+
+public class SceneGraphBenchmark {
+
+	static final int FRAMES = 2000;
+
+	// bisheriges Vorgehen: alle Welt-Matrizen jedes Frame aus den lokalen Matrizen
+	static float fullRecompute(SceneNode node, Mat4 parent) {
+		Mat4 m = parent.postMultiply(node.getLocalTransform());
+		float r = m.m03;
+		for (SceneNode c : node.getChildren())
+			r += fullRecompute(c, m);
+		return r;
+	}
+
+	// Knoten aendern und danach einen Teilbaum entfernen, vor dem naechsten update()
+	static boolean pruefen() {
+		SceneNode welt = new SceneNode("welt");
+		SceneGraph szene = new SceneGraph(welt);
+		SceneNode gruppe = welt.add(new SceneNode());
+		SceneNode letztes = null;
+		for (int k = 0; k < 20; k++)
+			letztes = gruppe.add(new SceneNode());
+		SceneNode bleibt = welt.add(new SceneNode());
+		szene.update();
+		letztes.setTranslation(1, 2, 3);
+		bleibt.setTranslation(4, 0, 0);
+		welt.remove(gruppe);
+		szene.update();
+		bleibt.setTranslation(5, 0, 0);
+		szene.update();
+		return szene.size() == 2 && szene.getUpdatedCount() == 1 && bleibt.getWorldTransform().m03 == 5;
+	}
+
+	public static void main(String[] args) {
+		if (!pruefen()) {
+			System.out.println("FEHLER: Szenengraph nach Entfernen eines Teilbaums");
+			System.exit(1);
+		}
+		int nGruppen = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int nKinder = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int nBewegt = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+		SceneNode welt = new SceneNode("welt");
+		SceneGraph szene = new SceneGraph(welt);
+		SceneNode[] gruppen = new SceneNode[nGruppen];
+		for (int i = 0; i < nGruppen; i++) {
+			gruppen[i] = welt.add(new SceneNode());
+			gruppen[i].setTranslation(i, 0, 0);
+			for (int k = 0; k < nKinder; k++) {
+				SceneNode c = gruppen[i].add(new SceneNode());
+				c.setTranslation(0, k, 0);
+				c.setRotation(0, k, 0);
+			}
+		}
+		szene.update();
+		System.out.printf("%d Knoten, %d bewegte Gruppen%n", szene.size(), nBewegt);
+
+		for (int pass = 0; pass < 2; pass++) { // erster Durchgang zum Aufwaermen
+			float r = 0;
+			long updated = 0;
+			long t0 = System.nanoTime();
+			for (int f = 0; f < FRAMES; f++) {
+				for (int i = 0; i < nBewegt; i++)
+					gruppen[i].setRotation(0, f, 0);
+				r += fullRecompute(welt, Mat4.ID);
+			}
+			long t1 = System.nanoTime();
+			for (int f = 0; f < FRAMES; f++) {
+				for (int i = 0; i < nBewegt; i++)
+					gruppen[i].setRotation(0, f, 0);
+				szene.update();
+				updated += szene.getUpdatedCount();
+				r += szene.getWorldTransform(szene.size() - 1).m03;
+			}
+			long t2 = System.nanoTime();
+			if (pass == 1)
+				System.out.printf("alle neu: %8.1f us/frame   SceneGraph: %8.1f us/frame (%d Matrizen/frame)   (%g)%n",
+						(t1 - t0) * 1e-3 / FRAMES, (t2 - t1) * 1e-3 / FRAMES, updated / FRAMES, r);
+		}
+	}
+
+}
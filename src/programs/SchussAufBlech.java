@@ -4,7 +4,6 @@ import java.awt.*;
 import java.awt.event.*;
 
 import javax.swing.JDialog;
-import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 
 import com.jogamp.opengl.*;
@@ -16,7 +15,7 @@ import ch.fhnw.util.math.Mat4;
 import programs.MyGLBase1;
 import programs.MyShaders;
 
-public class SchussAufBlech implements WindowListener, GLEventListener, KeyListener {
+public class SchussAufBlech implements WindowListener, GLEventListener, KeyListener, SimulationLoop.Restorable {
 
 	// --------- globale Daten ---------------------------
 
@@ -26,6 +25,7 @@ public class SchussAufBlech implements WindowListener, GLEventListener, KeyListe
 	String vShader = MyShaders.vShader1; // Vertex-Shader
 	String fShader = MyShaders.fShader0; // Fragment-Shader
 	int maxVerts = 2048; // max. Anzahl Vertices im Vertex-Array
+	Frame frame;
 	GLCanvas canvas; // OpenGL Window
 	MyGLBase1 mygl; // eigene OpenGL-Basisfunktionen
 	MyGLBase1 vb; // fr viereck
@@ -33,11 +33,10 @@ public class SchussAufBlech implements WindowListener, GLEventListener, KeyListe
 	Mat4 P = Mat4.ID; // Proj. Matrix
 	// float drehwinkel = 30;
 	// Koordinaten fr P
-	double ybottom, ytop;
+	volatile double ybottom, ytop;
 	float xleft = -10, xright = 10; // ViewingVol
 	float znear = -100, zfar = 100;
 
-	JFrame parent = new JFrame();
 	// Circle values
 
 	final double g = 9.81; // Erdbeschleunigung
@@ -54,8 +53,17 @@ public class SchussAufBlech implements WindowListener, GLEventListener, KeyListe
 	double vy = v0y;
 	double ax = 0;
 	double ay = -g;
-	double dt = 0.01; // Zeitschritt
-	boolean stopped = false;
+	double dt = 0.002; // Zeitschritt (1000 Schritte/s)
+	boolean stopped = false; // Kugel fliegt
+	// Tasten (AWT-Thread) nur als Auftrag, ausgefuehrt in step() im Simulations-Thread
+	volatile int schuesse, tempoTasten; // 's', Pfeil hoch/runter (+-0.5)
+	int schuesseAngewandt, tempoAngewandt;
+	volatile int counter = 0; // only 20 chances
+	volatile int treffer = 0; // Treffer auf das Blech
+	int trefferAngezeigt = -1; // im Fenstertitel
+	final double radius = 0.2; // Radius der Kugel
+	SimulationLoop loop; // Physik-Thread
+	double[] s; // interpolierter Zustand fuer display()
 	
 
 	// Rectangle
@@ -75,11 +83,9 @@ public class SchussAufBlech implements WindowListener, GLEventListener, KeyListe
 	// Koordinate)
 	final double velocity = -9.3;
 
-	// only 20 chances
-	int counter = 0;
 
 	// Luftwiderstand
-	boolean luftwiderstand;
+	volatile boolean luftwiderstand;
 	double c = 0.025;
 	
 	
@@ -87,12 +93,18 @@ public class SchussAufBlech implements WindowListener, GLEventListener, KeyListe
 
 	public SchussAufBlech() // Konstruktor
 	{
-		createFrame();
+		this(true);
+	}
+
+	SchussAufBlech(boolean fenster) // ohne Fenster nur die Physik (TunnelCheck)
+	{
+		if (fenster)
+			createFrame();
 	}
 
 	void createFrame() // Fenster erzeugen
 	{
-		Frame f = new Frame(windowTitle);
+		Frame f = frame = new Frame(windowTitle);
 		f.setSize(windowWidth, windowHeight);
 		f.addWindowListener(this);
 		GLProfile glp = GLProfile.get(GLProfile.GL3);
@@ -156,52 +168,103 @@ public class SchussAufBlech implements WindowListener, GLEventListener, KeyListe
 		
 		
 		
+		loop = new SimulationLoop(this, dt, 1000);
+		loop.keepHistory(64, 16 << 20); // Verlauf fuer z/v
+		loop.start();
 		FPSAnimator anim = new FPSAnimator(canvas, 200, true);
 
 		anim.start();
 
 	}
 
+	// ---------- Physik (im Simulations-Thread) ---------------------------
+
 	@Override
-	public void display(GLAutoDrawable drawable) {
+	public int stateSize() {
+		return 6;
+	}
 
-		GL3 gl = drawable.getGL().getGL3();
-		gl.glClear(GL3.GL_COLOR_BUFFER_BIT); // Bildschirm loeschen
-		mygl.setColor(0, 1, 0); // Farbe der Vertices		
+	@Override
+	public void getState(double[] state) {
+		state[0] = x;
+		state[1] = y;
+		state[2] = startPositionY;
+		state[3] = vx;
+		state[4] = vy;
+		state[5] = stopped ? 1 : 0; // Kugel fliegt
+	}
 
-		M = Mat4.ID;
-		mygl.setM(gl, M);
-		
-		
-		zeichneKreis(gl, 0.2f, (float) x, (float) y, 20);
+	@Override
+	public void setState(double[] state) {
+		x = state[0];
+		y = state[1];
+		startPositionY = state[2];
+		vx = state[3];
+		vy = state[4];
+		stopped = state[5] != 0;
+	}
 
-		zeichneRechteck(gl, (float) startPositionX, (float) startPositionY, (float) sizeRectangleLength,
-				(float) sizeRectangleHeight);
+	// Kugel um (dx,dy) verschieben, waehrend das Blech um velocity*dt faellt.
+	// Trifft die Kugel das Blech innerhalb des Schritts, bleibt sie am
+	// Kontaktpunkt stehen (kein Durchtunneln bei grossem dt oder hoher v).
+	boolean bewege(double dx, double dy, double dt) {
+		double t = SweptCircle.timeOfImpact(x, y, dx, dy, radius, startPositionX, startPositionY, sizeRectangleLength,
+				sizeRectangleHeight, 0, velocity * dt);
+		if (t < 0) {
+			x = x + dx;
+			y = y + dy;
+			return false;
+		}
+		x = x + t * dx;
+		y = y + t * dy;
+		return true;
+	}
 
-		M = Mat4.translate((float) x, (float) y, 0);
-		
-		// M = M.postMultiply(Mat4.rotate((float) alpha, 0, 0, 1));
-		// mygl.setM(gl, M);
-		// zeichneSpeer(gl, 1.2f, 0.04f, 0.2f);
+	void reset() {
+		stopped = false;
+		x = x0;
+		y = y0;
+		vx = v0x;
+		vy = v0y;
+		startPositionY = startPositionYForReset;
+	}
 
+	void treffer() {
+		treffer++;
+		reset();
+	}
+
+	@Override
+	public void step(double dt) {
+		int k = tempoTasten;
+		if (k != tempoAngewandt) {
+			double d = 0.5 * (k - tempoAngewandt);
+			tempoAngewandt = k;
+			v0x += d;
+			v0y += d;
+			vx += d;
+			vy += d;
+		}
+		k = schuesse;
+		if (k != schuesseAngewandt) {
+			schuesseAngewandt = k;
+			stopped = true;
+		}
 		if (stopped) {
 
 			// eulerischer Algorythmus 2D
 
-			x = x + vx * dt;
-			y = y + vy * dt;
+			if (bewege(vx * dt, vy * dt, dt)) {
+				treffer();
+				return;
+			}
 			vx = vx + ax * dt;
 			vy = vy + ay * dt;
 			
 			
 			if (y < ybottom || x > xright) {
 				counter++;
-				stopped = false;
-				x = x0;
-				y = y0;
-				vx = v0x;
-				vy = v0y;
-				startPositionY = startPositionYForReset;
+				reset();
 			}
 
 			// y = y + v*dt;
@@ -214,21 +277,6 @@ public class SchussAufBlech implements WindowListener, GLEventListener, KeyListe
 
 			}
 
-			if (counter > 3) {
-				JDialog.setDefaultLookAndFeelDecorated(true);
-				int response = JOptionPane.showConfirmDialog(null, "3 Versuche gehabt. Neu starten?", "Confirm",
-						JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
-				if (response == JOptionPane.NO_OPTION) {
-					System.out.println("No button clicked");
-					System.exit(1);
-				} else if (response == JOptionPane.YES_OPTION) {
-					System.out.println("Yes button clicked");
-					counter = 0;
-				} else if (response == JOptionPane.CLOSED_OPTION) {
-					System.exit(1);
-				}
-			}
-
 			// falls Luftwiderstand eingestellt
 
 			if (luftwiderstand == true) {
@@ -236,8 +284,11 @@ public class SchussAufBlech implements WindowListener, GLEventListener, KeyListe
 				// eulerischer Algorythmus 2D
 				
 				
-				x = x +  -c * Math.sqrt(Math.pow(vx, 2)+Math.pow(vy, 2))  * dt;
-				y = y + -c * Math.sqrt(Math.pow(vx, 2)+Math.pow(vy, 2))  * dt;
+				double w = -c * Math.sqrt(Math.pow(vx, 2)+Math.pow(vy, 2))  * dt;
+				if (bewege(w, w, dt)) {
+					treffer();
+					return;
+				}
 				
 				vx = vx + ax * dt;
 				vy = vy + ay * dt;
@@ -246,12 +297,7 @@ public class SchussAufBlech implements WindowListener, GLEventListener, KeyListe
 				
 				if (y < ybottom || x > xright) {
 					counter++;
-					stopped = false;
-					x = x0;
-					y = y0;
-					vx = v0x;
-					vy = v0y;
-					startPositionY = startPositionYForReset;
+					reset();
 				}
 
 				// y = y + v*dt;
@@ -264,21 +310,52 @@ public class SchussAufBlech implements WindowListener, GLEventListener, KeyListe
 
 				}
 
-				if (counter > 3) {
-					JDialog.setDefaultLookAndFeelDecorated(true);
-					int response = JOptionPane.showConfirmDialog(null, "3 Versuche gehabt. Neu starten?", "Confirm",
-							JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
-					if (response == JOptionPane.NO_OPTION) {
-						System.out.println("No button clicked");
-						System.exit(1);
-					} else if (response == JOptionPane.YES_OPTION) {
-						System.out.println("Yes button clicked");
-						counter = 0;
-					} else if (response == JOptionPane.CLOSED_OPTION) {
-						System.exit(1);
-					}
-				}
+			}
+		}
+	}
+
+	@Override
+	public void display(GLAutoDrawable drawable) {
 
+		GL3 gl = drawable.getGL().getGL3();
+		gl.glClear(GL3.GL_COLOR_BUFFER_BIT); // Bildschirm loeschen
+		mygl.setColor(0, 1, 0); // Farbe der Vertices		
+
+		M = Mat4.ID;
+		mygl.setM(gl, M);
+		
+		int t = treffer;
+		if (t != trefferAngezeigt) { // Anzahl Treffer im Fenstertitel
+			trefferAngezeigt = t;
+			String titel = windowTitle + " - Treffer: " + t;
+			EventQueue.invokeLater(() -> frame.setTitle(titel));
+		}
+
+		s = loop.interpolate(s);
+		double x = s[0], y = s[1], startPositionY = s[2];
+		zeichneKreis(gl, (float) radius, (float) x, (float) y, 20);
+
+		zeichneRechteck(gl, (float) startPositionX, (float) startPositionY, (float) sizeRectangleLength,
+				(float) sizeRectangleHeight);
+
+		M = Mat4.translate((float) x, (float) y, 0);
+		
+		// M = M.postMultiply(Mat4.rotate((float) alpha, 0, 0, 1));
+		// mygl.setM(gl, M);
+		// zeichneSpeer(gl, 1.2f, 0.04f, 0.2f);
+
+		if (counter > 3) {
+			JDialog.setDefaultLookAndFeelDecorated(true);
+			int response = JOptionPane.showConfirmDialog(null, "3 Versuche gehabt. Neu starten?", "Confirm",
+					JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+			if (response == JOptionPane.NO_OPTION) {
+				System.out.println("No button clicked");
+				System.exit(1);
+			} else if (response == JOptionPane.YES_OPTION) {
+				System.out.println("Yes button clicked");
+				counter = 0;
+			} else if (response == JOptionPane.CLOSED_OPTION) {
+				System.exit(1);
 			}
 		}
 
@@ -339,18 +416,10 @@ public class SchussAufBlech implements WindowListener, GLEventListener, KeyListe
 		int key = e.getKeyCode();
 		switch (key) {
 		case KeyEvent.VK_UP:
-			v0y += 0.5;
-			v0x += 0.5;
-			
-			vx += 0.5;
-			vy += 0.5;
+			tempoTasten++;
 			break;
 		case KeyEvent.VK_DOWN:
-			v0y -= 0.5;
-			v0x -= 0.5;
-			
-			vy -= 0.5;
-			vx -= 0.5;			
+			tempoTasten--;
 			break;
 		}
 
@@ -368,11 +437,17 @@ public class SchussAufBlech implements WindowListener, GLEventListener, KeyListe
 		// TODO Auto-generated method stub
 		char code = e.getKeyChar();
 		if (code == 's') {
-			stopped = true;
+			schuesse++;
 		}
 		if (code == 'l') {
 			luftwiderstand = true;
 		}
+		if (code == 'z') { // 1 s zurueckspulen
+			loop.skip(-1000);
+		}
+		if (code == 'v') { // 1 s vorspulen
+			loop.skip(1000);
+		}
 
 		
 
@@ -0,0 +1,96 @@
+package programs;
+
+// Separables System (H = T(v) + V(q)), Zustand { q0..q(n-1), v0..v(n-1) }.
+// Neben Euler und Runge-Kutta aus Dynamics gibt es symplektische Verfahren:
+// ihr Energiefehler bleibt auch ueber sehr viele Schritte beschraenkt.
+public abstract class SeparableDynamics extends Dynamics {
+
+	// Yoshida: drei Verlet-Schritte w1, w0, w1 ergeben Ordnung 4
+	static final double W1 = 1 / (2 - Math.cbrt(2)), W0 = -Math.cbrt(2) / (2 - Math.cbrt(2));
+
+	private double[] a, qa; // letzte Beschleunigung und die Lage dazu
+	private boolean aValid = false;
+
+	// Beschleunigung a(q) aus den Lagen x[0..n-1] nach a[0..n-1]
+	public abstract void acceleration(double[] x, double[] a);
+
+	@Override
+	public double[] f(double[] x) {
+		double[] y = new double[x.length];
+		f(x, y);
+		return y;
+	}
+
+	@Override
+	public void f(double[] x, double[] y) {
+		int n = x.length / 2;
+		acceleration(x, y); // a in die erste Haelfte, dann verschieben
+		System.arraycopy(y, 0, y, n, n);
+		System.arraycopy(x, n, y, 0, n);
+	}
+
+	// Velocity-Verlet (kick-drift-kick), Ordnung 2. Die Beschleunigung am
+	// Schrittende wird fuer den naechsten Schritt wiederverwendet, solange x
+	// dazwischen nicht veraendert wurde: eine Auswertung pro Schritt.
+	public void verletInPlace(double[] x, double dt) {
+		int n = x.length / 2;
+		allocBuffers(n);
+		if (!aValid || !sameLage(x, n))
+			acceleration(x, a);
+		for (int i = 0; i < n; i++)
+			x[n + i] += 0.5 * dt * a[i];
+		for (int i = 0; i < n; i++)
+			x[i] += dt * x[n + i];
+		acceleration(x, a);
+		for (int i = 0; i < n; i++)
+			x[n + i] += 0.5 * dt * a[i];
+		System.arraycopy(x, 0, qa, 0, n);
+		aValid = true;
+	}
+
+	// Leapfrog (drift-kick-drift), Ordnung 2, eine Auswertung pro Schritt
+	// ohne Zwischenspeicher
+	public void leapfrogInPlace(double[] x, double dt) {
+		int n = x.length / 2;
+		allocBuffers(n);
+		for (int i = 0; i < n; i++)
+			x[i] += 0.5 * dt * x[n + i];
+		acceleration(x, a);
+		for (int i = 0; i < n; i++)
+			x[n + i] += dt * a[i];
+		for (int i = 0; i < n; i++)
+			x[i] += 0.5 * dt * x[n + i];
+		aValid = false;
+	}
+
+	// Yoshida 4. Ordnung: Leapfrog mit den Teilschritten w1, w0, w1 (w0 < 0),
+	// drei Auswertungen pro Schritt
+	public void yoshidaInPlace(double[] x, double dt) {
+		leapfrogInPlace(x, W1 * dt);
+		leapfrogInPlace(x, W0 * dt);
+		leapfrogInPlace(x, W1 * dt);
+	}
+
+	// x[0..n-1] bitgleich mit der Lage der letzten Beschleunigung
+	private boolean sameLage(double[] x, int n) {
+		for (int i = 0; i < n; i++)
+			if (Double.doubleToRawLongBits(x[i]) != Double.doubleToRawLongBits(qa[i]))
+				return false;
+		return true;
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		aValid = false;
+	}
+
+	private void allocBuffers(int n) {
+		if (a != null && a.length == n)
+			return;
+		a = new double[n];
+		qa = new double[n];
+		aValid = false;
+	}
+
+}
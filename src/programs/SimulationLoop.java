@@ -0,0 +1,295 @@
+package programs;
+
+//-------------   Physik-Thread mit festem Zeitschritt  -------------------
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class SimulationLoop implements Runnable {
+
+	// Schnittstelle zur Physik eines Programms. step() und getState() laufen
+	// im Simulations-Thread, der Renderer sieht nur die Snapshots.
+	public interface Simulation {
+		int stateSize();
+
+		void step(double dt); // ein Physik-Schritt
+
+		void getState(double[] state); // aktuellen Zustand kopieren
+
+		default String stateLayout() { // Namen der Zustands-Komponenten fuer Aufnahmen
+			return "";
+		}
+	}
+
+	// Simulation, die einen mit getState geholten Zustand wieder uebernehmen
+	// kann; Voraussetzung fuer keepHistory
+	public interface Restorable extends Simulation {
+		void setState(double[] state);
+	}
+
+	// Zustand vor und nach dem letzten Schritt. Ein Snapshot gehoert nach
+	// snapshot() exklusiv dem Leser, bis dieser den naechsten holt.
+	public static final class Snapshot {
+		final double[] prev, curr;
+		double t; // Simulationszeit von curr
+		long step; // Anzahl Schritte bis curr
+		long nanos; // Wanduhr-Zeit, zu der curr berechnet wurde
+
+		Snapshot(int n) {
+			prev = new double[n];
+			curr = new double[n];
+		}
+
+		public double[] getPrev() {
+			return prev;
+		}
+
+		public double[] getCurr() {
+			return curr;
+		}
+
+		public double getTime() {
+			return t;
+		}
+
+		public long getStep() {
+			return step;
+		}
+	}
+
+	static final int NEW = 4; // Bit: Buffer wurde noch nicht gelesen
+
+	final Simulation sim;
+	final double dt; // Physik-Zeitschritt
+	final long periodNanos; // Wanduhr-Zeit pro Schritt
+	final int maxCatchUp; // max. Schritte pro Aufholrunde
+
+	// Tripel-Buffer: je einer fuer Schreiber und Leser, einer zum Austausch
+	final Snapshot[] buffers = new Snapshot[3];
+	final AtomicInteger ready = new AtomicInteger(1);
+	int writeIdx = 0; // nur Simulations-Thread
+	int readIdx = 2; // nur Leser
+
+	double[] prev, curr; // nur Simulations-Thread
+	double t = 0;
+	long nSteps = 0;
+
+	Thread thread;
+	volatile boolean running = false;
+	TrajectoryRecorder recorder; // nimmt jeden Zustand auf (null: aus)
+	StateHistory history; // Verlauf zum Zurueckspulen (null: aus)
+	final AtomicLong skip = new AtomicLong(); // angeforderte Schritte vor/zurueck
+
+	// dt = Physik-Zeitschritt, stepsPerSecond = Schritte pro Sekunde Wanduhr
+	public SimulationLoop(Simulation sim, double dt, double stepsPerSecond) {
+		this.sim = sim;
+		this.dt = dt;
+		this.periodNanos = (long) (1e9 / stepsPerSecond);
+		this.maxCatchUp = Math.max(1, (int) (stepsPerSecond / 10)); // max. 100ms aufholen
+		int n = sim.stateSize();
+		for (int i = 0; i < 3; i++)
+			buffers[i] = new Snapshot(n);
+		prev = new double[n];
+		curr = new double[n];
+		sim.getState(curr);
+		System.arraycopy(curr, 0, prev, 0, n);
+		publish(System.nanoTime());
+	}
+
+	// Loop fuer ein Programm, mit den Argumenten
+	//    -record datei   jeden Schritt aufnehmen
+	//    -replay datei   Aufnahme abspielen statt simulieren (sim wird nicht verwendet)
+	public static SimulationLoop create(Simulation sim, double dt, double stepsPerSecond, String[] args) {
+		try {
+			for (int i = 0; i + 1 < args.length; i++)
+				if (args[i].equals("-replay")) {
+					TrajectoryReplay replay = new TrajectoryReplay(Paths.get(args[i + 1]));
+					if (replay.stateSize() != sim.stateSize())
+						throw new IOException(args[i + 1] + ": " + replay.stateSize() + " statt " + sim.stateSize()
+								+ " Komponenten (" + replay.getLayout() + ")");
+					System.out.println("Wiedergabe " + args[i + 1] + ": " + replay.getFrameCount() + " Frames");
+					return new SimulationLoop(replay, replay.getDt(), stepsPerSecond);
+				}
+			SimulationLoop loop = new SimulationLoop(sim, dt, stepsPerSecond);
+			for (int i = 0; i + 1 < args.length; i++)
+				if (args[i].equals("-record")) {
+					loop.record(new TrajectoryRecorder(Paths.get(args[i + 1]), sim.stateSize(), dt, sim.stateLayout()));
+					System.out.println("Aufnahme nach " + args[i + 1]);
+				}
+			return loop;
+		} catch (IOException e) {
+			System.out.println(e);
+			return new SimulationLoop(sim, dt, stepsPerSecond);
+		}
+	}
+
+	// ab jetzt jeden Zustand aufnehmen (vor start() aufrufen)
+	public void record(TrajectoryRecorder recorder) throws IOException {
+		this.recorder = recorder;
+		recorder.record(t, curr);
+	}
+
+	// Verlauf mit Keyframes alle K Schritte in capacity Bytes fuehren, damit
+	// skip() zurueck- und vorspulen kann (vor start() aufrufen). Bei einer
+	// Wiedergabe ist die Aufnahme selbst der Verlauf, skip() springt in den Frames.
+	public void keepHistory(int K, int capacity) {
+		if (sim instanceof TrajectoryReplay)
+			return;
+		if (!(sim instanceof Restorable))
+			throw new IllegalArgumentException(sim.getClass().getSimpleName() + " kann keinen Zustand uebernehmen");
+		history = new StateHistory(curr.length, K, capacity);
+		history.clear(nSteps);
+		history.record(curr);
+	}
+
+	// um steps Schritte springen (negativ: zurueck), aus jedem Thread aufrufbar.
+	// Zurueck geht bis zum aeltesten Keyframe im Verlauf, vorwaerts zuerst im
+	// Verlauf und darueber hinaus wird sofort (ohne Warten) weiter simuliert.
+	public void skip(long steps) {
+		skip.addAndGet(steps);
+	}
+
+	public synchronized void start() {
+		if (running)
+			return;
+		running = true;
+		thread = new Thread(this, "Simulation");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	// Thread anhalten und eine laufende Aufnahme abschliessen (Header schreiben,
+	// Datei auf die Frames kuerzen)
+	public synchronized void stop() {
+		running = false;
+		if (thread != null) {
+			thread.interrupt();
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			thread = null;
+		}
+		if (recorder != null) {
+			try {
+				recorder.close();
+			} catch (IOException e) {
+				System.out.println("Aufnahme nicht abgeschlossen: " + e);
+			}
+			recorder = null;
+		}
+	}
+
+	@Override
+	public void run() {
+		long last = System.nanoTime();
+		long acc = 0;
+		while (running) {
+			long now = System.nanoTime();
+			acc += now - last;
+			last = now;
+			int n = 0;
+			long k = skip.getAndSet(0);
+			if (k != 0)
+				seek(nSteps + k);
+			while (acc >= periodNanos && n < maxCatchUp) {
+				advance();
+				acc -= periodNanos;
+				n++;
+			}
+			if (n == maxCatchUp) // Rueckstand verwerfen statt endlos aufholen
+				acc %= periodNanos;
+			if (n > 0 || k != 0)
+				publish(now);
+			LockSupport.parkNanos(periodNanos - acc);
+		}
+	}
+
+	// ein Physik-Schritt
+	private void advance() {
+		double[] tmp = prev;
+		prev = curr;
+		curr = tmp;
+		sim.step(dt);
+		sim.getState(curr);
+		t += dt;
+		nSteps++;
+		if (history != null) {
+			history.truncate(nSteps - 1); // nach dem Zurueckspulen: alte Zukunft verwerfen
+			history.record(curr);
+		}
+		if (recorder != null)
+			try {
+				recorder.record(t, curr);
+			} catch (IOException e) {
+				System.out.println("Aufnahme abgebrochen: " + e);
+				recorder = null;
+			}
+	}
+
+	// Zustand von Schritt step aus dem Verlauf holen, was fehlt wird simuliert
+	private void seek(long step) {
+		if (sim instanceof TrajectoryReplay) {
+			TrajectoryReplay replay = (TrajectoryReplay) sim;
+			if (replay.getFrameCount() == 0)
+				return;
+			long frame = replay.seek(replay.getFrame() + step - nSteps);
+			replay.getState(curr);
+			replay.read(Math.max(0, frame - 1), prev);
+			nSteps = frame;
+			t = replay.getTime(frame);
+			return;
+		}
+		if (history == null)
+			return;
+		step = Math.max(step, history.getFirstStep());
+		long s = Math.min(step, history.getLastStep());
+		if (s != nSteps && history.restore(s, curr)) {
+			if (!history.restore(s - 1, prev))
+				System.arraycopy(curr, 0, prev, 0, curr.length);
+			((Restorable) sim).setState(curr);
+			nSteps = s;
+			t = s * dt;
+		}
+		while (nSteps < step)
+			advance();
+	}
+
+	private void publish(long nanos) {
+		Snapshot s = buffers[writeIdx];
+		System.arraycopy(prev, 0, s.prev, 0, prev.length);
+		System.arraycopy(curr, 0, s.curr, 0, curr.length);
+		s.t = t;
+		s.step = nSteps;
+		s.nanos = nanos;
+		writeIdx = ready.getAndSet(writeIdx | NEW) & 3;
+	}
+
+	// neuester Snapshot (nur von einem Leser-Thread aufrufen)
+	public Snapshot snapshot() {
+		if ((ready.get() & NEW) != 0)
+			readIdx = ready.getAndSet(readIdx) & 3;
+		return buffers[readIdx];
+	}
+
+	// zwischen den letzten beiden Zustaenden interpolieren; der Renderer
+	// laeuft damit einen Physik-Schritt hinter der Simulation her
+	public double[] interpolate(double[] out) {
+		Snapshot s = snapshot();
+		if (out == null)
+			out = new double[s.curr.length];
+		double alpha = (double) (System.nanoTime() - s.nanos) / periodNanos;
+		alpha = Math.max(0, Math.min(1, alpha));
+		for (int i = 0; i < out.length; i++)
+			out[i] = s.prev[i] + alpha * (s.curr[i] - s.prev[i]);
+		return out;
+	}
+
+	public double getDt() {
+		return dt;
+	}
+
+}
@@ -0,0 +1,232 @@
+package programs;
+
+//-------------   Broad-Phase: Koerper in Gitterzellen (Spatial Hashing)  -------------------
+//
+//  Der Raum ist in Wuerfel (2D: Quadrate) der Kantenlaenge cellSize geteilt,
+//  belegte Zellen liegen in einer Hash-Tabelle. Jede Zelle haelt eine doppelt
+//  verkettete Liste ihrer Koerper, ein Koerper wechselt die Zelle in O(1).
+//  Ist cellSize mindestens der groesste Durchmesser, liegen moegliche
+//  Stosspartner in derselben oder einer Nachbarzelle.
+import java.util.Arrays;
+
+public class SpatialHash {
+
+	public interface PairVisitor {
+		void pair(int i, int j);
+	}
+
+	static final long EMPTY = Long.MIN_VALUE; // freier Platz in der Tabelle
+	static final int BITS = 21; // Bits pro Zellkoordinate im Schluessel
+	static final long MASK = (1L << BITS) - 1;
+
+	final double cellSize, invCellSize;
+	final boolean dreiD;
+
+	// Hash-Tabelle Zelle -> erster Koerper (offene Adressierung)
+	long[] keys;
+	int[] heads;
+	int used; // belegte Plaetze (auch Zellen, die wieder leer sind)
+
+	// pro Koerper: Zelle und Verkettung innerhalb der Zelle
+	int[] cx = new int[0], cy = new int[0], cz = new int[0];
+	int[] next = new int[0], prev = new int[0];
+	boolean[] inside = new boolean[0];
+
+	public SpatialHash(double cellSize, boolean dreiD, int capacity) {
+		this.cellSize = cellSize;
+		this.invCellSize = 1 / cellSize;
+		this.dreiD = dreiD;
+		int size = Integer.highestOneBit(Math.max(16, 4 * capacity - 1)) << 1;
+		keys = new long[size];
+		heads = new int[size];
+		Arrays.fill(keys, EMPTY);
+		ensureCapacity(capacity);
+	}
+
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	public int cell(double c) {
+		return (int) Math.floor(c * invCellSize);
+	}
+
+	static long key(int x, int y, int z) {
+		return ((x & MASK) << (2 * BITS)) | ((y & MASK) << BITS) | (z & MASK);
+	}
+
+	// Platz der Zelle in der Tabelle oder -1
+	int find(long key) {
+		int mask = keys.length - 1;
+		for (int s = hash(key) & mask;; s = (s + 1) & mask) {
+			if (keys[s] == key)
+				return s;
+			if (keys[s] == EMPTY)
+				return -1;
+		}
+	}
+
+	// Platz der Zelle, wird wenn noetig angelegt
+	int slot(long key) {
+		int mask = keys.length - 1;
+		for (int s = hash(key) & mask;; s = (s + 1) & mask) {
+			if (keys[s] == key)
+				return s;
+			if (keys[s] == EMPTY) {
+				if (2 * (used + 1) > keys.length) { // zu voll: Tabelle neu aufbauen
+					rehash();
+					return slot(key);
+				}
+				keys[s] = key;
+				heads[s] = -1;
+				used++;
+				return s;
+			}
+		}
+	}
+
+	static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	// nur belegte Zellen uebernehmen, bei Bedarf vergroessern
+	void rehash() {
+		long[] oldKeys = keys;
+		int[] oldHeads = heads;
+		int occupied = 0;
+		for (int s = 0; s < oldKeys.length; s++)
+			if (oldKeys[s] != EMPTY && oldHeads[s] >= 0)
+				occupied++;
+		int size = oldKeys.length;
+		while (4 * (occupied + 1) > size)
+			size *= 2;
+		keys = new long[size];
+		heads = new int[size];
+		Arrays.fill(keys, EMPTY);
+		used = 0;
+		int mask = size - 1;
+		for (int s = 0; s < oldKeys.length; s++)
+			if (oldKeys[s] != EMPTY && oldHeads[s] >= 0) {
+				int t = hash(oldKeys[s]) & mask;
+				while (keys[t] != EMPTY)
+					t = (t + 1) & mask;
+				keys[t] = oldKeys[s];
+				heads[t] = oldHeads[s];
+				used++;
+			}
+	}
+
+	void ensureCapacity(int n) {
+		if (n <= next.length)
+			return;
+		int c = Math.max(n, 2 * next.length);
+		cx = Arrays.copyOf(cx, c);
+		cy = Arrays.copyOf(cy, c);
+		cz = Arrays.copyOf(cz, c);
+		next = Arrays.copyOf(next, c);
+		prev = Arrays.copyOf(prev, c);
+		inside = Arrays.copyOf(inside, c);
+	}
+
+	// Koerper i an Position (x,y,z) eintragen oder, falls er die Zelle
+	// gewechselt hat, umhaengen
+	public void update(int i, double x, double y, double z) {
+		int nx = cell(x), ny = cell(y), nz = dreiD ? cell(z) : 0;
+		ensureCapacity(i + 1);
+		if (inside[i]) {
+			if (nx == cx[i] && ny == cy[i] && nz == cz[i])
+				return;
+			remove(i);
+		}
+		cx[i] = nx;
+		cy[i] = ny;
+		cz[i] = nz;
+		int s = slot(key(nx, ny, nz));
+		int h = heads[s];
+		next[i] = h;
+		prev[i] = -1;
+		if (h >= 0)
+			prev[h] = i;
+		heads[s] = i;
+		inside[i] = true;
+	}
+
+	public void remove(int i) {
+		if (i >= inside.length || !inside[i])
+			return;
+		if (prev[i] >= 0)
+			next[prev[i]] = next[i];
+		else
+			heads[find(key(cx[i], cy[i], cz[i]))] = next[i];
+		if (next[i] >= 0)
+			prev[next[i]] = prev[i];
+		inside[i] = false;
+	}
+
+	// erster Koerper der Zelle oder -1
+	int head(int x, int y, int z) {
+		int s = find(key(x, y, z));
+		return s < 0 ? -1 : heads[s];
+	}
+
+	static int decode(long key, int shift) { // Zellkoordinate mit Vorzeichen
+		return (int) ((key >>> shift) & MASK) << (32 - BITS) >> (32 - BITS);
+	}
+
+	// Nachbarzellen "nach" der eigenen (lexikographisch), damit jedes Zellenpaar einmal vorkommt
+	static final int[][] FORWARD_2D = { { 1, 0, 0 }, { -1, 1, 0 }, { 0, 1, 0 }, { 1, 1, 0 } };
+	static final int[][] FORWARD_3D;
+	static {
+		FORWARD_3D = new int[13][];
+		int k = 0;
+		for (int dz = -1; dz <= 1; dz++)
+			for (int dy = -1; dy <= 1; dy++)
+				for (int dx = -1; dx <= 1; dx++)
+					if (dz > 0 || (dz == 0 && (dy > 0 || (dy == 0 && dx > 0))))
+						FORWARD_3D[k++] = new int[] { dx, dy, dz };
+	}
+
+	// alle Paare in derselben oder benachbarten Zellen, jedes genau einmal (i < j)
+	public void forEachPair(PairVisitor v) {
+		int[][] forward = dreiD ? FORWARD_3D : FORWARD_2D;
+		for (int s = 0; s < keys.length; s++) {
+			int h = heads[s];
+			if (keys[s] == EMPTY || h < 0)
+				continue;
+			for (int i = h; i >= 0; i = next[i]) // innerhalb der Zelle
+				for (int j = next[i]; j >= 0; j = next[j])
+					visit(v, i, j);
+			int x = decode(keys[s], 2 * BITS), y = decode(keys[s], BITS), z = decode(keys[s], 0);
+			for (int[] d : forward) {
+				int g = head(x + d[0], y + d[1], z + d[2]);
+				if (g < 0)
+					continue;
+				for (int i = h; i >= 0; i = next[i])
+					for (int j = g; j >= 0; j = next[j])
+						visit(v, i, j);
+			}
+		}
+	}
+
+	// alle Koerper j != i in der Zelle von i und den Nachbarzellen
+	public void forEachNeighbor(int i, PairVisitor v) {
+		if (!inside[i])
+			return;
+		int dz0 = dreiD ? -1 : 0, dz1 = dreiD ? 1 : 0;
+		for (int dz = dz0; dz <= dz1; dz++)
+			for (int dy = -1; dy <= 1; dy++)
+				for (int dx = -1; dx <= 1; dx++)
+					for (int j = head(cx[i] + dx, cy[i] + dy, cz[i] + dz); j >= 0; j = next[j])
+						if (j != i)
+							v.pair(i, j);
+	}
+
+	private static void visit(PairVisitor v, int i, int j) {
+		if (i < j)
+			v.pair(i, j);
+		else
+			v.pair(j, i);
+	}
+
+}
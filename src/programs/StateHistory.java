@@ -0,0 +1,164 @@
+package programs;
+
+//-------------   Verlauf eines Zustands: Keyframes und Deltas in einem Ringbuffer  -------------------
+//
+//  record(x) haengt den Zustand des naechsten Schritts an. Alle K Schritte wird
+//  er vollstaendig gespeichert (Keyframe), dazwischen nur die Abweichung von
+//  der Vorhersage x[n-1] + (x[n-1] - x[n-2]): XOR der Bits, ohne die fuehrenden
+//  Null-Bytes, Anzahl Bytes als 4 Bit pro Komponente. restore(step) dekodiert
+//  ab dem Keyframe davor hoechstens K-1 Deltas und liefert den Zustand bitgenau.
+//  Der Speicher ist fest; ist er voll, faellt das aelteste Segment (Keyframe
+//  mit seinen Deltas) weg.
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class StateHistory {
+
+	final int n, K;
+	final byte[] ring;
+	final long[] segStart; // Byte-Position von Keyframe s bei s % segStart.length
+	long origin = 0; // Keyframes bei den Schritten origin + j*K
+	long firstStep = 0, steps = 0; // gespeichert sind die Schritte firstStep .. steps-1
+	long tail = 0, head = 0; // belegte Bytes tail .. head-1, Index modulo ring.length
+	private final double[] p1, p2; // die letzten zwei aufgenommenen Zustaende
+	private final double[] d1, d2; // dasselbe beim Dekodieren
+	private final ByteBuffer buf; // ein Datensatz vor dem Kopieren in den Ring
+	private final ByteBuffer seg; // ein Segment am Stueck zum Dekodieren
+
+	// n Komponenten, Keyframe alle K Schritte, capacity Bytes Speicher
+	public StateHistory(int n, int K, int capacity) {
+		int segment = 8 * n + (K - 1) * (8 * n + (n + 1) / 2); // groesstes Segment
+		if (K < 1 || capacity < 2 * segment)
+			throw new IllegalArgumentException("mindestens " + 2 * segment + " Bytes fuer K = " + K);
+		this.n = n;
+		this.K = K;
+		ring = new byte[capacity];
+		segStart = new long[capacity / (8 * n) + 1];
+		p1 = new double[n];
+		p2 = new double[n];
+		d1 = new double[n];
+		d2 = new double[n];
+		// 8 Bytes Reserve: Deltas werden immer als ganzes long gelesen/geschrieben
+		buf = ByteBuffer.allocate(8 * n + (n + 1) / 2 + 8).order(ByteOrder.LITTLE_ENDIAN);
+		seg = ByteBuffer.allocate(segment + 8).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	// Zustand von Schritt getLastStep() + 1 anhaengen
+	public void record(double[] x) {
+		int len;
+		long r = steps - origin;
+		if (r % K == 0) {
+			for (int i = 0; i < n; i++)
+				buf.putDouble(8 * i, x[i]);
+			len = 8 * n;
+			segStart[(int) (r / K % segStart.length)] = head;
+		} else
+			len = encode(x, p1, p2, r % K == 1);
+		while (head + len - tail > ring.length) // aeltestes Segment freigeben
+			dropSegment();
+		int pos = (int) (head % ring.length), first = Math.min(len, ring.length - pos);
+		System.arraycopy(buf.array(), 0, ring, pos, first);
+		System.arraycopy(buf.array(), first, ring, 0, len - first);
+		head += len;
+		System.arraycopy(p1, 0, p2, 0, n);
+		System.arraycopy(x, 0, p1, 0, n);
+		steps++;
+	}
+
+	private void dropSegment() {
+		long next = (firstStep - origin) / K + 1;
+		firstStep = origin + next * K;
+		tail = segStart[(int) (next % segStart.length)];
+	}
+
+	// Delta zur Vorhersage nach buf, Laenge in Bytes
+	private int encode(double[] x, double[] p1, double[] p2, boolean nachKeyframe) {
+		int len = (n + 1) / 2, hdr = 0;
+		for (int i = 0; i < n; i++) {
+			double p = nachKeyframe ? p1[i] : p1[i] + (p1[i] - p2[i]);
+			long d = Double.doubleToRawLongBits(x[i]) ^ Double.doubleToRawLongBits(p);
+			int b = (71 - Long.numberOfLeadingZeros(d)) >> 3; // Bytes ohne fuehrende Nullen
+			hdr |= b << ((i & 1) << 2);
+			if ((i & 1) == 1 || i == n - 1) {
+				buf.put(i >> 1, (byte) hdr);
+				hdr = 0;
+			}
+			buf.putLong(len, d); // die oberen 8 - b Bytes ueberschreibt die naechste Komponente
+			len += b;
+		}
+		return len;
+	}
+
+	// Zustand von Schritt step nach out, false falls nicht (mehr) gespeichert
+	public boolean restore(long step, double[] out) {
+		if (step < firstStep || step >= steps)
+			return false;
+		decode(step, out);
+		return true;
+	}
+
+	// Schritte nach step verwerfen, record() macht bei step + 1 weiter
+	public void truncate(long step) {
+		if (step >= steps - 1)
+			return;
+		if (step < firstStep) {
+			clear(step + 1);
+			return;
+		}
+		head = decode(step, p1);
+		System.arraycopy(d2, 0, p2, 0, n);
+		steps = step + 1;
+	}
+
+	// alles verwerfen, der naechste record() ist Schritt nextStep
+	public void clear(long nextStep) {
+		origin = firstStep = steps = nextStep;
+		tail = head = 0;
+	}
+
+	// dekodiert bis step (out), d2 = Zustand davor im selben Segment; liefert
+	// die Byte-Position nach dem Datensatz von step
+	private long decode(long step, double[] out) {
+		long r = step - origin;
+		long start = segStart[(int) (r / K % segStart.length)];
+		int len = (int) Math.min(seg.capacity() - 8, head - start); // Segment ohne Umbruch im Ring
+		int from = (int) (start % ring.length), first = Math.min(len, ring.length - from);
+		System.arraycopy(ring, from, seg.array(), 0, first);
+		System.arraycopy(ring, 0, seg.array(), first, len - first);
+		int pos = 0;
+		for (int i = 0; i < n; i++, pos += 8)
+			d1[i] = seg.getDouble(pos);
+		for (long s = r - r % K + 1; s <= r; s++) {
+			boolean nachKeyframe = s % K == 1;
+			int hdr = pos;
+			pos += (n + 1) / 2;
+			for (int i = 0; i < n; i++) {
+				int b = (seg.get(hdr + (i >> 1)) >> ((i & 1) << 2)) & 15;
+				long d = b == 0 ? 0 : seg.getLong(pos) & (-1L >>> (64 - 8 * b));
+				pos += b;
+				double p = nachKeyframe ? d1[i] : d1[i] + (d1[i] - d2[i]);
+				out[i] = Double.longBitsToDouble(Double.doubleToRawLongBits(p) ^ d);
+			}
+			for (int i = 0; i < n; i++) { // d2 = d1, d1 = out
+				d2[i] = d1[i];
+				d1[i] = out[i];
+			}
+		}
+		System.arraycopy(d1, 0, out, 0, n);
+		return start + pos;
+	}
+
+	public long getFirstStep() {
+		return firstStep;
+	}
+
+	// letzter gespeicherter Schritt (-1: noch keiner)
+	public long getLastStep() {
+		return steps - 1;
+	}
+
+	public long getBytes() {
+		return head - tail;
+	}
+
+}
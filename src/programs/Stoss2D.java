@@ -9,7 +9,7 @@ import com.jogamp.opengl.util.*;
 import ch.fhnw.util.math.*;
 
 public class Stoss2D
-       implements WindowListener, GLEventListener, KeyListener
+       implements WindowListener, GLEventListener, KeyListener, SimulationLoop.Simulation
 {
 
     //  ---------  globale Daten  ---------------------------
@@ -17,7 +17,7 @@ public class Stoss2D
     String windowTitle = "Zweidimensionaler Stoss";
     int windowWidth = 800;
     int windowHeight = 600;
-    String vShader = MyShaders.vShader1;                 // Vertex-Shader
+    String vShader = MyShaders.vShader3;                 // Vertex-Shader (mit Instancing)
     String fShader = MyShaders.fShader0;                 // Fragment-Shader
     int maxVerts = 2048;                                 // max. Anzahl Vertices im Vertex-Array
     GLCanvas canvas;                                     // OpenGL Window
@@ -28,8 +28,12 @@ public class Stoss2D
     double ybottom, ytop;
     double znear = -100, zfar = 1000;
 
-    double dt = 0.01;                                     // Zeitschritt
-    boolean stopped = false;
+    double dt = 0.002;                                    // Zeitschritt (1000 Schritte/s)
+    volatile boolean stopped = false;
+    SimulationLoop loop;                                  // Physik-Thread
+    static String[] programArgs = {};                     // -record datei / -replay datei
+    double[] s;                                           // interpolierter Zustand fuer display()
+    float[] inst = new float[2*MyGLBase1.instanceSize];   // Instanz-Daten der Kugeln
 
 
     //  -------  Hilfsklasse  -------------
@@ -49,6 +53,10 @@ public class Stoss2D
       }
 
       public void zeichne(GL3 gl)                        // Kreis zeichnen
+      {  zeichne(gl, xm, ym);
+      }
+
+      public void zeichne(GL3 gl, double xm, double ym)  // Kreis an Position (xm,ym) zeichnen
       {  int nPkte = 20;
          double phi = 2*Math.PI / (nPkte-1);
          double x,y;
@@ -80,6 +88,27 @@ public class Stoss2D
     //  ---------  Methoden  ----------------------------------
 
 
+    public void zeichneKugeln(GL3 gl, float[] inst, int n)   // n Kreise (Einheitskreis, skaliert) in einem Draw-Call
+    {  float[] c = mygl.getCurrentColor();
+       mygl.setColor(1,1,1);                                  // Farbe kommt von der Instanz
+       MyGLBase1.Mesh mesh = mygl.getMesh("Kreis 20");
+       if ( mesh == null )
+       {  int nPkte = 20;
+          double phi = 2*Math.PI / (nPkte-1);
+          mygl.rewindBuffer(gl);
+          mygl.putVertex(0,0,0);
+          for (int i=0; i < nPkte; i++)
+            mygl.putVertex((float)Math.cos(i*phi),(float)Math.sin(i*phi), 0);
+          mesh = new MyGLBase1.Mesh();
+          mesh.addDraw(GL3.GL_TRIANGLE_FAN, 0, nPkte+1);
+          mesh = mygl.storeMesh(gl, "Kreis 20", mesh);
+       }
+       mygl.drawMeshInstanced(gl, mesh, inst, n);
+       mygl.setColor(c[0], c[1], c[2]);
+    }
+
+
+
     public void zeichneAchsen(GL3 gl, float a, float b)      // Koordinatenachsen zeichnen
     {  mygl.rewindBuffer(gl);
        mygl.putVertex(-a,0,0);
@@ -95,43 +124,45 @@ public class Stoss2D
     { createFrame();
     }
     
+    // Hilfsvektoren fuer stoss() (nur im Simulations-Thread, keine Allokation pro Stoss)
+    final MutableVec3 v1 = new MutableVec3(), v2 = new MutableVec3(), n = new MutableVec3();
+    final MutableVec3 vv1p = new MutableVec3(), vv2p = new MutableVec3();
+    final double[] vv = new double[2];
+
     public void stoss (Kugel k1, Kugel k2, double stossZahl){
     	double dx = k2.xm-k1.xm;
     	double dy = k2.ym-k1.ym;
     	double distance = Math.sqrt(dx*dx+dy*dy);
-    	if (distance > k1.r + k2.r)
+    	if (distance > k1.r + k2.r || distance == 0)
     		return;
     	
-    	Vec3 v1 = new Vec3(k1.vx, k1.vy, 0);
-    	Vec3 v2 = new Vec3(k2.vx, k2.vy, 0);
-    	Vec3 n = new Vec3(k2.xm-k1.xm, k2.ym-k1.ym, 0);
-    	n = n.normalize();
+    	v1.set(k1.vx, k1.vy, 0);
+    	v2.set(k2.vx, k2.vy, 0);
+    	n.set(dx, dy, 0).normalize();
     	double v1n = v1.dot(n);
     	double v2n = v2.dot(n);
-    	Vec3 vv1n = n.scale((float)v1n);
-    	Vec3 vv2n = n.scale((float)v2n);
-    	Vec3 vv1p = v1.subtract(vv1n);
-    	Vec3 vv2p = v2.subtract(vv2n);
+    	if (v1n - v2n <= 0)                          // entfernen sich schon: kein erneuter Stoss
+    		return;
+    	vv1p.set(v1).addScaled(n, (float)-v1n);      // Tangentialkomponenten
+    	vv2p.set(v2).addScaled(n, (float)-v2n);
     	
-    	double [] vv = stoss1D(k1.m,v1n,k2.m,v2n,stossZahl);
+    	stoss1D(k1.m,v1n,k2.m,v2n,stossZahl,vv);
     	v1n = vv[0];
     	v2n = vv[1];
-    	v1 = (n.scale((float)v1n)).add(vv1p);     // v1 = v1n*n + vv1p
-     	v2 = (n.scale((float)v2n)).add(vv2p);
+    	v1.set(vv1p).addScaled(n, (float)v1n);       // v1 = v1n*n + vv1p
+     	v2.set(vv2p).addScaled(n, (float)v2n);
      	k1.vx = v1.x;
      	k1.vy = v1.y;
     	k2.vx = v2.x;
     	k2.vy = v2.y;
-    	
-    	
     }
 
     public double [] stoss1D(double m1, double v1, double m2, double v2, double k){
-    	double [] vv = {(m1*v1+m2*v2-(v1-v2)*m2*k)/(m1+m2),
-    			(m1*v1+m2*v2-(v2-v1)*m1*k)/(m1+m2)
-    	};
-    	
-    	return vv;
+    	return stoss1D(m1, v1, m2, v2, k, new double[2]);
+    }
+
+    public double [] stoss1D(double m1, double v1, double m2, double v2, double k, double[] vv){   // Resultat in vv
+    	return KugelSystem.stoss1D(m1, v1, m2, v2, k, vv);     // dieselbe Formel fuer viele Kugeln
     }
     
     //Kugel k1 = new Kugel(0.2,0.02, 0 ,0,0,0);
@@ -165,11 +196,41 @@ public class Stoss2D
        mygl = new MyGLBase1(gl, programId, maxVerts);              // eigene OpenGL Basis-Funktionen
        
        
+       loop = SimulationLoop.create(this, dt, 1000, programArgs);  // Physik-Thread, 1000 Schritte/sek
+       loop.start();
        FPSAnimator anim = new FPSAnimator(canvas, 200, true);      // Animations-Thread, 200 Frames/sek
        anim.start();
     }
 
 
+    //  ----------  Physik (im Simulations-Thread)  ---------------------
+
+    @Override
+    public String stateLayout()
+    {  return "x1,y1,x2,y2";
+    }
+
+    @Override
+    public int stateSize()
+    {  return 4;
+    }
+
+    @Override
+    public void getState(double[] state)
+    {  state[0] = k1.xm;
+       state[1] = k1.ym;
+       state[2] = k2.xm;
+       state[3] = k2.ym;
+    }
+
+    @Override
+    public void step(double dt)
+    {  stoss(k1,k2,0.8);
+       k1.move(dt);
+       k2.move(dt);
+    }
+
+
     @Override
     public void display(GLAutoDrawable drawable)
     { GL3 gl = drawable.getGL().getGL3();
@@ -179,13 +240,11 @@ public class Stoss2D
       mygl.setColor(0.6f,0.6f,0.6f);
       zeichneAchsen(gl, 10, 10);
 
-      // ------  Kugel zeichnen -----
-      mygl.setColor(1f, 0.9f, 0.2f);
-      k1.zeichne(gl);
-      k2.zeichne(gl);
-      stoss(k1,k2,0.8);
-      k1.move(dt);
-      k2.move(dt);
+      // ------  Kugeln zeichnen (ein Draw-Call) -----
+      s = loop.interpolate(s);
+      MyGLBase1.putInstance(inst, 0, (float)s[0], (float)s[1], 0, (float)k1.r, 1f, 0.9f, 0.2f);
+      MyGLBase1.putInstance(inst, 1, (float)s[2], (float)s[3], 0, (float)k2.r, 1f, 0.9f, 0.2f);
+      zeichneKugeln(gl, inst, 2);
     }
 
 
@@ -211,13 +270,15 @@ public class Stoss2D
     //  -----------  main-Methode  ---------------------------
 
     public static void main(String[] args)
-    { new Stoss2D();
+    { programArgs = args;
+      new Stoss2D();
     }
 
     //  ---------  Window-Events  --------------------
 
     public void windowClosing(WindowEvent e)
     {   System.out.println("closing window");
+        loop.stop();                                      // Aufnahme abschliessen
         System.exit(0);
     }
     public void windowActivated(WindowEvent e) {  }
@@ -0,0 +1,71 @@
+package programs;
+
+//-------------   Kontinuierliche Kollision: bewegter Kreis gegen bewegtes Rechteck  -------------------
+//
+//  Statt nur die Lage am Ende eines Schritts zu pruefen, wird der Zeitpunkt
+//  der ersten Beruehrung innerhalb des Schritts berechnet. Im System des
+//  Rechtecks bewegt sich der Kreismittelpunkt geradlinig um die relative
+//  Verschiebung; er trifft das um r vergroesserte Rechteck mit runden Ecken.
+//  Dieses ist die Vereinigung zweier Rechtecke und vier Kreise um die Ecken,
+//  der erste Eintritt in eines davon ist der Kontaktzeitpunkt.
+public class SweptCircle {
+
+	// Anteil t in [0,1] des Schritts bis zur ersten Beruehrung, -1 ohne Treffer.
+	// (px,py) Kreismittelpunkt, (dx,dy) Verschiebung des Kreises im Schritt, r Radius,
+	// (x1,y1) linke untere Ecke, w,h Groesse, (rdx,rdy) Verschiebung des Rechtecks.
+	public static double timeOfImpact(double px, double py, double dx, double dy, double r, double x1, double y1,
+			double w, double h, double rdx, double rdy) {
+		double ux = dx - rdx, uy = dy - rdy; // relative Verschiebung
+		double x2 = x1 + w, y2 = y1 + h;
+		// schon beruehrt?
+		double qx = Math.max(x1, Math.min(px, x2)), qy = Math.max(y1, Math.min(py, y2));
+		if ((px - qx) * (px - qx) + (py - qy) * (py - qy) <= r * r)
+			return 0;
+		double t = 2;
+		t = Math.min(t, box(px, py, ux, uy, x1 - r, y1, x2 + r, y2));
+		t = Math.min(t, box(px, py, ux, uy, x1, y1 - r, x2, y2 + r));
+		t = Math.min(t, circle(px, py, ux, uy, x1, y1, r));
+		t = Math.min(t, circle(px, py, ux, uy, x2, y1, r));
+		t = Math.min(t, circle(px, py, ux, uy, x1, y2, r));
+		t = Math.min(t, circle(px, py, ux, uy, x2, y2, r));
+		return t <= 1 ? t : -1;
+	}
+
+	// Eintritt des Strahls p + t*u in das Rechteck, 2 falls keiner in [0,1]
+	static double box(double px, double py, double ux, double uy, double x1, double y1, double x2, double y2) {
+		double tmin = 0, tmax = 1;
+		if (ux == 0) {
+			if (px < x1 || px > x2)
+				return 2;
+		} else {
+			double ta = (x1 - px) / ux, tb = (x2 - px) / ux;
+			tmin = Math.max(tmin, Math.min(ta, tb));
+			tmax = Math.min(tmax, Math.max(ta, tb));
+		}
+		if (uy == 0) {
+			if (py < y1 || py > y2)
+				return 2;
+		} else {
+			double ta = (y1 - py) / uy, tb = (y2 - py) / uy;
+			tmin = Math.max(tmin, Math.min(ta, tb));
+			tmax = Math.min(tmax, Math.max(ta, tb));
+		}
+		return tmin <= tmax ? tmin : 2;
+	}
+
+	// Eintritt des Strahls p + t*u in den Kreis um (cx,cy), 2 falls keiner in [0,1]
+	static double circle(double px, double py, double ux, double uy, double cx, double cy, double r) {
+		double mx = px - cx, my = py - cy;
+		double a = ux * ux + uy * uy;
+		double b = mx * ux + my * uy;
+		double c = mx * mx + my * my - r * r;
+		if (a == 0 || b >= 0) // steht still oder entfernt sich
+			return 2;
+		double disc = b * b - a * c;
+		if (disc < 0)
+			return 2;
+		double t = (-b - Math.sqrt(disc)) / a;
+		return t >= 0 && t <= 1 ? t : 2;
+	}
+
+}
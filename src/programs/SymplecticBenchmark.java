@@ -0,0 +1,107 @@
+package programs;
+
+//-------------   Kepler-Bahn: Kosten pro stabilem Umlauf, symplektisch gegen Euler/RK4  -------------------
+//
+//  Fuer jedes Verfahren wird die kleinste Schrittzahl pro Umlauf (Zweierpotenz)
+//  gesucht, bei welcher der relative Energiefehler ueber ORBITS Umlaeufe unter
+//  TOL bleibt. Ausgegeben werden Kraft-Auswertungen und Zeit pro Umlauf.
+//  Danach ein Langlauf mit 10^6 Schritten bei grossem dt.
+//
+//  java programs.SymplecticBenchmark [umlaeufe] [toleranz]
+public class SymplecticBenchmark {
+
+	static final String[] NAMES = { "Euler", "RK4", "Verlet", "Leapfrog", "Yoshida4" };
+	static final int SAMPLES = 64; // Energie-Kontrollen pro Umlauf
+	static final int MAX_PER_ORBIT = 1 << 20;
+
+	static class CountingKepler extends KeplerDynamics {
+		long nEval = 0;
+
+		CountingKepler() {
+			super(KeplerBenchmark.GM);
+		}
+
+		@Override
+		public void f(double[] x, double[] y) {
+			nEval++;
+			super.f(x, y);
+		}
+
+		@Override
+		public void acceleration(double[] x, double[] a) {
+			nEval++;
+			super.acceleration(x, a);
+		}
+	}
+
+	static void step(KeplerDynamics k, int method, double[] x, double dt) {
+		switch (method) {
+		case 0:
+			k.eulerInPlace(x, dt);
+			break;
+		case 1:
+			k.rungeInPlace(x, dt);
+			break;
+		case 2:
+			k.verletInPlace(x, dt);
+			break;
+		case 3:
+			k.leapfrogInPlace(x, dt);
+			break;
+		default:
+			k.yoshidaInPlace(x, dt);
+		}
+	}
+
+	// max. relativer Energiefehler ueber nSteps Schritte mit Periode/nPerOrbit
+	static double drift(KeplerDynamics k, int method, long nSteps, int nPerOrbit) {
+		double[] x = KeplerBenchmark.startState();
+		double e0 = k.energy(x);
+		double dt = k.period(x) / nPerOrbit;
+		int every = Math.max(1, nPerOrbit / SAMPLES);
+		double drift = 0;
+		for (long i = 1; i <= nSteps; i++) {
+			step(k, method, x, dt);
+			if (i % every == 0)
+				drift = Math.max(drift, Math.abs((k.energy(x) - e0) / e0));
+		}
+		return drift;
+	}
+
+	public static void main(String[] args) {
+		int orbits = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		double tol = args.length > 1 ? Double.parseDouble(args[1]) : 1e-4;
+		System.out.printf("Energiefehler < %.0e ueber %d Umlaeufe%n", tol, orbits);
+		System.out.printf("%-10s %14s %14s %12s %12s%n", "", "Schritte/Uml.", "f-Ausw./Uml.", "us/Uml.", "Fehler");
+		for (int method = 0; method < NAMES.length; method++) {
+			int found = -1;
+			// grob suchen (wenige Umlaeufe), dann ueber alle Umlaeufe bestaetigen
+			for (int n = 8; n <= MAX_PER_ORBIT && found < 0; n *= 2)
+				if (drift(new KeplerDynamics(KeplerBenchmark.GM), method, 10L * n, n) < tol
+						&& drift(new KeplerDynamics(KeplerBenchmark.GM), method, (long) orbits * n, n) < tol)
+					found = n;
+			if (found < 0) {
+				System.out.printf("%-10s %14s%n", NAMES[method], "> " + MAX_PER_ORBIT);
+				continue;
+			}
+			CountingKepler k = new CountingKepler();
+			drift(k, method, found, found); // Auswertungen eines Umlaufs
+			long evals = k.nEval;
+			KeplerDynamics kd = new KeplerDynamics(KeplerBenchmark.GM);
+			drift(kd, method, (long) orbits * found, found); // aufwaermen
+			long t0 = System.nanoTime();
+			double d = drift(kd, method, (long) orbits * found, found);
+			double us = (System.nanoTime() - t0) * 1e-3 / orbits;
+			System.out.printf("%-10s %14d %14d %12.1f %12.1e%n", NAMES[method], found, evals, us, d);
+		}
+
+		// Langlauf: 10^6 Schritte mit 64 Schritten pro Umlauf
+		long steps = 1_000_000;
+		int n = 64;
+		System.out.printf("%nLanglauf: %d Schritte, %d Schritte/Umlauf (%d Umlaeufe)%n", steps, n, steps / n);
+		for (int method = 1; method < NAMES.length; method++)
+			System.out.printf("%-10s max. Energiefehler %.1e%n", NAMES[method],
+					drift(new KeplerDynamics(KeplerBenchmark.GM), method, steps, n));
+	}
+
+}
@@ -0,0 +1,86 @@
+package programs;
+
+//-------------   Parallele Integration unabhaengiger Bahnen  -------------------
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class TrajectoryEngine {
+
+	ForkJoinPool pool;
+	int grain; // min. Anzahl Bahnen pro Task (0 = automatisch)
+
+	public TrajectoryEngine(ForkJoinPool pool, int grain) {
+		this.pool = pool;
+		this.grain = grain;
+	}
+
+	public TrajectoryEngine() {
+		this(ForkJoinPool.commonPool(), 0);
+	}
+
+	// Integriert die N Startzustaende im Block x[dim][N] mit Runge-Kutta.
+	// Nach nSkip Schritten ohne Ausgabe werden nPunkte Vertices pro Bahn
+	// gespeichert (der erste vor dem naechsten Schritt). Bahn k belegt
+	// verts[3*k*nPunkte ... 3*(k+1)*nPunkte-1] mit x[0], x[1], x[2].
+	// Jede Bahn wird unabhaengig von der Aufteilung gleich gerechnet, das
+	// Ergebnis haengt also nicht von der Anzahl Threads ab.
+	public float[] integrate(Dynamics dyn, double[][] x, double dt, int nSkip, int nPunkte, float[] verts) {
+		int n = x[0].length;
+		if (verts == null || verts.length < 3 * n * nPunkte)
+			verts = new float[3 * n * nPunkte];
+		int g = grain > 0 ? grain : Math.max(1, n / (4 * pool.getParallelism()));
+		pool.invoke(new Task(dyn, x, dt, nSkip, nPunkte, verts, 0, n, g));
+		return verts;
+	}
+
+	static class Task extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		final Dynamics dyn;
+		final double[][] x;
+		final double dt;
+		final int nSkip, nPunkte;
+		final float[] verts;
+		final int from, to, grain;
+
+		Task(Dynamics dyn, double[][] x, double dt, int nSkip, int nPunkte, float[] verts, int from, int to,
+				int grain) {
+			this.dyn = dyn;
+			this.x = x;
+			this.dt = dt;
+			this.nSkip = nSkip;
+			this.nPunkte = nPunkte;
+			this.verts = verts;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				integrateRange();
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new Task(dyn, x, dt, nSkip, nPunkte, verts, from, mid, grain),
+					new Task(dyn, x, dt, nSkip, nPunkte, verts, mid, to, grain));
+		}
+
+		private void integrateRange() {
+			double[] x0 = x[0], x1 = x[1], x2 = x.length > 2 ? x[2] : null;
+			for (int i = 0; i < nSkip; i++)
+				dyn.rungeBatch(x, dt, from, to);
+			for (int i = 0; i < nPunkte; i++) {
+				if (i > 0)
+					dyn.rungeBatch(x, dt, from, to);
+				for (int k = from; k < to; k++) {
+					int j = 3 * (k * nPunkte + i);
+					verts[j] = (float) x0[k];
+					verts[j + 1] = (float) x1[k];
+					verts[j + 2] = x2 == null ? 0 : (float) x2[k];
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+package programs;
+
+//-------------   Zustaende Schritt fuer Schritt in eine Datei schreiben (memory-mapped)  -------------------
+//
+//  Datei (little endian):
+//     0  "PFCTRAJ1"           8 Bytes
+//     8  headerSize           int (Vielfaches von 64)
+//    12  stateSize            int, doubles pro Zustand
+//    16  dt                   double
+//    24  frameCount           long, wird nach jedem Frame nachgefuehrt
+//    32  layoutLength         int, Bytes der Beschreibung
+//    36  layout               UTF-8, Namen der Komponenten mit Komma getrennt
+//  ab headerSize Frames fester Breite: t, state[0..stateSize-1] als doubles.
+//
+//  Geschrieben wird in Fenster von ca. 64 MB der Datei (FileChannel.map), ein
+//  Frame ist ein DoubleBuffer.put ohne Systemaufruf. Da frameCount jeweils
+//  nach dem Frame gesetzt wird, ist die Datei auch ohne close() lesbar.
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class TrajectoryRecorder implements AutoCloseable {
+
+	static final byte[] MAGIC = "PFCTRAJ1".getBytes(StandardCharsets.US_ASCII);
+	static final long WINDOW = 64L << 20; // Bytes pro gemapptem Fenster (ungefaehr)
+
+	final FileChannel channel;
+	final int stateSize, headerSize, frameBytes;
+	final long windowFrames; // Frames pro Fenster
+	final MappedByteBuffer header;
+	DoubleBuffer window; // aktuelles Fenster
+	long frameCount = 0;
+
+	public TrajectoryRecorder(Path file, int stateSize, double dt, String layout) throws IOException {
+		this.stateSize = stateSize;
+		byte[] l = layout == null ? new byte[0] : layout.getBytes(StandardCharsets.UTF_8);
+		headerSize = (36 + l.length + 63) / 64 * 64;
+		frameBytes = 8 * (stateSize + 1);
+		windowFrames = Math.max(1, WINDOW / frameBytes);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		header.put(MAGIC).putInt(headerSize).putInt(stateSize).putDouble(dt).putLong(0).putInt(l.length).put(l);
+	}
+
+	// Zeit t und Zustand state[0..stateSize-1] anhaengen
+	public void record(double t, double[] state) throws IOException {
+		if (window == null || !window.hasRemaining())
+			mapWindow();
+		window.put(t);
+		window.put(state, 0, stateSize);
+		header.putLong(24, ++frameCount);
+	}
+
+	private void mapWindow() throws IOException {
+		long pos = headerSize + frameCount * frameBytes;
+		window = channel.map(FileChannel.MapMode.READ_WRITE, pos, windowFrames * frameBytes)
+				.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+	}
+
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	// Datei auf die geschriebenen Frames kuerzen
+	@Override
+	public void close() throws IOException {
+		header.force();
+		window = null;
+		try {
+			channel.truncate(headerSize + frameCount * frameBytes);
+		} catch (IOException e) {
+			// Windows: solange ein Fenster gemappt ist nicht moeglich, frameCount gilt trotzdem
+		}
+		channel.close();
+	}
+
+}
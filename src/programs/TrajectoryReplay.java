@@ -0,0 +1,143 @@
+package programs;
+
+//-------------   Aufgenommene Zustaende wiedergeben (memory-mapped, ohne Kopie)  -------------------
+//
+//  Liest Dateien von TrajectoryRecorder. frame(i) liefert eine Sicht auf den
+//  Frame direkt im gemappten Speicher. Als SimulationLoop.Simulation liefert
+//  step() einfach den naechsten Frame, der Renderer (display mit
+//  loop.interpolate) merkt keinen Unterschied zur Simulation.
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class TrajectoryReplay implements SimulationLoop.Simulation, AutoCloseable {
+
+	final FileChannel channel;
+	final int stateSize, headerSize, frameBytes;
+	final double dt;
+	final long frameCount, windowFrames;
+	final String layout;
+	final DoubleBuffer[] windows; // Fenster von je windowFrames Frames
+	long frame = 0; // naechster Frame fuer step()
+	boolean loop = true; // am Ende wieder von vorn
+
+	public TrajectoryReplay(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < 36)
+				throw new IOException(file + ": keine Trajektorien-Datei (" + size + " Bytes)");
+			MappedByteBuffer h = channel.map(FileChannel.MapMode.READ_ONLY, 0, 36);
+			h.order(ByteOrder.LITTLE_ENDIAN);
+			byte[] magic = new byte[8];
+			h.get(magic);
+			if (!Arrays.equals(magic, TrajectoryRecorder.MAGIC))
+				throw new IOException(file + ": keine Trajektorien-Datei");
+			headerSize = h.getInt();
+			stateSize = h.getInt();
+			dt = h.getDouble();
+			long count = h.getLong();
+			int layoutLength = h.getInt();
+			if (headerSize < 36 || headerSize > size || stateSize < 1 || stateSize > (1 << 20) || count < 0
+					|| layoutLength < 0 || layoutLength > headerSize - 36)
+				throw new IOException(file + ": Header beschaedigt");
+			frameBytes = 8 * (stateSize + 1);
+			frameCount = Math.min(count, (size - headerSize) / frameBytes);
+			byte[] l = new byte[layoutLength];
+			ByteBuffer lb = channel.map(FileChannel.MapMode.READ_ONLY, 36, l.length);
+			lb.get(l);
+			layout = new String(l, StandardCharsets.UTF_8);
+			windowFrames = Math.max(1, TrajectoryRecorder.WINDOW / frameBytes);
+			windows = new DoubleBuffer[(int) ((frameCount + windowFrames - 1) / windowFrames)];
+			for (int w = 0; w < windows.length; w++) {
+				long first = w * windowFrames, n = Math.min(windowFrames, frameCount - first);
+				windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, headerSize + first * frameBytes, n * frameBytes)
+						.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	public double getDt() {
+		return dt;
+	}
+
+	public String getLayout() {
+		return layout;
+	}
+
+	public void setLoop(boolean loop) {
+		this.loop = loop;
+	}
+
+	public long getFrame() {
+		return frame;
+	}
+
+	// zu Frame i springen (begrenzt auf die Aufnahme), liefert den neuen Frame
+	public long seek(long i) {
+		frame = Math.max(0, Math.min(i, frameCount - 1));
+		return frame;
+	}
+
+	// Frame i als Sicht in die Datei: get(0) = t, get(1 + k) = state[k]
+	public DoubleBuffer frame(long i) {
+		DoubleBuffer w = windows[(int) (i / windowFrames)].duplicate();
+		int pos = (int) (i % windowFrames) * (stateSize + 1);
+		w.limit(pos + stateSize + 1);
+		w.position(pos);
+		return w.slice();
+	}
+
+	public double getTime(long i) {
+		return windows[(int) (i / windowFrames)].get((int) (i % windowFrames) * (stateSize + 1));
+	}
+
+	// Zustand von Frame i nach state kopieren
+	public void read(long i, double[] state) {
+		DoubleBuffer w = windows[(int) (i / windowFrames)];
+		int pos = (int) (i % windowFrames) * (stateSize + 1) + 1;
+		for (int k = 0; k < stateSize; k++)
+			state[k] = w.get(pos + k);
+	}
+
+	// ------ Wiedergabe als Simulation ------
+
+	@Override
+	public int stateSize() {
+		return stateSize;
+	}
+
+	@Override
+	public void step(double dt) { // dt der Aufnahme, das Argument wird nicht verwendet
+		if (frame + 1 < frameCount)
+			frame++;
+		else if (loop)
+			frame = 0;
+	}
+
+	@Override
+	public void getState(double[] state) {
+		if (frameCount > 0)
+			read(frame, state);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
@@ -0,0 +1,93 @@
+package programs;
+
+//-------------   Benchmark Vertex-Transformation mit Mat4/Mat3 (ohne OpenGL)  -------------------
+//
+//  java programs.TransformBenchmark [anzahl vertices]
+import java.nio.*;
+
+import ch.fhnw.util.math.*;
+
+public class TransformBenchmark {
+
+	static final int WARMUP = 200;
+	static final int RUNS = 200;
+
+	interface Kernel {
+		void run();
+	}
+
+	static void measure(String name, int n, Kernel k) {
+		for (int i = 0; i < WARMUP; i++)
+			k.run();
+		long best = Long.MAX_VALUE; // bester Lauf, die Maschine kann nebenher beschaeftigt sein
+		for (int i = 0; i < RUNS; i++) {
+			long t0 = System.nanoTime();
+			k.run();
+			best = Math.min(best, System.nanoTime() - t0);
+		}
+		System.out.printf("%-32s %8.3f ns/vertex%n", name, (double) best / n);
+	}
+
+	// bisherige Schleife von Mat4.transform(float[], float[]): immer mit Division durch w
+	static void legacy(Mat4 M, float[] xyz, float[] result) {
+		for (int i = 0; i < xyz.length; i += 3) {
+			float x = M.m00 * xyz[i] + M.m01 * xyz[i + 1] + M.m02 * xyz[i + 2] + M.m03;
+			float y = M.m10 * xyz[i] + M.m11 * xyz[i + 1] + M.m12 * xyz[i + 2] + M.m13;
+			float z = M.m20 * xyz[i] + M.m21 * xyz[i + 1] + M.m22 * xyz[i + 2] + M.m23;
+			float w = M.m30 * xyz[i] + M.m31 * xyz[i + 1] + M.m32 * xyz[i + 2] + M.m33;
+			result[i] = x / w;
+			result[i + 1] = y / w;
+			result[i + 2] = z / w;
+		}
+	}
+
+	public static void main(String[] args) {
+		final int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		final Mat4 M = Mat4.multiply(Mat4.translate(1, 2, 3), Mat4.rotate(30, 1, 1, 0), Mat4.scale(2, 2, 2));
+		final Mat4 P = Mat4.perspective(45, 1, 0.1f, 100);
+		final Mat3 N = new Mat3(M).inverse().transpose();
+
+		final float[] xyz = new float[3 * n], res = new float[3 * n], ref = new float[3 * n];
+		final float[] x = new float[n], y = new float[n], z = new float[n];
+		final float[] rx = new float[n], ry = new float[n], rz = new float[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = xyz[3 * i] = (float) Math.sin(i);
+			y[i] = xyz[3 * i + 1] = (float) Math.cos(i);
+			z[i] = xyz[3 * i + 2] = -1 - i * 1e-5f; // vor der Kamera, w != 0
+		}
+		final FloatBuffer packed = floatBuffer(3 * n);
+		final FloatBuffer interleaved = floatBuffer(12 * n); // VERTEX_FLOAT: 12 floats pro Vertex
+
+		measure("legacy loop (affine)", n, () -> legacy(M, xyz, res));
+		measure("Mat4 packed (affine)", n, () -> M.transform(xyz, 0, res, 0, n));
+		measure("Mat4 SoA (affine)", n, () -> M.transform(x, y, z, rx, ry, rz, 0, n));
+		measure("Mat4 FloatBuffer stride 3", n, () -> M.transform(xyz, 0, packed, 3, n));
+		measure("Mat4 FloatBuffer stride 12", n, () -> M.transform(xyz, 0, interleaved, 12, n));
+		measure("legacy loop (projective)", n, () -> legacy(P, xyz, res));
+		measure("Mat4 packed (projective)", n, () -> P.transform(xyz, 0, res, 0, n));
+		measure("Mat4 SoA (projective)", n, () -> P.transform(x, y, z, rx, ry, rz, 0, n));
+		measure("Mat3 packed", n, () -> N.transform(xyz, 0, res, 0, n));
+		measure("Mat3 SoA", n, () -> N.transform(x, y, z, rx, ry, rz, 0, n));
+
+		// alle Varianten muessen dasselbe liefern
+		for (Mat4 T : new Mat4[] { M, P }) {
+			legacy(T, xyz, ref);
+			T.transform(xyz, 0, res, 0, n);
+			T.transform(x, y, z, rx, ry, rz, 0, n);
+			T.transform(xyz, 0, interleaved, 12, n);
+			boolean same = true;
+			for (int i = 0; i < n; i++)
+				for (int c = 0; c < 3; c++) {
+					float r = ref[3 * i + c];
+					float s = c == 0 ? rx[i] : c == 1 ? ry[i] : rz[i];
+					same &= r == res[3 * i + c] && r == s && r == interleaved.get(12 * i + c);
+				}
+			System.out.println((T == M ? "affine" : "projective") + " identisch: " + same);
+		}
+	}
+
+	static FloatBuffer floatBuffer(int n) {
+		return ByteBuffer.allocateDirect(4 * n).order(ByteOrder.nativeOrder()).asFloatBuffer();
+	}
+
+}
@@ -0,0 +1,79 @@
+package programs;
+
+//-------------   Pruefung: kein Durchtunneln mit SweptCircle (ohne OpenGL)  -------------------
+//
+//  Kugel (r = 0.2) fliegt horizontal auf das fallende Blech aus SchussAufBlech
+//  (1 x 2, v = -9.3) zu, fuer eine Matrix aus Geschwindigkeiten und Zeitschritten.
+//  Das Blech ist so gestartet, dass die Kugel es mittig treffen muss (bzw. im
+//  zweiten Fall knapp darueber vorbeifliegt). Verglichen wird mit der nur am
+//  Schrittende pruefenden Methode und mit dem exakten Trefferzeitpunkt: der
+//  Swept-Fall laeuft durch SchussAufBlech.step() (ohne Fenster, ohne Schwerkraft),
+//  der Treffer muss im Schritt liegen, der den exakten Zeitpunkt enthaelt.
+//
+//  java programs.TunnelCheck      Exit-Code 1 bei einem Fehler
+public class TunnelCheck {
+
+	static final double R = 0.2, X0 = -8, Y0 = 0;
+	static final double BX = 8, BW = 1, BH = 2, BV = -9.3; // Blech
+
+	// Zeit bis zum Treffer oder -1, nur am Schrittende geprueft (bisherige Methode)
+	static double diskret(double v, double dt, double by0) {
+		double x = X0, y = Y0, by = by0, t = 0;
+		while (x < BX + BW + R + v * dt) {
+			x += v * dt;
+			by += BV * dt;
+			t += dt;
+			double qx = Math.max(BX, Math.min(x, BX + BW)), qy = Math.max(by, Math.min(y, by + BH));
+			if ((x - qx) * (x - qx) + (y - qy) * (y - qy) <= R * R)
+				return t;
+		}
+		return -1;
+	}
+
+	// Anzahl Schritte von SchussAufBlech bis zum Treffer oder -1, falls die
+	// Kugel rechts hinausfliegt
+	static long schritte(double v, double dt, double by0) {
+		SchussAufBlech s = new SchussAufBlech(false);
+		s.ybottom = -1e9;
+		s.ay = 0;
+		s.x = X0;
+		s.y = Y0;
+		s.vx = v;
+		s.vy = 0;
+		s.startPositionY = by0;
+		s.stopped = true;
+		for (long k = 1;; k++) {
+			s.step(dt);
+			if (s.treffer > 0)
+				return k;
+			if (s.counter > 0)
+				return -1;
+		}
+	}
+
+	public static void main(String[] args) {
+		double[] speeds = { 10, 50, 200, 1000, 10_000, 100_000 };
+		double[] dts = { 0.0005, 0.002, 0.01, 0.05, 0.2 };
+		int fehler = 0;
+		System.out.printf("%10s %8s %12s %12s %12s%n", "v", "dt", "diskret", "Schritt", "vorbei");
+		for (double v : speeds)
+			for (double dt : dts) {
+				double tHit = (BX - R - X0) / v; // exakter Trefferzeitpunkt
+				double byHit = Y0 - BH / 2 - BV * tHit; // Blech mittig zur Kugel in diesem Moment
+				double diskret = diskret(v, dt, byHit);
+				long k = schritte(v, dt, byHit);
+				// knapp vorbei: Blech zum Trefferzeitpunkt ganz unter der Kugel
+				long vorbei = schritte(v, dt, Y0 - BH - R - 0.01 - BV * tHit);
+				double eps = 1e-9 * Math.max(1, tHit);
+				boolean ok = k > 0 && (k - 1) * dt <= tHit + eps && tHit <= k * dt + eps && vorbei < 0;
+				if (!ok)
+					fehler++;
+				System.out.printf("%10.0f %8.4f %12s %12s %12s%s%n", v, dt, diskret < 0 ? "getunnelt" : "Treffer",
+						k < 0 ? "getunnelt" : Long.toString(k), vorbei < 0 ? "ok" : "FALSCH", ok ? "" : "   <-- FEHLER");
+			}
+		System.out.println(fehler == 0 ? "kein Durchtunneln" : fehler + " Fehler");
+		if (fehler > 0)
+			System.exit(1);
+	}
+
+}
@@ -34,6 +34,7 @@ public class Vectorfield implements WindowListener, GLEventListener, KeyListener
 	float radius = 15.0f;
 
 	LorenzDynamics lorenzdynamics;
+	double[] yStart; // Startpunkte der Stromlinien
 
 	// Viewing Volume
 	float left = -60, right = 60;
@@ -46,7 +47,7 @@ public class Vectorfield implements WindowListener, GLEventListener, KeyListener
 	Vec3 up = new Vec3(0, 1, 0); 
 	// --------------
 	
-	class LorenzDynamics extends Dynamics {
+	static class LorenzDynamics extends Dynamics {
 
 		float radius;
 
@@ -55,12 +56,19 @@ public class Vectorfield implements WindowListener, GLEventListener, KeyListener
 		}
 
 		public double[] f(double[] x) {
-			double x1 = x[0], x2 = x[1];
-			double[] y = { f1(x1, x2, radius), f2(x1, x2, radius), 0 };
-
+			double[] y = new double[3];
+			f(x, y);
 			return y;
 		}
 
+		@Override
+		public void f(double[] x, double[] y) {
+			double x1 = x[0], x2 = x[1];
+			y[0] = f1(x1, x2, radius);
+			y[1] = f2(x1, x2, radius);
+			y[2] = 0;
+		}
+
 		private double f1(double x1, double x2, double radius) {
 			return 1 + (radius * radius) / (x1 * x1 + x2 * x2)
 					- (2 * radius * radius * x1 * x1) / Math.pow((x1 * x1 + x2 * x2), 2);
@@ -70,25 +78,42 @@ public class Vectorfield implements WindowListener, GLEventListener, KeyListener
 			return (-1) * (2 * radius * radius * x1 * x2) / Math.pow((x1 * x1 + x2 * x2), 2);
 		}
 
-		
-		public void zeichneBahn(MyGLBase1 mygl, GL3 gl, double xStart, double yStart, double zStart, double dt,
-				double nSchritte) {
-
-			double[] x = { xStart, yStart, zStart };
-			mygl.rewindBuffer(gl);
-
-			for (int i = 0; i < 50; i++) {
-				x = runge(x, dt);
+		@Override
+		public void fBatch(double[][] x, double[][] y, int from, int to) {
+			double[] x1 = x[0], x2 = x[1];
+			double[] y1 = y[0], y2 = y[1], y3 = y[2];
+			double rr = (double) radius * radius; // wie f1, f2 in double
+			for (int k = from; k < to; k++) {
+				double a = x1[k], b = x2[k];
+				double r2 = a * a + b * b;
+				double r4 = r2 * r2;
+				y1[k] = 1 + rr / r2 - 2 * rr * a * a / r4;
+				y2[k] = -2 * rr * a * b / r4;
+				y3[k] = 0;
 			}
-			for (int i = 0; i < nSchritte; i++) {
-				x = runge(x, dt);
-
-				mygl.putVertex((float) x[0], (float) x[1], (float) x[2]);
+		}
 
+		float[] bahnen; // Vertices aller Stromlinien, Bahn k ab 3*k*nSchritte
+		TrajectoryEngine engine = new TrajectoryEngine();
+
+		// alle Stromlinien parallel integrieren (ein Zustands-Block x[3][N])
+		public void zeichneBahnen(MyGLBase1 mygl, GL3 gl, double xStart, double[] yStart, double zStart,
+				double dt, int nSchritte) {
+			int n = yStart.length;
+			double[][] x = new double[3][n];
+			for (int k = 0; k < n; k++) {
+				x[0][k] = xStart;
+				x[1][k] = yStart[k];
+				x[2][k] = zStart;
 			}
+			bahnen = engine.integrate(this, x, dt, 51, nSchritte, bahnen);
 
-			mygl.copyBuffer(gl);
-			mygl.drawArrays(gl, GL3.GL_LINE_STRIP);
+			for (int k = 0; k < n; k++) {
+				mygl.rewindBuffer(gl);
+				mygl.putVertices(bahnen, 3 * k * nSchritte, nSchritte);
+				mygl.copyBuffer(gl);
+				mygl.drawArrays(gl, GL3.GL_LINE_STRIP);
+			}
 		}
 	}
 
@@ -159,12 +184,15 @@ public class Vectorfield implements WindowListener, GLEventListener, KeyListener
 		gl.glEnable(GL3.GL_DEPTH_TEST);
 		gl.glClearColor(0.2f, 0.2f, 1.0f, 1);
 		int programId = MyShaders.initShaders(gl, vShader, fShader);
-		mygl = new MyGLBase1(gl, programId, maxVerts);
+		mygl = new MyGLBase1(gl, programId, maxVerts, MyGLBase1.VERTEX_COMPACT); // 20 Bytes pro Vertex
 		FPSAnimator anim = new FPSAnimator(canvas, 200, true); // Animations-Thread,
 																// 200
 																// Frames/sek
 		anim.start();
 		lorenzdynamics = new LorenzDynamics(radius);
+		yStart = new double[34];
+		for (int i = 0; i < yStart.length; i++)
+			yStart[i] = -50 + 3 * i + 2.5f;
 	}
 
 	@Override
@@ -182,9 +210,7 @@ public class Vectorfield implements WindowListener, GLEventListener, KeyListener
 		
 		mygl.setColor(0, 1, 1);
 
-		for (int i = -50; i < 50; i += 3) {
-			lorenzdynamics.zeichneBahn(mygl, gl, -80, i + 2.5f, 10, 0.01f, 18000);
-		}
+		lorenzdynamics.zeichneBahnen(mygl, gl, -80, yStart, 10, 0.01f, 18000);
 
 		mygl.setColor(0.2f, 0.2f, 0.2f);
 		zeichneKreis(gl, radius, 0.0f, 0.0f, 50);
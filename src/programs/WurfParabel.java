@@ -10,7 +10,7 @@ import ch.fhnw.util.math.*;
 
 import ch.fhnw.util.math.Mat4;
 
-public class WurfParabel implements WindowListener, GLEventListener, KeyListener {
+public class WurfParabel implements WindowListener, GLEventListener, KeyListener, SimulationLoop.Restorable {
 
 	// --------- globale Daten ---------------------------
 
@@ -27,7 +27,7 @@ public class WurfParabel implements WindowListener, GLEventListener, KeyListener
 	Mat4 P = Mat4.ID; // Proj. Matrix
 	// float drehwinkel = 30;
 	// Koordinaten fr P
-	double ybottom, ytop;
+	volatile double ybottom, ytop;
 	float xleft = -10, xright = 10; // ViewingVol
 	float znear = -100, zfar = 100;
 
@@ -45,8 +45,13 @@ public class WurfParabel implements WindowListener, GLEventListener, KeyListener
 	double vy = v0y;
 	double ax = 0;
 	double ay = -g;
-	double dt = 0.01; // Zeitschritt
-	boolean stopped = false;
+	double dt = 0.002; // Zeitschritt (1000 Schritte/s)
+	volatile boolean stopped = false;
+	// Pfeil hoch/runter (AWT-Thread) nur als Auftrag, ausgefuehrt in step()
+	volatile int tempoTasten;
+	int tempoAngewandt;
+	SimulationLoop loop; // Physik-Thread
+	double[] s; // interpolierter Zustand fuer display()
 
 	// fr viereck
 	float a = (float) 0.4;
@@ -128,10 +133,59 @@ public class WurfParabel implements WindowListener, GLEventListener, KeyListener
 																		// Shader-Programme
 		mygl = new MyGLBase1(gl, programId, maxVerts); // OpenGL
 														// Basis-Funktionen
+		loop = new SimulationLoop(this, dt, 1000);
+		loop.keepHistory(64, 16 << 20); // Verlauf fuer z/v
+		loop.start();
 		FPSAnimator anim = new FPSAnimator(canvas, 200, true);
 		anim.start();
 	}
 
+	// ---------- Physik (im Simulations-Thread) ---------------------------
+
+	@Override
+	public int stateSize() {
+		return 4;
+	}
+
+	@Override
+	public void getState(double[] state) {
+		state[0] = x;
+		state[1] = y;
+		state[2] = vx;
+		state[3] = vy;
+	}
+
+	@Override
+	public void setState(double[] state) {
+		x = state[0];
+		y = state[1];
+		vx = state[2];
+		vy = state[3];
+	}
+
+	@Override
+	public void step(double dt) {
+		int k = tempoTasten;
+		if (k != tempoAngewandt) {
+			v0y += 0.5 * (k - tempoAngewandt);
+			tempoAngewandt = k;
+		}
+		// eulerischer Algorythmus 2D
+		if (stopped)
+			return;
+
+		x = x + vx * dt;
+		y = y + vy * dt;
+		vx = vx + ax * dt;
+		vy = vy + ay * dt;
+		if (y < ybottom) {
+			x = x0;
+			y = y0;
+			vx = v0x;
+			vy = v0y;
+		}
+	}
+
 	@Override
 	public void display(GLAutoDrawable drawable) {
 		GL3 gl = drawable.getGL().getGL3();
@@ -139,6 +193,8 @@ public class WurfParabel implements WindowListener, GLEventListener, KeyListener
 		mygl.setColor(0, 1, 0); // Farbe der Vertices
 		
 		double alpha = 0;
+		s = loop.interpolate(s);
+		double x = s[0], y = s[1], vx = s[2], vy = s[3];
 		//Quader viereck = new Quader(mygl);
 		//viereck.zeichne(gl, a, b, c, true);
 
@@ -151,26 +207,6 @@ public class WurfParabel implements WindowListener, GLEventListener, KeyListener
 		M = M.postMultiply(Mat4.rotate((float)alpha, 0,0,1));
 		mygl.setM(gl,M);
 		zeichneSpeer(gl, 1.2f, 0.04f, 0.2f);
-		
-		// eulerischer Algorythmus 2D
-		if (stopped)
-			return;
-		
-		x = x + vx * dt;
-		y = y + vy * dt;
-		vx = vx + ax * dt;
-		vy = vy + ay * dt;
-		if (y < ybottom) {
-			x = x0;
-			y = y0;
-			vx = v0x;
-			vy = v0y;
-		}
-		
-		
-		
-		// y = y + v*dt;
-		// v = v + -g*dt;
 	}
 
 	public void zeichneDreieck(GL3 gl, float x1, float y1, float x2, float y2, float x3, float y3) {
@@ -250,10 +286,10 @@ public class WurfParabel implements WindowListener, GLEventListener, KeyListener
 		int key = e.getKeyCode();
 		switch (key) {
 		case KeyEvent.VK_UP:
-			v0y += 0.5;
+			tempoTasten++;
 			break;
 		case KeyEvent.VK_DOWN:
-			v0y -= 0.5;
+			tempoTasten--;
 			break;
 		}
 	}
@@ -272,6 +308,15 @@ public class WurfParabel implements WindowListener, GLEventListener, KeyListener
 		if (code == 's') {
 			stopped = true;
 		}
+		if (code == 'w') { // weiter
+			stopped = false;
+		}
+		if (code == 'z') { // 1 s zurueckspulen
+			loop.skip(-1000);
+		}
+		if (code == 'v') { // 1 s vorspulen
+			loop.skip(1000);
+		}
 
 	}
 